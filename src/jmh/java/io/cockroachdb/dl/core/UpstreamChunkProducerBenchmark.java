@@ -0,0 +1,160 @@
+package io.cockroachdb.dl.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import io.cockroachdb.dl.core.model.ApplicationModel;
+import io.cockroachdb.dl.core.model.Column;
+import io.cockroachdb.dl.core.model.IdentityType;
+import io.cockroachdb.dl.core.model.Table;
+import io.cockroachdb.dl.core.stream.CsvStreamWriter;
+import io.cockroachdb.dl.core.stream.CsvStreamWriterBuilder;
+import io.cockroachdb.dl.expression.ExpressionRegistry;
+import io.cockroachdb.dl.expression.ExpressionRegistryBuilder;
+import io.cockroachdb.dl.pubsub.Publisher;
+
+/**
+ * End-to-end row generation throughput of upstream tables in the bundled
+ * sample models, including CSV encoding to a channel discarding all bytes.
+ * Tables with ref or each columns, or with columns depending on a database
+ * or network lookups, are excluded. The row count of each table is capped.
+ * <p>
+ * Rows per second are reported by the {@code rows} secondary result.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UpstreamChunkProducerBenchmark {
+    private static final Set<IdentityType> DATABASE_TYPES
+            = Set.of(IdentityType.database_sequence, IdentityType.ordered, IdentityType.unordered);
+
+    private static final List<String> EXCLUDED_FUNCTIONS
+            = List.of("selectOne", "uniqueRowId", "unorderedUniqueRowId", "localIPv4", "publicIPv4");
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class RowCounter {
+        public long rows;
+    }
+
+    private static class NullChannel implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Param({"account", "bank", "catalog", "default", "lab", "ledger", "tpcc"})
+    public String model;
+
+    @Param({"100000"})
+    public int maxRowsPerTable;
+
+    private final DataSource dataSource = new SimpleDriverDataSource();
+
+    private final ExpressionRegistry registry = ExpressionRegistryBuilder.buildImmutable(dataSource);
+
+    private final Publisher publisher = new Publisher();
+
+    private List<Table> tables;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        YamlPropertySourceLoader loader = new YamlPropertySourceLoader();
+
+        MutablePropertySources propertySources = new MutablePropertySources();
+        loader.load(model, new FileSystemResource(Path.of("samples", "application-%s.yml".formatted(model))))
+                .forEach(propertySources::addLast);
+
+        ApplicationModel applicationModel = new Binder(ConfigurationPropertySources.from(propertySources))
+                .bind("model", ApplicationModel.class)
+                .orElseThrow(() -> new IllegalStateException("No model found in " + model));
+
+        this.tables = applicationModel.getTables()
+                .stream()
+                .filter(UpstreamChunkProducerBenchmark::isSupported)
+                .peek(table -> table.setCount(Integer.toString(Math.min(table.getFinalCount(), maxRowsPerTable))))
+                .toList();
+
+        if (tables.isEmpty()) {
+            throw new IllegalStateException("No supported tables in " + model);
+        }
+    }
+
+    private static boolean isSupported(Table table) {
+        if (table.getFinalCount() <= 0) {
+            return false;
+        }
+        for (Column column : table.getColumns()) {
+            if (column.getRef() != null || column.getEach() != null) {
+                return false;
+            }
+            if (column.getGen() != null && DATABASE_TYPES.contains(column.getGen().getType())) {
+                return false;
+            }
+            String expression = Objects.toString(column.getExpression(), "");
+            if (EXCLUDED_FUNCTIONS.stream().anyMatch(expression::contains)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Benchmark
+    public void produce(RowCounter counter) throws Exception {
+        for (Table table : tables) {
+            UpstreamChunkProducer producer = new UpstreamChunkProducer();
+            producer.initialize(dataSource, registry, publisher, table);
+
+            try (CsvStreamWriter writer = new CsvStreamWriterBuilder()
+                    .withColumnLayout(table.getColumnLayout())
+                    .withChannel(new NullChannel())
+                    .withIncludeHeader(true)
+                    .build()) {
+                writer.open();
+
+                producer.produceChunks((batch, rowEstimate) -> {
+                    writer.write(batch);
+                    counter.rows += batch.size();
+                    return true;
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package io.cockroachdb.dl.core.generator;
+
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.cockroachdb.dl.core.model.Column;
+import io.cockroachdb.dl.core.model.Gen;
+import io.cockroachdb.dl.core.model.IdentityType;
+import io.cockroachdb.dl.core.model.Range;
+import io.cockroachdb.dl.core.model.RangeType;
+import io.cockroachdb.dl.core.model.ValueSet;
+import io.cockroachdb.dl.expression.ExpressionRegistryBuilder;
+
+/**
+ * Value generation throughput per column generator type, created through
+ * {@link ValueGenerators} as for table columns. Generators backed by database
+ * sequences or unique_rowid() are excluded since they require a database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ValueGeneratorBenchmark {
+    @Param({
+            "uuid",
+            "sequence",
+            "date",
+            "time",
+            "datetime",
+            "constant",
+            "expression",
+            "set",
+            "weightedSet"
+    })
+    public String type;
+
+    private ValueGenerator<?> generator;
+
+    @Setup
+    public void setup() {
+        Column column = Column.of("c");
+
+        switch (type) {
+            case "uuid" -> column.setGen(Gen.of(IdentityType.uuid));
+            case "sequence" -> {
+                Gen gen = Gen.of(IdentityType.sequence);
+                gen.setFrom("1");
+                gen.setStep(1);
+                column.setGen(gen);
+            }
+            case "date" -> column.setRange(range(RangeType.date, "2020-01-01", "2030-12-31", ChronoUnit.DAYS));
+            case "time" -> column.setRange(range(RangeType.time, "00:00:00", "23:59:59", ChronoUnit.SECONDS));
+            case "datetime" -> column.setRange(range(RangeType.datetime,
+                    "2020-01-01T00:00:00", "2030-12-31T23:59:59", ChronoUnit.MINUTES));
+            case "constant" -> column.setConstant("hello");
+            case "expression" -> column.setExpression("randomInt(1,100)");
+            case "set", "weightedSet" -> {
+                ValueSet<String> set = new ValueSet<>();
+                set.setValues(List.of("a", "b", "c", "d", "e"));
+                if (type.equals("weightedSet")) {
+                    set.setWeights(List.of(0.5, 0.2, 0.1, 0.1, 0.1));
+                }
+                column.setSet(set);
+            }
+            default -> throw new IllegalArgumentException(type);
+        }
+
+        this.generator = ValueGenerators.createValueGenerator(column, null,
+                ExpressionRegistryBuilder.build(null));
+    }
+
+    private static Range range(RangeType type, String from, String to, ChronoUnit unit) {
+        Range range = new Range();
+        range.setType(type);
+        range.setFrom(from);
+        range.setTo(to);
+        range.setStep(1);
+        range.setStepUnit(unit);
+        return range;
+    }
+
+    @Benchmark
+    public Object nextValue() {
+        return generator.nextValue();
+    }
+}
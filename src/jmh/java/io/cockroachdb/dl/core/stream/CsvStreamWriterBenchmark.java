@@ -0,0 +1,93 @@
+package io.cockroachdb.dl.core.stream;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.cockroachdb.dl.core.Row;
+import io.cockroachdb.dl.core.RowBatch;
+import io.cockroachdb.dl.core.model.ColumnLayout;
+import io.cockroachdb.dl.util.RandomData;
+
+/**
+ * CSV encoding throughput in rows per millisecond for a batch of rows with
+ * mixed column types, written to a channel discarding all bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CsvStreamWriterBenchmark {
+    private static final int BATCH_SIZE = 4096;
+
+    private static class NullChannel implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Param({"", "\""})
+    public String quote;
+
+    private RowBatch batch;
+
+    private CsvStreamWriter writer;
+
+    @Setup
+    public void setup() throws IOException {
+        ColumnLayout layout = ColumnLayout.ofNames(List.of("id", "uuid", "name", "amount", "day", "note"));
+
+        this.batch = new RowBatch(layout, BATCH_SIZE, false);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Row row = batch.nextRow();
+            row.set(0, (long) i);
+            row.set(1, UUID.randomUUID());
+            row.set(2, RandomData.randomFirstName() + " " + RandomData.randomLastName());
+            row.set(3, BigDecimal.valueOf(random.nextLong(1, 1_000_000), 2));
+            row.set(4, LocalDate.ofEpochDay(random.nextInt(0, 20_000)));
+            row.set(5, "note \"" + i + "\" with quotes, and åäö");
+        }
+
+        this.writer = new CsvStreamWriterBuilder()
+                .withColumnLayout(layout)
+                .withChannel(new NullChannel())
+                .withQuoteCharacter(quote)
+                .build();
+        this.writer.open();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void writeBatch() throws IOException {
+        writer.write(batch);
+    }
+}
@@ -0,0 +1,107 @@
+package io.cockroachdb.dl.expression;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Expression evaluation throughput per built-in function, both including
+ * parsing (as with {@link Expression#evaluate(String, ExpressionRegistry)}),
+ * for pre-compiled expression trees and for expressions compiled to bytecode
+ * as used by column generators. Functions depending on a database or network
+ * lookups are excluded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExpressionBenchmark {
+    @Param({
+            "sin(1.5)",
+            "cos(1.5)",
+            "tan(1.5)",
+            "log(10)",
+            "log10(100)",
+            "pow(2,10)",
+            "sqrt(144)",
+            "latitudeToDMS(59.33)",
+            "longitudeToDMS(18.06)",
+            "randomLatitude()",
+            "randomLongitude()",
+            "randomFirstName()",
+            "randomLastName()",
+            "randomFullName()",
+            "randomCity()",
+            "randomCountry()",
+            "randomEmail()",
+            "randomPhoneNumber()",
+            "randomState()",
+            "randomStateCode()",
+            "randomZipCode()",
+            "randomCurrency()",
+            "randomBigDecimal(1,100,2)",
+            "randomMoney()",
+            "randomBoolean()",
+            "randomInt(1,100)",
+            "randomLong(1,100000)",
+            "randomDouble(1,100)",
+            "randomString(8,16)",
+            "randomRoachFact()",
+            "randomWord(8)",
+            "randomBytes(16)",
+            "randomLoreIpsum(5,10,false)",
+            "randomJson(5,2)",
+            "selectRandom('USD','SEK','EUR')",
+            "random('a','b','c','d','e','f')",
+            "randomUUID()",
+            "randomIPv4()",
+            "randomIPv6()",
+            "randomDate()",
+            "randomTime()",
+            "randomDateTime()",
+            "currentDate()",
+            "currentTime()",
+            "currentDateTime()",
+            "plus(currentDate(), 1, 'DAYS')",
+            "lowerCase('Hello World')",
+            "upperCase('Hello World')",
+            "capitalize('hello world')",
+            "trim('  hello  ')",
+            "toBase64(randomBytes(16))"
+    })
+    public String expression;
+
+    private ExpressionRegistry registry;
+
+    private CompiledExpression compiledExpression;
+
+    private CompiledExpression bytecodeExpression;
+
+    @Setup
+    public void setup() {
+        this.registry = ExpressionRegistryBuilder.build(null);
+        this.compiledExpression = Expression.compile(expression, registry);
+        this.bytecodeExpression = Expression.compileToBytecode(expression, registry);
+    }
+
+    @Benchmark
+    public Object evaluate() {
+        return Expression.evaluate(expression, registry);
+    }
+
+    @Benchmark
+    public Object evaluateCompiled() {
+        return compiledExpression.evaluate();
+    }
+
+    @Benchmark
+    public Object evaluateBytecode() {
+        return bytecodeExpression.evaluate();
+    }
+}
@@ -0,0 +1,74 @@
+package io.cockroachdb.dl.mergesort;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Average time to sort a synthetic CSV file with a header line, including
+ * splitting, sorting and merging of chunks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExternalMergeSortBenchmark {
+    @Param({"200000"})
+    public int lines;
+
+    @Param({"1", "4"})
+    public int chunks;
+
+    @Param({"", "3,1:int"})
+    public String orderBy;
+
+    private Path directory;
+
+    private Path inputFile;
+
+    private Path outputFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.directory = Files.createTempDirectory("dl-sort-");
+        this.inputFile = directory.resolve("input.csv");
+        this.outputFile = directory.resolve("output.csv");
+
+        List<String> content = new ArrayList<>();
+        content.add(MergeSortBenchmarks.HEADER);
+        content.addAll(MergeSortBenchmarks.randomLines(lines));
+
+        Files.write(inputFile, content);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void sort() throws IOException {
+        ExternalMergeSort.builder()
+                .withInputFile(inputFile)
+                .withOutputFile(outputFile)
+                .withChunks(chunks)
+                .withLinesToSkip(1)
+                .withOrderBy(MergeSortBenchmarks.parseOrderBy(orderBy))
+                .build()
+                .sort();
+    }
+}
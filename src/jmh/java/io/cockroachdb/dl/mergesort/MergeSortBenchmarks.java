@@ -0,0 +1,45 @@
+package io.cockroachdb.dl.mergesort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.cockroachdb.dl.util.RandomData;
+
+/**
+ * Synthetic input for merge sort benchmarks.
+ */
+abstract class MergeSortBenchmarks {
+    static final String HEADER = "id,uuid,name,amount,note";
+
+    private MergeSortBenchmarks() {
+    }
+
+    /**
+     * @param orderBy comma separated sort columns, like 3,1:int:desc
+     * @return the sort columns
+     */
+    static List<SortColumn> parseOrderBy(String orderBy) {
+        return Arrays.stream(orderBy.split(","))
+                .filter(spec -> !spec.isBlank())
+                .map(SortColumn::parse)
+                .toList();
+    }
+
+    static List<String> randomLines(int count) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add("%d,%s,%s,%s,\"%s\"".formatted(
+                    random.nextLong(1, Long.MAX_VALUE),
+                    UUID.randomUUID(),
+                    RandomData.randomFirstName() + " " + RandomData.randomLastName(),
+                    BigDecimal.valueOf(random.nextLong(1, 1_000_000), 2),
+                    "note, " + i));
+        }
+        return lines;
+    }
+}
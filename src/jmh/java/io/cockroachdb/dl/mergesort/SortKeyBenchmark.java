@@ -0,0 +1,63 @@
+package io.cockroachdb.dl.mergesort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Sort key extraction and comparison throughput, ordering by
+ * one or two typed columns of synthetic lines.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SortKeyBenchmark {
+    private static final int LINES = 1024;
+
+    @Param({"3", "3,1:int", "4:decimal:desc", "2:uuid"})
+    public String orderBy;
+
+    private SortKeyEncoder encoder;
+
+    private byte[][] lines;
+
+    private byte[][] keys;
+
+    private int index;
+
+    @Setup
+    public void setup() {
+        List<SortColumn> columns = MergeSortBenchmarks.parseOrderBy(orderBy);
+        this.encoder = new SortKeyEncoder((byte) ',', (byte) '"', columns);
+        this.lines = MergeSortBenchmarks.randomLines(LINES).stream()
+                .map(line -> line.getBytes(StandardCharsets.UTF_8))
+                .toArray(byte[][]::new);
+        this.keys = Arrays.stream(lines)
+                .map(line -> Arrays.copyOf(encoder.key(), encoder.encode(line, 0, line.length)))
+                .toArray(byte[][]::new);
+    }
+
+    @Benchmark
+    public int encode() {
+        byte[] line = lines[index++ & (LINES - 1)];
+        return encoder.encode(line, 0, line.length);
+    }
+
+    @Benchmark
+    public int compare() {
+        int i = index++ & (LINES - 1);
+        byte[] left = keys[i];
+        byte[] right = keys[(i + 1) & (LINES - 1)];
+        return SortKeyEncoder.compare(left, 0, left.length, right, 0, right.length);
+    }
+}
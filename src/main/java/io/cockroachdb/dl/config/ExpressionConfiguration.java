@@ -0,0 +1,21 @@
+package io.cockroachdb.dl.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.cockroachdb.dl.expression.ExpressionRegistry;
+import io.cockroachdb.dl.expression.ExpressionRegistryBuilder;
+
+@Configuration
+public class ExpressionConfiguration {
+    /**
+     * Immutable registry of all built-in variables and functions, shared by all
+     * producers, CSV streams and shell commands.
+     */
+    @Bean
+    public ExpressionRegistry expressionRegistry(DataSource dataSource) {
+        return ExpressionRegistryBuilder.buildImmutable(dataSource);
+    }
+}
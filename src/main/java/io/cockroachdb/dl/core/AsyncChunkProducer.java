@@ -1,11 +1,13 @@
 package io.cockroachdb.dl.core;
 
-import java.util.LinkedHashMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import javax.sql.DataSource;
@@ -17,13 +19,19 @@ import org.springframework.util.Assert;
 import io.cockroachdb.dl.core.generator.ValueGenerator;
 import io.cockroachdb.dl.core.generator.ValueGenerators;
 import io.cockroachdb.dl.core.model.Column;
+import io.cockroachdb.dl.core.model.ColumnLayout;
+import io.cockroachdb.dl.core.model.Distribution;
 import io.cockroachdb.dl.core.model.Each;
 import io.cockroachdb.dl.core.model.Ref;
 import io.cockroachdb.dl.core.model.Table;
 import io.cockroachdb.dl.expression.ExpressionRegistry;
-import io.cockroachdb.dl.expression.ExpressionRegistryBuilder;
 import io.cockroachdb.dl.expression.FunctionDef;
+import io.cockroachdb.dl.expression.OverlayExpressionRegistry;
 import io.cockroachdb.dl.pubsub.Publisher;
+import io.cockroachdb.dl.pubsub.Topic;
+import io.cockroachdb.dl.util.IndexSampler;
+import io.cockroachdb.dl.util.RandomSource;
+import io.cockroachdb.dl.util.SplitMixRandom;
 import io.cockroachdb.dl.util.concurrent.BlockingFifoQueue;
 import io.cockroachdb.dl.util.concurrent.CircularFifoQueue;
 import io.cockroachdb.dl.util.concurrent.FifoQueue;
@@ -32,18 +40,13 @@ import io.cockroachdb.dl.util.concurrent.FifoQueue;
  * Base class for async chuck producers using topics and FIFO queues
  * for message passing to avoid building state in table relations.
  */
-public abstract class AsyncChunkProducer implements ChunkProducer<String, Object>, AsyncProducer {
-    protected static final Predicate<Column> COLUMN_INCLUDE_PREDICATE
-            = column -> (column.isHidden() == null || !column.isHidden());
-
+public abstract class AsyncChunkProducer implements ChunkProducer, AsyncProducer {
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
-    protected final Map<Column, ValueGenerator<?>> columnGenerators = new LinkedHashMap<>();
-
-    protected final FifoQueue<String, Object> boundedFifoQueue
+    protected final FifoQueue<Row> boundedFifoQueue
             = new BlockingFifoQueue<>(8192);
 
-    protected final FifoQueue<String, Object> circularFifoQueue
+    protected final CircularFifoQueue<Row> circularFifoQueue
             = new CircularFifoQueue<>(8192);
 
     protected DataSource dataSource;
@@ -52,43 +55,172 @@ public abstract class AsyncChunkProducer implements ChunkProducer<String, Object
 
     protected Table table;
 
+    protected Slice slice;
+
+    /**
+     * Table columns in ordinal order.
+     */
+    protected List<Column> columns;
+
+    protected ColumnLayout layout;
+
+    /**
+     * Value generators by column ordinal, null for ref and each columns.
+     */
+    protected ValueGenerator<?>[] columnGenerators;
+
+    /**
+     * Ref table slot by column ordinal (-1 for non-ref columns) where all ref columns
+     * pointing to the same table share the same slot within a row.
+     */
+    private int[] refSlots;
+
+    /**
+     * Ref row samplers by column ordinal, null for non-ref columns. Since ref columns
+     * share slots, the first ref column of a table picks the row for the others.
+     */
+    private IndexSampler[] refSamplers;
+
+    /**
+     * Resolved ordinals in upstream rows by column ordinal, lazily resolved.
+     */
+    private int[] upstreamOrdinals;
+
+    /**
+     * Upstream table names subscribed to by each and ref columns, since all
+     * columns pointing to the same table share the same queue.
+     */
+    private final Set<String> eachSubscriptions = new HashSet<>();
+
+    private final Set<String> refSubscriptions = new HashSet<>();
+
     protected final AtomicInteger currentRow = new AtomicInteger(1);
 
+    /**
+     * Seeded random source positioned per row, or null if not seeded.
+     */
+    private SplitMixRandom random;
+
     @Override
     public Supplier<Integer> currentRow() {
         return currentRow::get;
     }
 
     /**
-     * Filter values in a map based on the column include predicate.
+     * Produce chunks with the seeded random source installed for the current
+     * thread, if any.
+     */
+    @Override
+    public final void produceChunks(ChunkConsumer consumer) throws Exception {
+        if (random == null) {
+            doProduceChunks(consumer);
+            return;
+        }
+        RandomSource.install(random);
+        try {
+            doProduceChunks(consumer);
+        } finally {
+            RandomSource.uninstall();
+        }
+    }
+
+    /**
+     * Produce rows and supply to consumer until consumer tells to stop,
+     * calling {@link #beginRow()} before generating each row.
      *
-     * @param map the source value map
-     * @return the filtered target map
+     * @param consumer the target consumer
+     * @throws Exception on any errors
      */
-    protected Map<String, Object> filterIncludedValues(Map<String, Object> map) {
-        Map<String, Object> copy = new LinkedHashMap<>();
+    protected abstract void doProduceChunks(ChunkConsumer consumer) throws Exception;
 
-        table.getColumns()
-                .stream()
-                .filter(COLUMN_INCLUDE_PREDICATE)
-                .map(Column::getName)
-                .forEach(column -> copy.put(column, map.get(column)));
+    /**
+     * Position the seeded random source at the current row number, so that
+     * random values of a row only depend on the seed and the row number.
+     */
+    protected void beginRow() {
+        if (random != null) {
+            random.setPosition(currentRow.get());
+        }
+    }
 
-        return copy;
+    /**
+     * @return number of distinct ref tables, i.e. size of the ref row array
+     */
+    protected int refSlotCount() {
+        int max = -1;
+        for (int slot : refSlots) {
+            max = Math.max(max, slot);
+        }
+        return max + 1;
+    }
+
+    /**
+     * Create a row batch for the table with the configured batch size, recycling
+     * rows if there are no topic listeners that may retain them.
+     *
+     * @param topic the table topic
+     * @return a new empty batch
+     */
+    protected RowBatch newBatch(Topic<Row> topic) {
+        return new RowBatch(layout, table.getFinalBatchSize(), !topic.hasMessageListeners());
+    }
+
+    /**
+     * Hand over a non-empty batch to the consumer and clear it for reuse.
+     *
+     * @param consumer    the consumer
+     * @param batch       the batch
+     * @param rowEstimate estimated total number of rows
+     * @return true to signal continuation
+     */
+    protected boolean flush(ChunkConsumer consumer, RowBatch batch, long rowEstimate) throws Exception {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        try {
+            return consumer.consumeChunk(batch, rowEstimate);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * Resolve a value from an upstream row by column name. The ordinal in the
+     * upstream layout is resolved on first access and cached by local column ordinal.
+     *
+     * @param upstream the upstream row
+     * @param ordinal  the local column ordinal
+     * @param column   the upstream column name
+     * @return the value or null if not found
+     */
+    protected Object upstreamValue(Row upstream, int ordinal, String column) {
+        int idx = upstreamOrdinals[ordinal];
+        if (idx < 0) {
+            idx = upstream.getLayout().indexOf(column);
+            if (idx < 0) {
+                return null;
+            }
+            upstreamOrdinals[ordinal] = idx;
+        }
+        return upstream.get(idx);
     }
 
     /**
-     * Add a subscription for the table referenced from a given each column ref.
+     * Add a subscription for the table referenced from a given each column ref,
+     * unless already subscribed to.
      * Each received event will be put into the bounded blocking queue for consumption.
      *
      * @param each the each ref
      */
     protected void subscribeTo(Each each) {
-        publisher.<Map<String, Object>>getTopic(each.getName())
+        if (!eachSubscriptions.add(each.getName())) {
+            return;
+        }
+        publisher.<Row>getTopic(each.getName())
                 .addMessageListener(message -> {
                     try {
                         if (message.isPoisonPill()) {
-                            boundedFifoQueue.put(each.getName(), Map.of());
+                            boundedFifoQueue.put(each.getName(), Row.empty());
                         } else {
                             boundedFifoQueue.put(each.getName(), message.getPayload());
                         }
@@ -100,44 +232,47 @@ public abstract class AsyncChunkProducer implements ChunkProducer<String, Object
     }
 
     /**
-     * Add a subscription for the table referenced from a given column ref.
+     * Add a subscription for the table referenced from a given column ref,
+     * unless already subscribed to.
      * Each received event will be put into the circular blocking queue for consumption.
      *
      * @param ref the column ref
      */
     protected void subscribeTo(Ref ref) {
-        publisher.<Map<String, Object>>getTopic(ref.getName())
+        if (!refSubscriptions.add(ref.getName())) {
+            return;
+        }
+        publisher.<Row>getTopic(ref.getName())
                 .addMessageListener(message -> {
                     if (!message.isPoisonPill()) {
-                        try {
-                            circularFifoQueue.put(ref.getName(), message.getPayload());
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                            throw new ProducerFailedException("Interrupted put() for key " + ref.getName(),
-                                    e);
-                        }
+                        circularFifoQueue.put(ref.getName(), message.getPayload());
                     }
                 });
     }
 
     /**
-     * Consume values from a ref map, in turn feeding from the circular queue.
+     * Consume values from a ref row array, in turn feeding from the circular queue.
      *
-     * @param refMap the ref map, producer scoped
-     * @param ref    the column ref
+     * @param refRows the ref rows by slot, row scoped
+     * @param ordinal the ref column ordinal
      * @return the ref value, must not be null
      */
-    protected Object consumeFrom(Map<String, Map<String, Object>> refMap, Ref ref) {
-        Map<String, Object> values = refMap.computeIfAbsent(ref.getName(), key -> {
+    protected Object consumeFrom(Row[] refRows, int ordinal) {
+        Ref ref = columns.get(ordinal).getRef();
+        int slot = refSlots[ordinal];
+
+        Row values = refRows[slot];
+        if (values == null) {
             try {
-                return circularFifoQueue.take(key);
+                values = circularFifoQueue.take(ref.getName(), refSamplers[ordinal]);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
-                throw new ProducerFailedException("Interrupted take() for key " + key, e);
+                throw new ProducerFailedException("Interrupted take() for key " + ref.getName(), e);
             }
-        });
+            refRows[slot] = values;
+        }
 
-        Object v = values.get(ref.getColumn());
+        Object v = upstreamValue(values, ordinal, ref.getColumn());
         if (Objects.isNull(v)) {
             throw new ConfigurationException("Column ref not found: %s"
                     .formatted(ref), table);
@@ -150,16 +285,24 @@ public abstract class AsyncChunkProducer implements ChunkProducer<String, Object
      * Perform initializations needed for all async chunk producers.
      */
     @Override
-    public final void initialize(DataSource dataSource, Publisher publisher, Table table) {
+    public final void initialize(DataSource dataSource, ExpressionRegistry sharedRegistry,
+                                 Publisher publisher, Table table, Slice slice, Long seed) {
         Assert.notNull(dataSource, "dataSource is null");
+        Assert.notNull(sharedRegistry, "sharedRegistry is null");
         Assert.notNull(publisher, "publisher is null");
         Assert.notNull(table, "table is null");
+        Assert.notNull(slice, "slice is null");
 
         this.dataSource = dataSource;
         this.publisher = publisher;
         this.table = table;
+        this.slice = slice;
+        this.currentRow.set(slice.getOffset() + 1);
+        this.columns = table.getColumns();
+        this.layout = table.getColumnLayout();
+        this.random = seed != null ? new SplitMixRandom(seed) : null;
 
-        ExpressionRegistry registry = ExpressionRegistryBuilder.build(dataSource);
+        ExpressionRegistry registry = new OverlayExpressionRegistry(sharedRegistry);
 
         List.of(FunctionDef.builder()
                         .withCategory("other")
@@ -170,17 +313,53 @@ public abstract class AsyncChunkProducer implements ChunkProducer<String, Object
                         .build())
                 .forEach(registry::addFunction);
 
-        // Get generator for all non-ref columns
-        table.filterColumns(Table.WITH_REF.or(Table.WITH_EACH).negate())
-                .forEach(column -> columnGenerators.put(column,
-                        ValueGenerators.createValueGenerator(column, dataSource, registry)));
+        this.columnGenerators = new ValueGenerator<?>[columns.size()];
+        this.refSlots = new int[columns.size()];
+        this.refSamplers = new IndexSampler[columns.size()];
+        this.upstreamOrdinals = new int[columns.size()];
+
+        Map<String, Integer> slots = new HashMap<>();
+
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+
+            // Get generator for all non-ref columns
+            if (Table.WITH_REF.or(Table.WITH_EACH).negate().test(column)) {
+                columnGenerators[i] = ValueGenerators.createValueGenerator(column, dataSource, registry,
+                        slice.getOffset());
+            }
+
+            Ref ref = column.getRef();
+            refSlots[i] = ref != null
+                    ? slots.computeIfAbsent(ref.getName(), k -> slots.size())
+                    : -1;
+            refSamplers[i] = ref != null ? createIndexSampler(column) : null;
+            upstreamOrdinals[i] = -1;
+        }
 
         doInitialize();
     }
 
+    private static IndexSampler createIndexSampler(Column column) {
+        Ref ref = column.getRef();
+        Distribution distribution = Optional.ofNullable(ref.getDistribution()).orElse(Distribution.uniform);
+        try {
+            return switch (distribution) {
+                case uniform -> IndexSampler.UNIFORM;
+                case zipf -> IndexSampler.zipf(Optional.ofNullable(ref.getSkew()).orElse(0.99));
+                case latest -> IndexSampler.latest(Optional.ofNullable(ref.getSkew()).orElse(0.99));
+                case hotspot -> IndexSampler.hotspot(
+                        Optional.ofNullable(ref.getHotFraction()).orElse(0.2),
+                        Optional.ofNullable(ref.getHotProbability()).orElse(0.8));
+            };
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException(e.getMessage(), column);
+        }
+    }
+
     /**
      * Perform custom initializations needed for subclassed producers.
      */
     protected void doInitialize() {
     }
-}
\ No newline at end of file
+}
@@ -3,8 +3,30 @@ package io.cockroachdb.dl.core;
 import javax.sql.DataSource;
 
 import io.cockroachdb.dl.core.model.Table;
+import io.cockroachdb.dl.expression.ExpressionRegistry;
 import io.cockroachdb.dl.pubsub.Publisher;
 
 public interface AsyncProducer {
-    void initialize(DataSource dataSource, Publisher publisher, Table table);
+    default void initialize(DataSource dataSource, ExpressionRegistry registry, Publisher publisher,
+                            Table table) {
+        initialize(dataSource, registry, publisher, table, Slice.whole(table.getFinalCount()));
+    }
+
+    default void initialize(DataSource dataSource, ExpressionRegistry registry, Publisher publisher,
+                            Table table, Slice slice) {
+        initialize(dataSource, registry, publisher, table, slice, table.getSeed());
+    }
+
+    /**
+     * Initialize the producer for a slice of a table.
+     *
+     * @param dataSource the data source
+     * @param registry   the shared built-in expression registry
+     * @param publisher  the publisher for table topics
+     * @param table      the table
+     * @param slice      the slice of rows to produce
+     * @param seed       the random seed for reproducible values, or null if not seeded
+     */
+    void initialize(DataSource dataSource, ExpressionRegistry registry, Publisher publisher,
+                    Table table, Slice slice, Long seed);
 }
@@ -1,19 +1,20 @@
 package io.cockroachdb.dl.core;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.springframework.util.Assert;
 
 import io.cockroachdb.dl.core.model.Column;
+import io.cockroachdb.dl.core.model.ColumnLayout;
 import io.cockroachdb.dl.core.model.Each;
 import io.cockroachdb.dl.core.model.Ref;
 import io.cockroachdb.dl.core.model.Table;
@@ -25,9 +26,10 @@ import io.cockroachdb.dl.util.Cartesian;
 /**
  * A cartesian (cross-product) producer is mapped to tables with more
  * than one each ref column typical for many-to-many relations.
- * It consumes, aggregates and computes a cartesian product of all
- * ref column permutations. This can be time-consuming and has combinatorial
- * complexity with high memory consumption, thus use with caution.
+ * It consumes and aggregates all upstream rows (spilling to disk beyond a
+ * memory budget), and then streams out the cartesian product of all ref
+ * column permutations lazily. This can be
+ * time-consuming and has combinatorial complexity, thus use with caution.
  */
 public class CartesianChunkProducer extends AsyncChunkProducer {
     private static final int WARN_THRESHOLD = 10_000_000;
@@ -45,36 +47,61 @@ public class CartesianChunkProducer extends AsyncChunkProducer {
                 .forEach(this::subscribeTo);
     }
 
-    private List<List<Map<String, Object>>> drainUpStreamTopics() {
-        Map<String, List<Map<String, Object>>> columnValueMap = new LinkedHashMap<>();
+    /**
+     * Resolve the upstream columns referenced from this table by upstream table name.
+     */
+    private Map<String, List<String>> resolveReferencedColumns() {
+        Map<String, List<String>> referencedColumns = new LinkedHashMap<>();
 
         table.filterColumns(Table.WITH_EACH)
                 .stream()
                 .map(Column::getEach)
-                .forEach(each -> {
-                    if (!columnValueMap.containsKey(each.getName())) {
-                        List<Map<String, Object>> rows = new LinkedList<>();
-
-                        try {
-                            Map<String, Object> values = boundedFifoQueue.take(each.getName());
-                            while (!values.isEmpty()) {
-                                rows.add(values);
-                                values = boundedFifoQueue.take(each.getName());
-                            }
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                            throw new ProducerFailedException("Interrupted take() for key " + each.getName(), e);
-                        }
-
-                        columnValueMap.put(each.getName(), rows);
-                    }
-                });
+                .forEach(each -> referencedColumns.computeIfAbsent(each.getName(), k -> new ArrayList<>())
+                        .add(each.getColumn()));
 
-        return columnValueMap
-                .keySet()
+        table.filterColumns(Table.WITH_REF)
                 .stream()
-                .map(columnValueMap::get)
-                .collect(Collectors.toList());
+                .map(Column::getRef)
+                .filter(ref -> referencedColumns.containsKey(ref.getName()))
+                .forEach(ref -> referencedColumns.get(ref.getName()).add(ref.getColumn()));
+
+        return referencedColumns;
+    }
+
+    private List<SpillableRowList> drainUpStreamTopics() {
+        Map<String, List<String>> referencedColumns = resolveReferencedColumns();
+
+        final long memoryBudget = table.getFinalMemoryBudget() / Math.max(1, referencedColumns.size());
+        final Path directory = Paths.get(System.getProperty("java.io.tmpdir"));
+
+        List<SpillableRowList> columnSets = new ArrayList<>();
+
+        referencedColumns.forEach((name, columnNames) -> {
+            SpillableRowList rows = new SpillableRowList(
+                    ColumnLayout.ofNames(columnNames.stream().distinct().toList()), memoryBudget, directory);
+            columnSets.add(rows);
+
+            try {
+                Row values = boundedFifoQueue.take(name);
+                while (!values.isEmpty()) {
+                    rows.add(values);
+                    values = boundedFifoQueue.take(name);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                columnSets.forEach(SpillableRowList::close);
+                throw new ProducerFailedException("Interrupted take() for key " + name, e);
+            }
+
+            rows.seal();
+
+            if (rows.isSpilled()) {
+                logger.info("Spilled %,d rows from '%s' to disk for '%s'"
+                        .formatted(rows.size(), name, table.getName()));
+            }
+        });
+
+        return columnSets;
     }
 
     private Map<String, Integer> resolveColumnIndexes() {
@@ -90,12 +117,20 @@ public class CartesianChunkProducer extends AsyncChunkProducer {
     }
 
     @Override
-    public void produceChunks(ChunkConsumer<String, Object> consumer) throws Exception {
-        List<List<Map<String, Object>>> columnSets = drainUpStreamTopics();
+    protected void doProduceChunks(ChunkConsumer consumer) throws Exception {
+        List<SpillableRowList> columnSets = drainUpStreamTopics();
+        try {
+            produceChunks(consumer, columnSets);
+        } finally {
+            columnSets.forEach(SpillableRowList::close);
+        }
+    }
 
-        long rowEstimate = columnSets.stream()
-                .mapToLong(List::size)
-                .reduce(1, Math::multiplyExact);
+    private void produceChunks(ChunkConsumer consumer, List<SpillableRowList> columnSets) throws Exception {
+
+        Cartesian.Odometer<Row> cartesianProduct = Cartesian.cartesianProductIterator(columnSets);
+
+        long rowEstimate = cartesianProduct.size();
 
         if (rowEstimate > WARN_THRESHOLD) {
             logger.warn("Potentially large cartesian product for '%s' with %,d rows"
@@ -107,62 +142,79 @@ public class CartesianChunkProducer extends AsyncChunkProducer {
 
         Map<String, Integer> columnIndexes = resolveColumnIndexes();
 
-        Topic<Map<String, Object>> topic = publisher.getTopic(table.getName());
+        Topic<Row> topic = publisher.getTopic(table.getName());
         if (!topic.hasMessageListeners()) {
             topic = new EmptyTopic<>();
         }
 
-        // Create cartesian product from columns sets
-        Stream<List<Map<String, Object>>> cartesianProduct = Cartesian.cartesianProductStream(columnSets);
+        final int columnCount = columns.size();
+        final Row[] refRows = new Row[refSlotCount()];
+
+        // Resolve product set index by column ordinal once, -1 for non-product columns
+        final int[] productIndexes = new int[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            Column column = columns.get(c);
+            Each each = column.getEach();
+            if (each != null) {
+                Assert.isTrue(columnIndexes.containsKey(each.getName()),
+                        "Expected each: " + each.getName());
+                productIndexes[c] = columnIndexes.get(each.getName());
+            } else if (column.getRef() != null) {
+                productIndexes[c] = columnIndexes.getOrDefault(column.getRef().getName(), -1);
+            } else {
+                productIndexes[c] = -1;
+            }
+        }
+
+        final RowBatch batch = newBatch(topic);
 
-        // Short-circuit
-        AtomicBoolean cancel = new AtomicBoolean();
+        // Stream out each combination of the cartesian product lazily
+        while (cartesianProduct.hasNext()) {
+            List<Row> product = cartesianProduct.next();
 
-        // Now we have the whole cartesian product that can be streamed out
-        for (List<Map<String, Object>> productMap : cartesianProduct
-                .takeWhile(objects -> !cancel.get())
-                .toList()) {
+            beginRow();
 
-            Map<String, Object> orderedTuples = new LinkedHashMap<>();
+            Row row = batch.nextRow();
 
-            for (Column c : table.getColumns()) {
+            for (int c = 0; c < columnCount; c++) {
+                Column column = columns.get(c);
                 Object v;
 
-                Each each = c.getEach();
+                Each each = column.getEach();
                 if (each != null) {
-                    Assert.isTrue(columnIndexes.containsKey(each.getName()),
-                            "Expected each: " + each.getName());
-                    v = productMap.get(columnIndexes.get(each.getName())).get(each.getColumn());
+                    v = upstreamValue(product.get(productIndexes[c]), c, each.getColumn());
                 } else {
-                    Ref ref = c.getRef();
+                    Ref ref = column.getRef();
                     if (ref != null) {
-                        if (columnIndexes.containsKey(ref.getName())) {
-                            v = productMap.get(columnIndexes.get(ref.getName())).get(ref.getColumn());
+                        if (productIndexes[c] >= 0) {
+                            v = upstreamValue(product.get(productIndexes[c]), c, ref.getColumn());
                             if (Objects.isNull(v)) {
                                 throw new ConfigurationException("Column ref not found: %s"
                                         .formatted(ref), table);
                             }
                         } else {
-                            v = circularFifoQueue.take(ref.getName());
+                            v = consumeFrom(refRows, c);
                         }
                     } else {
-                        v = columnGenerators.get(c).nextValue();
+                        v = columnGenerators[c].nextValue();
                     }
                 }
-                orderedTuples.put(c.getName(), v);
+                row.set(c, v);
             }
 
-            topic.publish(Message.of(orderedTuples));
+            Arrays.fill(refRows, null);
 
-            Map<String, Object> copy = filterIncludedValues(orderedTuples);
+            topic.publish(Message.of(row));
 
             currentRow.incrementAndGet();
 
-            if (!consumer.consumeChunk(copy, rowEstimate)) {
-                cancel.set(true);
+            if (batch.isFull() && !flush(consumer, batch, rowEstimate)) {
+                break;
             }
         }
 
+        flush(consumer, batch, rowEstimate);
+
         topic.publish(Message.poisonPill());
     }
 }
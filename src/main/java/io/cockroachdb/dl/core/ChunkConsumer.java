@@ -1,21 +1,17 @@
 package io.cockroachdb.dl.core;
 
-import java.util.Map;
-
 /**
- * Consumer side of generated single insertion-ordered key-value pairs.
- *
- * @param <K> map key type
- * @param <V> map key value
+ * Consumer side of generated rows.
  */
 @FunctionalInterface
-public interface ChunkConsumer<K,V> {
+public interface ChunkConsumer {
     /**
-     * Consume a single insertion-ordered key-value pair of generated values.
+     * Consume a batch of generated rows. The batch and its rows may be reused
+     * by the producer once this method returns, so consumers must not retain them.
      *
-     * @param values      single row tuple
+     * @param batch       batch of row tuples addressed by column ordinal
      * @param rowEstimate estimated total number of rows
      * @return true to signal continuation
      */
-    boolean consumeChunk(Map<K,V> values, long rowEstimate) throws Exception;
+    boolean consumeChunk(RowBatch batch, long rowEstimate) throws Exception;
 }
@@ -3,21 +3,18 @@ package io.cockroachdb.dl.core;
 import java.util.function.Supplier;
 
 /**
- * Producer side for generated single insertion-ordered key-value pairs.
- *
- * @param <K> map key type
- * @param <V> map key value
+ * Producer side for generated rows.
  */
 //@FunctionalInterface
-public interface ChunkProducer<K, V> {
+public interface ChunkProducer {
     /**
-     * Produce key-value chunks and supply to consumer until consumer tells
+     * Produce rows and supply to consumer until consumer tells
      * to stop.
      *
      * @param consumer the target consumer
      * @throws Exception on any errors
      */
-    void produceChunks(ChunkConsumer<K, V> consumer) throws Exception;
+    void produceChunks(ChunkConsumer consumer) throws Exception;
 
     Supplier<Integer> currentRow();
 }
@@ -11,7 +11,7 @@ import io.cockroachdb.dl.core.model.Table;
  * table configurations. A table can only have one type of chunk producer.
  */
 public interface ChunkProducerQualifier
-        extends Predicate<Table>, Supplier<ChunkProducer<String,Object>> {
+        extends Predicate<Table>, Supplier<ChunkProducer> {
     String description();
 
     void validate(List<Table> allTables, Table table);
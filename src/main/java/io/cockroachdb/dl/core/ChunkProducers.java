@@ -2,6 +2,7 @@ package io.cockroachdb.dl.core;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import io.cockroachdb.dl.core.model.Column;
@@ -21,6 +22,51 @@ public abstract class ChunkProducers {
         );
     }
 
+    /**
+     * Count the topic subscriptions made by a producer of the given table, one for each
+     * distinct table referenced by 'each' columns and one for each distinct table referenced
+     * by 'ref' columns. Every subscription is drained by a separate task in the async thread pool.
+     *
+     * @param table the table
+     * @return number of topic subscriptions per producer
+     */
+    public static int subscriptionCount(Table table) {
+        Set<String> eachNames = new HashSet<>();
+        table.filterColumns(Table.WITH_EACH)
+                .forEach(column -> eachNames.add(column.getEach().getName()));
+
+        Set<String> refNames = new HashSet<>();
+        table.filterColumns(Table.WITH_REF)
+                .forEach(column -> refNames.add(column.getRef().getName()));
+
+        return eachNames.size() + refNames.size();
+    }
+
+    /**
+     * Validate that all producers and their topic subscription drains can run at the same time
+     * in the async thread pool. Since the pool queues tasks beyond its core size rather than
+     * growing, any queued drain task would never start while producers wait for it, blocking
+     * on the start latch or on full topics and queues. One thread is reserved for the caller.
+     *
+     * @param tableSlices the slices to produce by table
+     * @param poolSize    the core size of the async thread pool
+     */
+    public static void validateThreadPoolSize(Map<Table, List<Slice>> tableSlices, int poolSize) {
+        int producers = 0;
+        int subscribers = 0;
+
+        for (Map.Entry<Table, List<Slice>> entry : tableSlices.entrySet()) {
+            producers += entry.getValue().size();
+            subscribers += entry.getValue().size() * subscriptionCount(entry.getKey());
+        }
+
+        if (producers + subscribers >= poolSize) {
+            throw new ConfigurationException(("Too many producers (%d) and topic subscribers (%d) "
+                    + "for thread pool size (%d) - reduce table partitions or increase application.maximum-threads")
+                    .formatted(producers, subscribers, poolSize));
+        }
+    }
+
     private static void validateRef(List<Table> allTables, Table table, Ref ref) {
         allTables.stream()
                 .filter(t -> t.getName().equals(ref.getName()))
@@ -51,6 +97,21 @@ public abstract class ChunkProducers {
                                 .formatted(each.getColumn(), each.getName()), table));
     }
 
+    private static void validatePartitions(List<Table> allTables, Table table) {
+        if (table.getFinalPartitions() <= 1) {
+            return;
+        }
+
+        allTables.forEach(t -> t.getColumns().forEach(column -> {
+            if ((column.getRef() != null && column.getRef().getName().equals(table.getName()))
+                || (column.getEach() != null && column.getEach().getName().equals(table.getName()))) {
+                throw new ConfigurationException(
+                        "Partitioned table cannot be referenced by column '%s' in table '%s'"
+                                .formatted(column.getName(), t.getName()), table);
+            }
+        }));
+    }
+
     public static class Cartesian implements ChunkProducerQualifier {
         @Override
         public String description() {
@@ -70,6 +131,10 @@ public abstract class ChunkProducers {
                         + table.getFinalCount() + ")", table);
             }
 
+            if (table.getFinalPartitions() > 1) {
+                throw new ConfigurationException("Partitions not supported for cross product producer", table);
+            }
+
             Set<String> topics = new HashSet<>();
 
             table.filterColumns(Table.WITH_EACH)
@@ -120,6 +185,10 @@ public abstract class ChunkProducers {
                 throw new ConfigurationException("Expected row count zero for downstream producer", table);
             }
 
+            if (table.getFinalPartitions() > 1) {
+                throw new ConfigurationException("Partitions not supported for downstream producer", table);
+            }
+
             Set<String> topics = new HashSet<>();
 
             table.filterColumns(Table.WITH_EACH)
@@ -177,6 +246,8 @@ public abstract class ChunkProducers {
                     .stream()
                     .map(Column::getRef)
                     .forEach(ref -> validateRef(allTables, table, ref));
+
+            validatePartitions(allTables, table);
         }
 
         @Override
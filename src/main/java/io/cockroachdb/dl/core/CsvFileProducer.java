@@ -1,25 +1,21 @@
 package io.cockroachdb.dl.core;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.List;
-import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Supplier;
 
 import javax.sql.DataSource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.batch.item.Chunk;
-import org.springframework.batch.item.ExecutionContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
 import org.springframework.data.util.Pair;
@@ -32,11 +28,11 @@ import io.cockroachdb.dl.core.event.GenericEvent;
 import io.cockroachdb.dl.core.event.ProducerProgressEvent;
 import io.cockroachdb.dl.core.event.ProducersStartingEvent;
 import io.cockroachdb.dl.core.model.ApplicationModel;
-import io.cockroachdb.dl.core.model.Column;
 import io.cockroachdb.dl.core.model.ImportOption;
 import io.cockroachdb.dl.core.model.Table;
 import io.cockroachdb.dl.core.stream.CsvStreamWriter;
 import io.cockroachdb.dl.core.stream.CsvStreamWriterBuilder;
+import io.cockroachdb.dl.expression.ExpressionRegistry;
 import io.cockroachdb.dl.pubsub.Publisher;
 
 @Component
@@ -51,6 +47,9 @@ public class CsvFileProducer extends AbstractEventPublisher {
     @Autowired
     private DataSource dataSource;
 
+    @Autowired
+    private ExpressionRegistry expressionRegistry;
+
     @Autowired
     private Publisher publisher;
 
@@ -64,8 +63,18 @@ public class CsvFileProducer extends AbstractEventPublisher {
         cancellationRequested.set(false);
     }
 
+    /**
+     * Start generating a slice of a table into a CSV file.
+     *
+     * @param table      the table
+     * @param slice      the slice of rows to generate
+     * @param path       the target file path
+     * @param startLatch latch to coordinate all producers initializing before any starts producing
+     * @return future with number of rows and time spent
+     */
     @Async
-    public CompletableFuture<Pair<Integer, Duration>> start(Table table, Path path, CountDownLatch startLatch) {
+    public CompletableFuture<Pair<Integer, Duration>> start(Table table, Slice slice, Path path,
+                                                            CountDownLatch startLatch) {
         if (cancellationRequested.get()) {
             logger.warn("Cancellation requested - skipping");
             return CompletableFuture.completedFuture(Pair.of(0, Duration.ofSeconds(0)));
@@ -82,10 +91,11 @@ public class CsvFileProducer extends AbstractEventPublisher {
         logger.info("Initializing '%s' for table '%s'"
                 .formatted(chunkProducerQualifier.description(), table.getName()));
 
-        final ChunkProducer<String, Object> chunkProducer = chunkProducerQualifier.get();
+        final ChunkProducer chunkProducer = chunkProducerQualifier.get();
         if (chunkProducer instanceof AsyncProducer producer) {
             // Allow all producers to initialize before any starts producing (via latch)
-            producer.initialize(dataSource, publisher, table);
+            producer.initialize(dataSource, expressionRegistry, publisher, table, slice,
+                    table.getFinalSeed(applicationModel.getSeed()));
         } else {
             throw new IllegalStateException("Expected async producer, got: "
                     + chunkProducer.getClass().getName());
@@ -105,20 +115,21 @@ public class CsvFileProducer extends AbstractEventPublisher {
             return CompletableFuture.failedFuture(e);
         }
 
-        try (CsvStreamWriter<Map<String, Object>> writer = createCsvStreamWriter(table, path)) {
-            Supplier<Integer> currentRow = chunkProducer.currentRow();
+        try (CsvStreamWriter writer = createCsvStreamWriter(table, path)) {
+            final AtomicInteger rowsWritten = new AtomicInteger();
 
-            chunkProducer.produceChunks((values, rowEstimate) -> {
+            chunkProducer.produceChunks((batch, rowEstimate) -> {
                 if (cancellationRequested.get()) {
                     logger.warn("Cancellation requested - aborting prematurely");
                     return false;
                 }
 
-                writer.write(Chunk.of(values));
+                writer.write(batch);
+                rowsWritten.addAndGet(batch.size());
 
                 if (rowEstimate > 0 && Duration.between(lastTick.get(), Instant.now()).getSeconds() > 1.0) {
                     publishEvent(new ProducerProgressEvent(table, path)
-                            .setPosition(currentRow.get())
+                            .setPosition(rowsWritten.get())
                             .setTotal(rowEstimate)
                             .setStartTime(startTime)
                             .setLabel(path.toString())
@@ -132,14 +143,14 @@ public class CsvFileProducer extends AbstractEventPublisher {
             writer.close();
 
             return CompletableFuture.completedFuture(
-                    Pair.of(currentRow.get(), Duration.between(startTime, Instant.now()))
+                    Pair.of(rowsWritten.get(), Duration.between(startTime, Instant.now()))
             );
         } catch (Exception e) {
             return CompletableFuture.failedFuture(e);
         }
     }
 
-    private CsvStreamWriter<Map<String, Object>> createCsvStreamWriter(Table table, Path path)
+    private CsvStreamWriter createCsvStreamWriter(Table table, Path path)
             throws IOException {
         String delimiter = table.getOptions()
                 .getOrDefault(ImportOption.delimiter, applicationModel.getOptions()
@@ -150,23 +161,25 @@ public class CsvFileProducer extends AbstractEventPublisher {
                         .getOrDefault(ImportOption.fields_enclosed_by, ""));
         quoteCharacter = quoteCharacter.replace("(empty)", "");
 
-        List<String> columnNames = table
-                .filterColumns(column -> column.isHidden() == null || !column.isHidden())
-                .stream()
-                .map(Column::getName)
-                .toList();
+        String escapeCharacter = table.getOptions()
+                .getOrDefault(ImportOption.fields_escaped_by, applicationModel.getOptions()
+                        .getOrDefault(ImportOption.fields_escaped_by, ""));
+        escapeCharacter = escapeCharacter.replace("(empty)", "");
 
-        CsvStreamWriter<Map<String, Object>> itemWriter = new CsvStreamWriterBuilder<Map<String, Object>>()
+        CsvStreamWriter itemWriter = new CsvStreamWriterBuilder()
                 .withDelimiter(delimiter)
                 .withQuoteCharacter(quoteCharacter)
-                .withColumnNames(columnNames)
+                .withEscapeCharacter(escapeCharacter)
+                .withColumnLayout(table.getColumnLayout())
                 .withIncludeHeader(true)
+                .withChannel(FileChannel.open(path,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE))
                 .build();
 
-        itemWriter.setWriter(new BufferedWriter(new FileWriter(path.toFile())));
-        itemWriter.open(new ExecutionContext());
+        itemWriter.open();
 
         return itemWriter;
     }
-
 }
@@ -1,8 +1,6 @@
 package io.cockroachdb.dl.core;
 
-import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.Objects;
 
 import io.cockroachdb.dl.core.model.Column;
@@ -14,9 +12,9 @@ import io.cockroachdb.dl.pubsub.Message;
 import io.cockroachdb.dl.pubsub.Topic;
 
 /**
- * A downstream producer consumes key-value pairs from an upstream producer
+ * A downstream producer consumes rows from an upstream producer
  * referenced by a singleton ref column. The consumption uses the bounded
- * blocking queue and each consumed pair can be multiplied, determined by
+ * blocking queue and each consumed row can be multiplied, determined by
  * the ref configuration.
  */
 public class DownstreamChunkProducer extends AsyncChunkProducer {
@@ -42,28 +40,33 @@ public class DownstreamChunkProducer extends AsyncChunkProducer {
     }
 
     @Override
-    public void produceChunks(ChunkConsumer<String, Object> consumer) throws Exception {
+    protected void doProduceChunks(ChunkConsumer consumer) throws Exception {
         final Each each = upstreamEachSingleton();
 
-        Topic<Map<String, Object>> topic = publisher.getTopic(table.getName());
+        Topic<Row> topic = publisher.getTopic(table.getName());
         if (!topic.hasMessageListeners()) {
             topic = new EmptyTopic<>();
         }
 
         final int rowEstimate = -1;
+        final int columnCount = columns.size();
+        final Row[] refRows = new Row[refSlotCount()];
+        final RowBatch batch = newBatch(topic);
 
         // Wait for upstream values or poison pill to cancel
-        Map<String, Object> upstreamTuples = boundedFifoQueue.take(each.getName());
-        while (!upstreamTuples.isEmpty()) {
+        Row upstreamRow = boundedFifoQueue.take(each.getName());
+        while (!upstreamRow.isEmpty()) {
             // Repeat if needed
             for (int n = 0; n < each.getMultiplier(); n++) {
-                final Map<String, Map<String, Object>> refMap = new HashMap<>();
-                final Map<String, Object> orderedTuples = new LinkedHashMap<>();
+                beginRow();
 
-                for (Column column : table.getColumns()) {
+                Row row = batch.nextRow();
+
+                for (int c = 0; c < columnCount; c++) {
+                    Column column = columns.get(c);
                     Object v;
                     if (each.equals(column.getEach())) {
-                        v = upstreamTuples.get(each.getColumn());
+                        v = upstreamValue(upstreamRow, c, each.getColumn());
                         if (Objects.isNull(v)) {
                             throw new ConfigurationException("Column each ref not found: %s"
                                     .formatted(each), table);
@@ -72,36 +75,37 @@ public class DownstreamChunkProducer extends AsyncChunkProducer {
                         Ref ref = column.getRef();
                         if (ref != null) {
                             if (ref.getName().equals(each.getName())) {
-                                v = upstreamTuples.get(ref.getColumn());
+                                v = upstreamValue(upstreamRow, c, ref.getColumn());
                                 if (Objects.isNull(v)) {
                                     throw new ConfigurationException("Column ref not found: %s"
                                             .formatted(ref), table);
                                 }
                             } else {
-                                v = consumeFrom(refMap, ref);
+                                v = consumeFrom(refRows, c);
                             }
                         } else {
-                            v = columnGenerators.get(column).nextValue();
+                            v = columnGenerators[c].nextValue();
                         }
                     }
-                    orderedTuples.put(column.getName(), v);
+                    row.set(c, v);
                 }
 
-                topic.publish(Message.of(orderedTuples));
+                Arrays.fill(refRows, null);
 
-                Map<String, Object> copy = filterIncludedValues(orderedTuples);
+                topic.publish(Message.of(row));
 
                 currentRow.incrementAndGet();
 
-                if (!consumer.consumeChunk(copy, rowEstimate)) {
+                if (batch.isFull() && !flush(consumer, batch, rowEstimate)) {
                     break;
                 }
             }
 
-            upstreamTuples = boundedFifoQueue.take(each.getName());
+            upstreamRow = boundedFifoQueue.take(each.getName());
         }
 
+        flush(consumer, batch, rowEstimate);
+
         topic.publish(Message.poisonPill());
     }
 }
-
@@ -0,0 +1,69 @@
+package io.cockroachdb.dl.core;
+
+import java.util.Arrays;
+import java.util.List;
+
+import io.cockroachdb.dl.core.model.ColumnLayout;
+
+/**
+ * A single generated row with values addressed by column ordinal, according
+ * to a precomputed column layout. Replaces insertion-ordered maps to avoid
+ * per-row map allocation and string key hashing.
+ */
+public final class Row {
+    private static final Row EMPTY = new Row(ColumnLayout.of(List.of(), column -> false));
+
+    /**
+     * @return an empty row used as end-of-stream marker
+     */
+    public static Row empty() {
+        return EMPTY;
+    }
+
+    private final ColumnLayout layout;
+
+    private final Object[] values;
+
+    public Row(ColumnLayout layout) {
+        this.layout = layout;
+        this.values = new Object[layout.size()];
+    }
+
+    public ColumnLayout getLayout() {
+        return layout;
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public Object get(int ordinal) {
+        return values[ordinal];
+    }
+
+    /**
+     * Resolve a value by column name. Prefer access by ordinal in hot paths.
+     *
+     * @param column the column name
+     * @return the value or null if not found
+     */
+    public Object get(String column) {
+        int ordinal = layout.indexOf(column);
+        return ordinal >= 0 ? values[ordinal] : null;
+    }
+
+    public void set(int ordinal, Object value) {
+        values[ordinal] = value;
+    }
+
+    @Override
+    public String toString() {
+        return "Row{" +
+                "values=" + Arrays.toString(values) +
+                '}';
+    }
+}
@@ -0,0 +1,72 @@
+package io.cockroachdb.dl.core;
+
+import io.cockroachdb.dl.core.model.ColumnLayout;
+
+/**
+ * A fixed-capacity batch of rows filled by a producer and handed to a
+ * consumer once full (or when the producer completes). Row instances are
+ * recycled between batches when reuse is enabled, which is only safe if
+ * no other party retains the rows (such as topic subscribers).
+ */
+public final class RowBatch {
+    private final ColumnLayout layout;
+
+    private final Row[] rows;
+
+    private final boolean reuseRows;
+
+    private int size;
+
+    public RowBatch(ColumnLayout layout, int capacity, boolean reuseRows) {
+        this.layout = layout;
+        this.rows = new Row[capacity];
+        this.reuseRows = reuseRows;
+    }
+
+    /**
+     * Claim the next row in this batch.
+     *
+     * @return a row to populate, either recycled or newly allocated
+     * @throws IllegalStateException if the batch is full
+     */
+    public Row nextRow() {
+        if (isFull()) {
+            throw new IllegalStateException("Batch is full");
+        }
+        Row row = rows[size];
+        if (row == null || !reuseRows) {
+            row = new Row(layout);
+            rows[size] = row;
+        }
+        size++;
+        return row;
+    }
+
+    public Row get(int index) {
+        return rows[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return rows.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == rows.length;
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    public ColumnLayout getLayout() {
+        return layout;
+    }
+}
@@ -0,0 +1,103 @@
+package io.cockroachdb.dl.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A contiguous range of rows in a table generated by a single producer
+ * instance. Tables are partitioned into slices for parallel generation,
+ * where each slice starts at a row offset used to keep row numbers and
+ * sequences aligned as if generated by one producer.
+ */
+public final class Slice {
+    /**
+     * @param rows total number of rows
+     * @return a single slice covering all rows
+     */
+    public static Slice whole(int rows) {
+        return new Slice(0, 1, 0, rows);
+    }
+
+    /**
+     * Partition a row range into a number of near-equal slices, where the
+     * remainder is spread over the first slices.
+     *
+     * @param rows       total number of rows
+     * @param partitions number of slices
+     * @return list of slices in row order
+     */
+    public static List<Slice> partition(int rows, int partitions) {
+        int n = Math.max(1, Math.min(partitions, Math.max(1, rows)));
+
+        List<Slice> slices = new ArrayList<>(n);
+
+        int quotient = rows / n;
+        int remainder = rows % n;
+        int offset = 0;
+
+        for (int i = 0; i < n; i++) {
+            int count = quotient + (i < remainder ? 1 : 0);
+            slices.add(new Slice(i, n, offset, count));
+            offset += count;
+        }
+
+        return slices;
+    }
+
+    private final int index;
+
+    private final int total;
+
+    private final int offset;
+
+    private final int rows;
+
+    private Slice(int index, int total, int offset, int rows) {
+        this.index = index;
+        this.total = total;
+        this.offset = offset;
+        this.rows = rows;
+    }
+
+    /**
+     * @return zero-based slice index
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return total number of slices in the table
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return zero-based offset of the first row in this slice
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return number of rows in this slice
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    public boolean isPartial() {
+        return total > 1;
+    }
+
+    @Override
+    public String toString() {
+        return "Slice{" +
+                "index=" + index +
+                ", total=" + total +
+                ", offset=" + offset +
+                ", rows=" + rows +
+                '}';
+    }
+}
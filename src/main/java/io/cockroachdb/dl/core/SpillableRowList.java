@@ -0,0 +1,408 @@
+package io.cockroachdb.dl.core;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.cockroachdb.dl.core.model.ColumnLayout;
+
+/**
+ * Append-only, random access list of rows projected to a subset of columns.
+ * Rows are kept as plain heap objects until their estimated size exceeds a
+ * memory budget, after which all rows are encoded in a compact binary form and
+ * spilled to a temporary file which is memory-mapped for reading once the list
+ * is sealed.
+ * <p>
+ * Spilled values are encoded with a type tag. Longs, integers, UUIDs, dates,
+ * decimals and strings are preserved, while other types are stored by their
+ * string representation.
+ * <p>
+ * Rows returned by {@link #get(int)} are the heap rows unless spilled, in which
+ * case they are decoded into a shared row instance, valid until the next call
+ * to get a different index. Not thread safe.
+ */
+public class SpillableRowList extends AbstractList<Row> implements RandomAccess, Closeable {
+    /**
+     * Mapped segment size, where no record crosses a segment boundary.
+     */
+    private static final int SEGMENT_SIZE = 1 << 30;
+
+    private static final byte TAG_NULL = 0;
+
+    private static final byte TAG_LONG = 1;
+
+    private static final byte TAG_INT = 2;
+
+    private static final byte TAG_STRING = 3;
+
+    private static final byte TAG_DECIMAL = 4;
+
+    private static final byte TAG_UUID = 5;
+
+    private static final byte TAG_DATE = 6;
+
+    private static final byte TAG_BOOLEAN = 7;
+
+    private static final byte TAG_DOUBLE = 8;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ColumnLayout layout;
+
+    private final long memoryBudget;
+
+    private final Path directory;
+
+    private final int[] upstreamOrdinals;
+
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+
+    private final DataOutputStream recordOutput = new DataOutputStream(record);
+
+    // Heap storage until spilled
+
+    private List<Row> memory = new ArrayList<>();
+
+    private long memoryUsed;
+
+    // File storage once spilled
+
+    private Path dataFile;
+
+    private Path offsetsFile;
+
+    private DataOutputStream dataOutput;
+
+    private DataOutputStream offsetsOutput;
+
+    // Read side once sealed
+
+    private ByteBuffer[] dataSegments;
+
+    private ByteBuffer[] offsetSegments;
+
+    private long position;
+
+    private int size;
+
+    private boolean sealed;
+
+    private final Row current;
+
+    private int currentIndex = -1;
+
+    /**
+     * @param layout       the projected column layout
+     * @param memoryBudget max estimated number of bytes to hold in heap before spilling
+     * @param directory    directory for temporary files
+     */
+    public SpillableRowList(ColumnLayout layout, long memoryBudget, Path directory) {
+        this.layout = layout;
+        this.memoryBudget = Math.min(memoryBudget, SEGMENT_SIZE);
+        this.directory = directory;
+        this.upstreamOrdinals = new int[layout.size()];
+        this.current = new Row(layout);
+        Arrays.fill(upstreamOrdinals, -1);
+    }
+
+    /**
+     * Append the projected columns of an upstream row.
+     *
+     * @param upstream the upstream row containing (at least) all projected columns
+     * @return true
+     */
+    @Override
+    public boolean add(Row upstream) {
+        if (sealed) {
+            throw new IllegalStateException("List is sealed");
+        }
+
+        Row row = new Row(layout);
+        for (int i = 0; i < upstreamOrdinals.length; i++) {
+            if (upstreamOrdinals[i] < 0) {
+                upstreamOrdinals[i] = upstream.getLayout().indexOf(layout.nameAt(i));
+            }
+            row.set(i, upstreamOrdinals[i] >= 0 ? upstream.get(upstreamOrdinals[i]) : null);
+        }
+
+        try {
+            if (dataOutput == null) {
+                memoryUsed += estimateSize(row);
+                if (memoryUsed <= memoryBudget) {
+                    memory.add(row);
+                    size++;
+                    return true;
+                }
+                spill();
+            }
+
+            write(row);
+            size++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return true;
+    }
+
+    /**
+     * Encode and append a row to the data file along with its offset.
+     */
+    private void write(Row row) throws IOException {
+        record.reset();
+        for (int i = 0; i < row.size(); i++) {
+            encode(row.get(i));
+        }
+
+        // Pad to next segment rather than crossing a segment boundary
+        long remaining = SEGMENT_SIZE - (position % SEGMENT_SIZE);
+        if (record.size() > remaining) {
+            byte[] padding = new byte[8192];
+            for (long n = remaining; n > 0; n -= padding.length) {
+                dataOutput.write(padding, 0, (int) Math.min(n, padding.length));
+            }
+            position += remaining;
+        }
+
+        offsetsOutput.writeLong(position);
+        record.writeTo(dataOutput);
+        position += record.size();
+    }
+
+    private void spill() throws IOException {
+        this.dataFile = Files.createTempFile(directory, "dl-", ".dat");
+        this.offsetsFile = Files.createTempFile(directory, "dl-", ".idx");
+
+        dataFile.toFile().deleteOnExit();
+        offsetsFile.toFile().deleteOnExit();
+
+        this.dataOutput = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(dataFile), 1 << 16));
+        this.offsetsOutput = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(offsetsFile), 1 << 16));
+
+        for (Row row : memory) {
+            write(row);
+        }
+
+        logger.debug("Spilled %,d rows (%,d bytes) to '%s' after exceeding memory budget of %,d bytes"
+                .formatted(size, position, dataFile, memoryBudget));
+
+        this.memory = null;
+    }
+
+    /**
+     * Rough estimate of the retained heap size of a row, including the row and
+     * value array headers and references, and the values themselves.
+     */
+    private static long estimateSize(Row row) {
+        long size = 32 + 16 + 8L * row.size();
+        for (int i = 0; i < row.size(); i++) {
+            Object value = row.get(i);
+            if (value == null || value instanceof Boolean) {
+                continue;
+            }
+            if (value instanceof String v) {
+                size += 56 + v.length() * 2L;
+            } else if (value instanceof BigDecimal v) {
+                size += 64 + v.precision() / 2;
+            } else if (value instanceof UUID || value instanceof LocalDate) {
+                size += 32;
+            } else {
+                size += 24;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Seal the list for reading, after which no more rows can be added.
+     */
+    public void seal() {
+        if (sealed) {
+            return;
+        }
+        sealed = true;
+
+        try {
+            if (dataOutput != null) {
+                dataOutput.close();
+                offsetsOutput.close();
+                dataSegments = map(dataFile);
+                offsetSegments = map(offsetsFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ByteBuffer[] map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            List<ByteBuffer> segments = new ArrayList<>();
+            for (long offset = 0; offset < length; offset += SEGMENT_SIZE) {
+                segments.add(channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        Math.min(SEGMENT_SIZE, length - offset)));
+            }
+            return segments.toArray(new ByteBuffer[0]);
+        }
+    }
+
+    public boolean isSpilled() {
+        return dataFile != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Row get(int index) {
+        if (!sealed) {
+            throw new IllegalStateException("List is not sealed");
+        }
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        if (memory != null) {
+            return memory.get(index);
+        }
+        if (index != currentIndex) {
+            decode(offsetOf(index));
+            currentIndex = index;
+        }
+        return current;
+    }
+
+    private long offsetOf(int index) {
+        long pos = (long) index * Long.BYTES;
+        return offsetSegments[(int) (pos / SEGMENT_SIZE)].getLong((int) (pos % SEGMENT_SIZE));
+    }
+
+    private void encode(Object value) throws IOException {
+        DataOutputStream out = recordOutput;
+
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof Long v) {
+            out.writeByte(TAG_LONG);
+            out.writeLong(v);
+        } else if (value instanceof Integer v) {
+            out.writeByte(TAG_INT);
+            out.writeInt(v);
+        } else if (value instanceof BigDecimal v) {
+            out.writeByte(TAG_DECIMAL);
+            writeString(out, v.toString());
+        } else if (value instanceof UUID v) {
+            out.writeByte(TAG_UUID);
+            out.writeLong(v.getMostSignificantBits());
+            out.writeLong(v.getLeastSignificantBits());
+        } else if (value instanceof LocalDate v) {
+            out.writeByte(TAG_DATE);
+            out.writeLong(v.toEpochDay());
+        } else if (value instanceof Boolean v) {
+            out.writeByte(TAG_BOOLEAN);
+            out.writeBoolean(v);
+        } else if (value instanceof Double v) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble(v);
+        } else {
+            out.writeByte(TAG_STRING);
+            writeString(out, value.toString());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private void decode(long offset) {
+        ByteBuffer segment = dataSegments[(int) (offset / SEGMENT_SIZE)];
+        int pos = (int) (offset % SEGMENT_SIZE);
+
+        for (int i = 0; i < upstreamOrdinals.length; i++) {
+            byte tag = segment.get(pos++);
+            Object value;
+            switch (tag) {
+                case TAG_NULL -> value = null;
+                case TAG_LONG -> {
+                    value = segment.getLong(pos);
+                    pos += Long.BYTES;
+                }
+                case TAG_INT -> {
+                    value = segment.getInt(pos);
+                    pos += Integer.BYTES;
+                }
+                case TAG_UUID -> {
+                    value = new UUID(segment.getLong(pos), segment.getLong(pos + Long.BYTES));
+                    pos += Long.BYTES * 2;
+                }
+                case TAG_DATE -> {
+                    value = LocalDate.ofEpochDay(segment.getLong(pos));
+                    pos += Long.BYTES;
+                }
+                case TAG_BOOLEAN -> value = segment.get(pos++) != 0;
+                case TAG_DOUBLE -> {
+                    value = segment.getDouble(pos);
+                    pos += Double.BYTES;
+                }
+                case TAG_DECIMAL, TAG_STRING -> {
+                    int len = segment.getInt(pos);
+                    byte[] bytes = new byte[len];
+                    segment.get(pos + Integer.BYTES, bytes);
+                    pos += Integer.BYTES + len;
+                    String s = new String(bytes, StandardCharsets.UTF_8);
+                    value = tag == TAG_DECIMAL ? new BigDecimal(s) : s;
+                }
+                default -> throw new IllegalStateException("Unknown tag: " + tag);
+            }
+            current.set(i, value);
+        }
+    }
+
+    /**
+     * Release storage and delete any temporary files.
+     */
+    @Override
+    public void close() {
+        try {
+            if (dataOutput != null && !sealed) {
+                dataOutput.close();
+                offsetsOutput.close();
+            }
+            if (dataFile != null) {
+                Files.deleteIfExists(dataFile);
+                Files.deleteIfExists(offsetsFile);
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to delete temporary files", e);
+        } finally {
+            memory = null;
+            dataSegments = null;
+            offsetSegments = null;
+        }
+    }
+}
@@ -1,11 +1,9 @@
 package io.cockroachdb.dl.core;
 
-import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.Arrays;
 
+import io.cockroachdb.dl.core.generator.ValueGenerator;
 import io.cockroachdb.dl.core.model.Column;
-import io.cockroachdb.dl.core.model.Ref;
 import io.cockroachdb.dl.core.model.Table;
 import io.cockroachdb.dl.pubsub.EmptyTopic;
 import io.cockroachdb.dl.pubsub.Message;
@@ -21,34 +19,42 @@ public class UpstreamChunkProducer extends AsyncChunkProducer {
     }
 
     @Override
-    public void produceChunks(ChunkConsumer<String, Object> consumer) throws Exception {
-        Topic<Map<String, Object>> topic = publisher.getTopic(table.getName());
+    protected void doProduceChunks(ChunkConsumer consumer) throws Exception {
+        Topic<Row> topic = publisher.getTopic(table.getName());
 
         if (!topic.hasMessageListeners()) {
             topic = new EmptyTopic<>();
         }
 
-        for (int i = 0; i < table.getFinalCount(); i++) {
-            Map<String, Map<String, Object>> refMap = new HashMap<>();
-            Map<String, Object> orderedTuples = new LinkedHashMap<>();
+        final int columnCount = columns.size();
+        final Row[] refRows = new Row[refSlotCount()];
+        final RowBatch batch = newBatch(topic);
 
-            for (Column col : table.getColumns()) {
-                Ref ref = col.getRef();
-                Object v = ref != null ? consumeFrom(refMap, ref) : columnGenerators.get(col).nextValue();
-                orderedTuples.put(col.getName(), v);
+        final int rowEstimate = slice.getRows();
+
+        for (int i = 0; i < rowEstimate; i++) {
+            beginRow();
+
+            Row row = batch.nextRow();
+
+            for (int c = 0; c < columnCount; c++) {
+                ValueGenerator<?> generator = columnGenerators[c];
+                row.set(c, generator != null ? generator.nextValue() : consumeFrom(refRows, c));
             }
 
-            topic.publish(Message.of(orderedTuples));
+            Arrays.fill(refRows, null);
 
-            Map<String, Object> copy = filterIncludedValues(orderedTuples);
+            topic.publish(Message.of(row));
 
             currentRow.incrementAndGet();
 
-            if (!consumer.consumeChunk(copy, table.getFinalCount())) {
+            if (batch.isFull() && !flush(consumer, batch, rowEstimate)) {
                 break;
             }
         }
 
+        flush(consumer, batch, rowEstimate);
+
         topic.publish(Message.poisonPill());
     }
 }
@@ -1,28 +1,26 @@
 package io.cockroachdb.dl.core.generator;
 
 import io.cockroachdb.dl.core.model.Column;
+import io.cockroachdb.dl.expression.CompiledExpression;
 import io.cockroachdb.dl.expression.ExpressionRegistry;
 import io.cockroachdb.dl.expression.Expression;
 import org.springframework.util.StringUtils;
 
 public class ExpressionGenerator implements ValueGenerator<Object> {
-    private final Column column;
-
-    private final ExpressionRegistry registry;
+    private final CompiledExpression expression;
 
     public ExpressionGenerator(Column column, ExpressionRegistry registry) {
-        this.column = column;
-        this.registry = registry;
+        String expression = column.getExpression();
+        if (!StringUtils.hasLength(expression)) {
+            throw new IllegalStateException("Undefined column value generator for: "
+                    + column.getName());
+        }
+        // Parse and compile to bytecode once up front and only evaluate per row
+        this.expression = Expression.compileToBytecode(expression, registry);
     }
 
     @Override
     public Object nextValue() {
-        String expression = column.getExpression();
-        if (StringUtils.hasLength(expression)) {
-            return Expression.evaluate(expression, Object.class, registry);
-        }
-        throw new IllegalStateException("Undefined column value generator for: "
-                + column.getName());
+        return expression.evaluate();
     }
-
 }
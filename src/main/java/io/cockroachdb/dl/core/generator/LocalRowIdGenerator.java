@@ -0,0 +1,97 @@
+package io.cockroachdb.dl.core.generator;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates unique row IDs locally, using the same layout as CockroachDB's
+ * {@code unique_rowid()} and {@code unordered_unique_rowid()} functions:
+ * <pre>
+ * ordered:   [0][48 bits timestamp][15 bits node id]
+ * unordered: [0][48 bits bit-reversed timestamp][15 bits node id]
+ * </pre>
+ * The timestamp is the number of 10 microsecond intervals since 2015-01-01.
+ * Each thread acts as a separate node with its own node id and last timestamp,
+ * so generating IDs is lock-free. IDs are unique as long as there are less
+ * than 32K threads generating IDs concurrently. A thread generating more than
+ * one ID per 10 microseconds moves its timestamp ahead of the clock, same as
+ * the database does.
+ */
+public class LocalRowIdGenerator implements ValueGenerator<Long> {
+    public static final int NODE_ID_BITS = 15;
+
+    public static final long NODE_ID_MASK = (1L << NODE_ID_BITS) - 1;
+
+    /**
+     * 2015-01-01 in 10 microsecond intervals since the Unix epoch.
+     */
+    public static final long EPOCH = 1420070400_000_000L / 10;
+
+    /**
+     * Offset from nano time to wall clock time in nanoseconds, to avoid
+     * allocating instants for microsecond precision.
+     */
+    private static final long NANO_OFFSET
+            = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - System.nanoTime();
+
+    /**
+     * Start at a random node id to reduce the odds of clashing with IDs
+     * generated by the database or other processes at the same instant.
+     */
+    private static final AtomicInteger nodeIds
+            = new AtomicInteger(ThreadLocalRandom.current().nextInt(1 << NODE_ID_BITS));
+
+    private static final class NodeState {
+        final long nodeId = nodeIds.getAndIncrement() & NODE_ID_MASK;
+
+        long lastTimestamp;
+    }
+
+    private static final ThreadLocal<NodeState> nodeState = ThreadLocal.withInitial(NodeState::new);
+
+    /**
+     * @return a new ID in the layout of {@code unique_rowid()}
+     */
+    public static long nextOrdered() {
+        NodeState state = nodeState.get();
+
+        long timestamp = (System.nanoTime() + NANO_OFFSET) / 10_000 - EPOCH;
+        if (timestamp <= state.lastTimestamp) {
+            timestamp = state.lastTimestamp + 1;
+        }
+        state.lastTimestamp = timestamp;
+
+        return (timestamp << NODE_ID_BITS) ^ state.nodeId;
+    }
+
+    /**
+     * @return a new ID in the layout of {@code unordered_unique_rowid()}
+     */
+    public static long nextUnordered() {
+        return toUnordered(nextOrdered());
+    }
+
+    /**
+     * Map an ordered ID to an unordered one by reversing the timestamp bits,
+     * which spreads sequential IDs across the key space.
+     *
+     * @param id the ordered ID
+     * @return the unordered ID
+     */
+    public static long toUnordered(long id) {
+        long timestamp = (id & (-1L >>> 16 << NODE_ID_BITS)) >>> NODE_ID_BITS;
+        return (Long.reverse(timestamp) >>> 1) | (id & NODE_ID_MASK);
+    }
+
+    private final boolean ordered;
+
+    public LocalRowIdGenerator(boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    @Override
+    public Long nextValue() {
+        return ordered ? nextOrdered() : nextUnordered();
+    }
+}
@@ -0,0 +1,158 @@
+package io.cockroachdb.dl.core.generator;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+/**
+ * Base class for generators of long values fetched in blocks from the database,
+ * such as unique row IDs or sequence values. Blocks are double buffered in primitive
+ * arrays where the next block is fetched in the background once the current block
+ * drops below a low-water mark of half its size, so that the producer thread only
+ * blocks on a database round-trip for the very first block or if it consumes values
+ * faster than they can be fetched. In the latter case the block size is doubled,
+ * up to a max of 64K values.
+ * <p>
+ * Not thread safe.
+ */
+public abstract class PrefetchingGenerator implements ValueGenerator<Long> {
+    public static final int MAX_BLOCK_SIZE = 65536;
+
+    private static final AtomicInteger threadNumber = new AtomicInteger();
+
+    /**
+     * Shared pool for blocking fetches, since the common fork-join pool
+     * is not meant for blocking IO.
+     */
+    private static final ExecutorService prefetchExecutor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "prefetch-" + threadNumber.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * A block of fetched values.
+     */
+    protected record Block(long[] values, int size) {
+    }
+
+    private int blockSize;
+
+    private long[] current = new long[0];
+
+    private int position;
+
+    private int limit;
+
+    private long[] spare;
+
+    private CompletableFuture<Block> next;
+
+    protected PrefetchingGenerator(Integer blockSize) {
+        this.blockSize = Math.min(MAX_BLOCK_SIZE, Math.max(1, blockSize != null ? blockSize : 512));
+    }
+
+    @Override
+    public Long nextValue() {
+        if (position == limit) {
+            swap();
+        }
+
+        long value = current[position++];
+
+        if (next == null && limit - position <= limit >> 1) {
+            prefetch();
+        }
+
+        return value;
+    }
+
+    /**
+     * @return the current block size, which starts with the configured batch size
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Fetch a block of values.
+     *
+     * @param target array to fill with values if large enough, otherwise allocate a new one
+     * @param size   number of values to fetch
+     * @return the block of values, never empty
+     * @throws SQLException on any SQL errors
+     */
+    protected abstract Block fetch(long[] target, int size) throws SQLException;
+
+    /**
+     * Fetch a block of values using a query returning a single long column.
+     */
+    protected static Block fetch(DataSource dataSource, String query, long[] target, int size)
+            throws SQLException {
+        long[] values = target != null && target.length >= size ? target : new long[size];
+        int n = 0;
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setFetchSize(size);
+            try (ResultSet res = ps.executeQuery()) {
+                while (res.next() && n < values.length) {
+                    values[n++] = res.getLong(1);
+                }
+            }
+        }
+
+        if (n == 0) {
+            throw new IllegalStateException("Expected " + size + " rows got 0");
+        }
+
+        return new Block(values, n);
+    }
+
+    private void prefetch() {
+        final long[] target = spare;
+        final int size = blockSize;
+        this.spare = null;
+        this.next = CompletableFuture.supplyAsync(() -> {
+            try {
+                return fetch(target, size);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }, prefetchExecutor);
+    }
+
+    private void swap() {
+        if (next == null) {
+            prefetch();
+        } else if (!next.isDone() && limit > 0) {
+            // Stalled on a round-trip, so fetch larger blocks ahead
+            blockSize = Math.min(MAX_BLOCK_SIZE, blockSize << 1);
+        }
+
+        Block block;
+        try {
+            block = next.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            next = null;
+        }
+
+        this.spare = current;
+        this.current = block.values();
+        this.position = 0;
+        this.limit = block.size();
+    }
+}
@@ -4,45 +4,22 @@ import io.cockroachdb.dl.core.model.Gen;
 import io.cockroachdb.dl.core.model.IdentityType;
 
 import javax.sql.DataSource;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Deque;
-import java.util.LinkedList;
 
-public class RowIdGenerator implements ValueGenerator<Long> {
+public class RowIdGenerator extends PrefetchingGenerator {
     private final DataSource dataSource;
 
     private final String function;
 
-    private final int batchSize;
-
-    private final Deque<Long> uniqueRowIdBuffer = new LinkedList<>();
-
     public RowIdGenerator(DataSource dataSource, Gen gen) {
+        super(gen.getBatchSize());
         this.dataSource = dataSource;
         this.function = gen.getType().equals(IdentityType.ordered)
                 ? "unique_rowid()" : "unordered_unique_rowid()";
-        this.batchSize = gen.getBatchSize();
     }
 
     @Override
-    public Long nextValue() {
-        if (uniqueRowIdBuffer.isEmpty()) {
-            try (Connection conn = dataSource.getConnection();
-                 PreparedStatement ps = conn.prepareStatement(
-                         "select " + function + " from generate_series(1, " + batchSize + ")")) {
-                ps.setFetchSize(batchSize);
-                try (ResultSet res = ps.executeQuery()) {
-                    while (res.next()) {
-                        uniqueRowIdBuffer.add(res.getLong(1));
-                    }
-                }
-            } catch (SQLException e) {
-                throw new IllegalStateException(e);
-            }
-        }
-        return uniqueRowIdBuffer.pop();
+    protected Block fetch(long[] target, int size) throws SQLException {
+        return fetch(dataSource, "select " + function + " from generate_series(1, " + size + ")", target, size);
     }
 }
@@ -16,6 +16,17 @@ public class SequenceGenerator implements ValueGenerator<Long> {
     private final int increment;
 
     public SequenceGenerator(Gen gen) {
+        this(gen, 0);
+    }
+
+    /**
+     * Create a sequence generator positioned at a given row offset, as if
+     * that many values had already been generated.
+     *
+     * @param gen       the generator settings
+     * @param rowOffset the zero-based row offset
+     */
+    public SequenceGenerator(Gen gen, long rowOffset) {
         this.increment = Math.max(1, gen.getStep());
 
         if (StringUtils.hasLength(gen.getFrom())) {
@@ -30,7 +41,12 @@ public class SequenceGenerator implements ValueGenerator<Long> {
             this.stopNumber = Long.MAX_VALUE;
         }
 
-        this.nextNumber.set(startNumber);
+        if (stopNumber == Long.MAX_VALUE) {
+            this.nextNumber.set(startNumber + rowOffset * increment);
+        } else {
+            long values = (stopNumber - startNumber) / increment + 1;
+            this.nextNumber.set(startNumber + (rowOffset % values) * increment);
+        }
     }
 
     @Override
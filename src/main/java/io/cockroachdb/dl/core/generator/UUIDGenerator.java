@@ -2,9 +2,11 @@ package io.cockroachdb.dl.core.generator;
 
 import java.util.UUID;
 
+import io.cockroachdb.dl.util.RandomSource;
+
 public class UUIDGenerator implements ValueGenerator<UUID> {
     @Override
     public UUID nextValue() {
-        return UUID.randomUUID();
+        return RandomSource.randomUUID();
     }
 }
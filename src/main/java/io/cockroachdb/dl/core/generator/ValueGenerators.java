@@ -12,7 +12,7 @@ import io.cockroachdb.dl.core.model.Gen;
 import io.cockroachdb.dl.core.model.Range;
 import io.cockroachdb.dl.core.model.ValueSet;
 import io.cockroachdb.dl.expression.ExpressionRegistry;
-import io.cockroachdb.dl.util.RandomData;
+import io.cockroachdb.dl.util.RandomSampler;
 
 public abstract class ValueGenerators {
     private ValueGenerators() {
@@ -21,13 +21,29 @@ public abstract class ValueGenerators {
     public static ValueGenerator<?> createValueGenerator(Column column,
                                                          DataSource dataSource,
                                                          ExpressionRegistry expressionRegistry) {
+        return createValueGenerator(column, dataSource, expressionRegistry, 0);
+    }
+
+    /**
+     * Create a column value generator for a table slice starting at a given row offset.
+     *
+     * @param column             the column
+     * @param dataSource         the data source
+     * @param expressionRegistry the expression registry
+     * @param rowOffset          zero-based offset of the first row generated
+     * @return the value generator
+     */
+    public static ValueGenerator<?> createValueGenerator(Column column,
+                                                         DataSource dataSource,
+                                                         ExpressionRegistry expressionRegistry,
+                                                         long rowOffset) {
         if (column.getRange() != null) {
             return ValueGenerators.createRangeGenerator(column.getRange());
         }
 
         Gen gen = column.getGen();
         if (gen != null) {
-            return ValueGenerators.createIdGenerator(gen, dataSource);
+            return ValueGenerators.createIdGenerator(gen, dataSource, rowOffset);
         }
 
         String constant = column.getConstant();
@@ -41,7 +57,11 @@ public abstract class ValueGenerators {
 
         ValueSet<?> set = column.getSet();
         if (set != null) {
-            return ValueGenerators.createValueSetGenerator(set);
+            try {
+                return ValueGenerators.createValueSetGenerator(set);
+            } catch (IllegalArgumentException e) {
+                throw new ConfigurationException(e.getMessage(), column);
+            }
         }
 
         throw new ConfigurationException("No column value generator found", column);
@@ -57,11 +77,17 @@ public abstract class ValueGenerators {
     }
 
     public static ValueGenerator<?> createIdGenerator(Gen gen, DataSource dataSource) {
+        return createIdGenerator(gen, dataSource, 0);
+    }
+
+    public static ValueGenerator<?> createIdGenerator(Gen gen, DataSource dataSource, long rowOffset) {
         return switch (gen.getType()) {
             case uuid -> new UUIDGenerator();
-            case sequence -> new SequenceGenerator(gen);
+            case sequence -> new SequenceGenerator(gen, rowOffset);
             case database_sequence -> new DatabaseSequenceGenerator(dataSource, gen);
             case ordered, unordered -> new RowIdGenerator(dataSource, gen);
+            case local_ordered -> new LocalRowIdGenerator(true);
+            case local_unordered -> new LocalRowIdGenerator(false);
         };
     }
 
@@ -74,11 +100,7 @@ public abstract class ValueGenerators {
     }
 
     public static ValueGenerator<?> createValueSetGenerator(ValueSet<?> valueSet) {
-        return () -> {
-            if (valueSet.getWeights().isEmpty()) {
-                return RandomData.selectRandom(valueSet.getValues());
-            }
-            return RandomData.selectRandomWeighted(valueSet.getValues(), valueSet.getWeights());
-        };
+        RandomSampler<?> sampler = RandomSampler.weighted(valueSet.getValues(), valueSet.getWeights());
+        return sampler::next;
     }
 }
@@ -22,6 +22,16 @@ public class ApplicationModel {
 
     private Map<ImportOption, String> options = new LinkedHashMap<>();
 
+    private Long seed;
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
     public Map<ImportOption, String> getOptions() {
         return options;
     }
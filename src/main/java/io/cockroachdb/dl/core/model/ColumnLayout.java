@@ -0,0 +1,98 @@
+package io.cockroachdb.dl.core.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Precomputed, immutable ordinal layout of a table's columns. Rows are
+ * addressed by column ordinal rather than by name, and the layout tracks
+ * which ordinals are included in the output (non-hidden columns).
+ */
+public class ColumnLayout {
+    public static ColumnLayout of(List<Column> columns, Predicate<Column> include) {
+        return new ColumnLayout(columns, include);
+    }
+
+    /**
+     * @param names the column names, all included
+     * @return a layout for the given column names
+     */
+    public static ColumnLayout ofNames(List<String> names) {
+        List<Column> columns = new ArrayList<>(names.size());
+        names.forEach(name -> {
+            Column column = new Column();
+            column.setName(name);
+            columns.add(column);
+        });
+        return new ColumnLayout(columns, column -> true);
+    }
+
+    private final String[] names;
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+
+    private final int[] included;
+
+    private ColumnLayout(List<Column> columns, Predicate<Column> include) {
+        this.names = new String[columns.size()];
+
+        List<Integer> includedOrdinals = new ArrayList<>();
+
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            names[i] = column.getName();
+            ordinals.putIfAbsent(column.getName(), i);
+            if (include.test(column)) {
+                includedOrdinals.add(i);
+            }
+        }
+
+        this.included = includedOrdinals.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return total number of columns
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @param name the column name
+     * @return column ordinal or -1 if not found
+     */
+    public int indexOf(String name) {
+        Integer ordinal = ordinals.get(name);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public String nameAt(int ordinal) {
+        return names[ordinal];
+    }
+
+    /**
+     * @return number of columns included in the output
+     */
+    public int includedSize() {
+        return included.length;
+    }
+
+    /**
+     * @param i position among the included columns
+     * @return column ordinal of the n:th included column
+     */
+    public int includedAt(int i) {
+        return included[i];
+    }
+
+    public List<String> includedNames() {
+        List<String> list = new ArrayList<>(included.length);
+        for (int ordinal : included) {
+            list.add(names[ordinal]);
+        }
+        return list;
+    }
+}
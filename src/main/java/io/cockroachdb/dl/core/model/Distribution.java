@@ -0,0 +1,8 @@
+package io.cockroachdb.dl.core.model;
+
+public enum Distribution {
+    uniform,
+    zipf,
+    latest,
+    hotspot
+}
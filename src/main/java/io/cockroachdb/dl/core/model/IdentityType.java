@@ -5,5 +5,7 @@ public enum IdentityType {
     database_sequence,
     ordered,
     unordered,
+    local_ordered,
+    local_unordered,
     uuid
 }
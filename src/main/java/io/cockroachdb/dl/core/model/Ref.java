@@ -14,6 +14,14 @@ public class Ref {
     @NotNull
     private String column;
 
+    private Distribution distribution;
+
+    private Double skew;
+
+    private Double hotFraction;
+
+    private Double hotProbability;
+
     public String getName() {
         return name;
     }
@@ -30,6 +38,38 @@ public class Ref {
         this.column = column;
     }
 
+    public Distribution getDistribution() {
+        return distribution;
+    }
+
+    public void setDistribution(Distribution distribution) {
+        this.distribution = distribution;
+    }
+
+    public Double getSkew() {
+        return skew;
+    }
+
+    public void setSkew(Double skew) {
+        this.skew = skew;
+    }
+
+    public Double getHotFraction() {
+        return hotFraction;
+    }
+
+    public void setHotFraction(Double hotFraction) {
+        this.hotFraction = hotFraction;
+    }
+
+    public Double getHotProbability() {
+        return hotProbability;
+    }
+
+    public void setHotProbability(Double hotProbability) {
+        this.hotProbability = hotProbability;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -52,6 +92,10 @@ public class Ref {
         return "Ref{" +
                 "column='" + column + '\'' +
                 ", name='" + name + '\'' +
+                ", distribution=" + distribution +
+                ", skew=" + skew +
+                ", hotFraction=" + hotFraction +
+                ", hotProbability=" + hotProbability +
                 '}';
     }
 }
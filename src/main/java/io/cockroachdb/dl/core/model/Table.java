@@ -13,6 +13,8 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import io.cockroachdb.dl.util.Multiplier;
+import io.cockroachdb.dl.util.SplitMixRandom;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
@@ -22,12 +24,31 @@ public class Table {
 
     public static final Predicate<Column> WITH_EACH = column -> column.getEach() != null;
 
+    public static final Predicate<Column> WITH_VISIBLE = column -> column.isHidden() == null || !column.isHidden();
+
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    public static final int MAX_BATCH_SIZE = 65_536;
+
+    public static final long DEFAULT_MEMORY_BUDGET = 256 * 1024 * 1024;
+
     @NotNull
     private String name;
 
     @Pattern(regexp = "^[+-]?([0-9]+\\.?[0-9]*|\\.[0-9]+)\\s?([kKmMgG]+)?")
     private String count;
 
+    @Pattern(regexp = "^[+-]?([0-9]+)\\s?([kK]+)?")
+    private String batchSize;
+
+    @Min(1)
+    private Integer partitions;
+
+    @Pattern(regexp = "^[+-]?([0-9]+)\\s?([kKmMgG]+)?")
+    private String memoryBudget;
+
+    private Long seed;
+
     @NotEmpty
     private List<Column> columns = new ArrayList<>();
 
@@ -63,6 +84,77 @@ public class Table {
         this.count = count;
     }
 
+    public String getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return number of rows per batch handed from producer to consumer, capped
+     * to {@link #MAX_BATCH_SIZE}
+     */
+    @JsonIgnore
+    public int getFinalBatchSize() {
+        int size = batchSize != null ? Multiplier.parseInt(batchSize) : DEFAULT_BATCH_SIZE;
+        return Math.max(1, Math.min(size, MAX_BATCH_SIZE));
+    }
+
+    public void setBatchSize(String batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Integer getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * @return number of slices to split the table rows into for parallel generation
+     */
+    @JsonIgnore
+    public int getFinalPartitions() {
+        return partitions != null ? Math.max(1, partitions) : 1;
+    }
+
+    public void setPartitions(Integer partitions) {
+        this.partitions = partitions;
+    }
+
+    public String getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * @return number of bytes of upstream rows to buffer in memory before spilling to disk
+     */
+    @JsonIgnore
+    public long getFinalMemoryBudget() {
+        return memoryBudget != null ? Multiplier.parseLong(memoryBudget) : DEFAULT_MEMORY_BUDGET;
+    }
+
+    public void setMemoryBudget(String memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @param defaultSeed the model level seed, or null if not set
+     * @return the random seed for the table, derived from the model seed unless
+     * set explicitly, or null if the table is not seeded
+     */
+    @JsonIgnore
+    public Long getFinalSeed(Long defaultSeed) {
+        if (seed != null) {
+            return seed;
+        }
+        return defaultSeed != null ? SplitMixRandom.deriveSeed(defaultSeed, name) : null;
+    }
+
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
     public List<Column> getColumns() {
         return Collections.unmodifiableList(columns);
     }
@@ -71,6 +163,14 @@ public class Table {
         this.columns = columns;
     }
 
+    /**
+     * @return a new ordinal column layout with visible columns included
+     */
+    @JsonIgnore
+    public ColumnLayout getColumnLayout() {
+        return ColumnLayout.of(columns, WITH_VISIBLE);
+    }
+
     public List<Column> filterColumns(Predicate<Column> filter) {
         return columns.stream().filter(filter).toList();
     }
@@ -2,130 +2,321 @@ package io.cockroachdb.dl.core.stream;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.UUID;
 
-import org.springframework.batch.item.Chunk;
-import org.springframework.batch.item.ExecutionContext;
-import org.springframework.batch.item.ItemStream;
-import org.springframework.batch.item.ItemStreamException;
-import org.springframework.batch.item.WriteFailedException;
-import org.springframework.batch.item.file.FlatFileFooterCallback;
-import org.springframework.batch.item.file.FlatFileHeaderCallback;
-import org.springframework.batch.item.file.transform.LineAggregator;
-import org.springframework.batch.item.support.AbstractItemStreamItemWriter;
-import org.springframework.beans.factory.InitializingBean;
-import org.springframework.util.Assert;
-import org.springframework.util.ClassUtils;
+import io.cockroachdb.dl.core.Row;
+import io.cockroachdb.dl.core.RowBatch;
+import io.cockroachdb.dl.core.model.ColumnLayout;
 
-public class CsvStreamWriter<T> extends AbstractItemStreamItemWriter<T>
-        implements InitializingBean, Closeable {
-    public static final String DEFAULT_LINE_SEPARATOR = System.lineSeparator();
+/**
+ * CSV writer encoding typed row values straight into a reusable UTF-8 byte buffer
+ * which is drained to a byte channel when full. Integral numbers, UUIDs and dates
+ * are encoded without intermediate strings and strings are encoded char by char
+ * while escaping enclosing quotes. Leading ASCII runs of strings are copied straight
+ * into the backing array of the buffer.
+ * <p>
+ * When a quote character is set, all fields are enclosed by it and quote characters
+ * in string values are preceded by the escape character, or doubled if no escape
+ * character is set. Null values are written as empty fields.
+ * <p>
+ * Not thread safe.
+ */
+public class CsvStreamWriter implements Closeable {
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
 
-    private String lineSeparator = DEFAULT_LINE_SEPARATOR;
+    /**
+     * Max number of bytes for any fixed size value, such as a long or UUID.
+     */
+    private static final int MAX_FIXED_SIZE = 64;
 
-    private LineAggregator<T> lineAggregator;
+    private final WritableByteChannel channel;
 
-    private FlatFileHeaderCallback headerCallback;
+    private final ColumnLayout layout;
 
-    private FlatFileFooterCallback footerCallback;
+    private final ByteBuffer buffer;
 
-    private Writer writer;
+    private final byte[] delimiter;
 
-    public CsvStreamWriter() {
-        this.setExecutionContextName(ClassUtils.getShortName(CsvStreamWriter.class));
-    }
+    private final byte[] quote;
 
-    public void setLineAggregator(LineAggregator<T> lineAggregator) {
-        this.lineAggregator = lineAggregator;
-    }
+    private final byte[] escape;
 
-    public void setLineSeparator(String lineSeparator) {
-        this.lineSeparator = lineSeparator;
-    }
+    private final byte[] lineSeparator;
 
-    public void setWriter(Writer writer) {
-        this.writer = writer;
-    }
+    private final char quoteChar;
 
-    public void setHeaderCallback(FlatFileHeaderCallback headerCallback) {
-        this.headerCallback = headerCallback;
-    }
+    private final char escapeChar;
 
-    public void setFooterCallback(FlatFileFooterCallback footerCallback) {
-        this.footerCallback = footerCallback;
-    }
+    private final boolean includeHeader;
 
-    @Override
-    public void afterPropertiesSet() {
-        Assert.notNull(lineAggregator, "A LineAggregator must be provided.");
+    private final byte[] scratch = new byte[20];
+
+    CsvStreamWriter(WritableByteChannel channel,
+                    ColumnLayout layout,
+                    String delimiter,
+                    String quote,
+                    String escape,
+                    String lineSeparator,
+                    int bufferSize,
+                    boolean includeHeader) {
+        this.channel = channel;
+        this.layout = layout;
+        this.buffer = ByteBuffer.allocate(Math.max(bufferSize, MAX_FIXED_SIZE * 64));
+        this.delimiter = delimiter.getBytes(StandardCharsets.UTF_8);
+        this.quote = quote.getBytes(StandardCharsets.UTF_8);
+        this.escape = escape.getBytes(StandardCharsets.UTF_8);
+        this.lineSeparator = lineSeparator.getBytes(StandardCharsets.UTF_8);
+        this.quoteChar = quote.length() == 1 ? quote.charAt(0) : 0;
+        this.escapeChar = escape.length() == 1 ? escape.charAt(0) : 0;
+        this.includeHeader = includeHeader;
     }
 
     /**
-     * Writes out a string followed by a "new line", where the format of the new
-     * line separator is determined by the underlying operating system.
+     * Open the stream for writing, which writes the header if enabled.
      *
-     * @param chunk list of items to be written to output stream
-     * @throws WriteFailedException if an error occurs while writing items to the output stream
+     * @throws IOException on IO errors
      */
-    @Override
-    public void write(Chunk<? extends T> chunk) throws Exception {
-        String lines = doWrite(chunk);
-        try {
-            writer.write(lines);
-            writer.flush();
-        } catch (IOException e) {
-            throw new WriteFailedException("Could not write data. The stream may be corrupt.", e);
+    public void open() throws IOException {
+        if (includeHeader) {
+            for (int i = 0; i < layout.includedSize(); i++) {
+                if (i > 0) {
+                    putBytes(delimiter);
+                }
+                putChars(layout.nameAt(layout.includedAt(i)), false);
+            }
+            putBytes(lineSeparator);
+        }
+    }
+
+    public void write(RowBatch batch) throws IOException {
+        for (int i = 0; i < batch.size(); i++) {
+            write(batch.get(i));
+        }
+    }
+
+    public void write(Row row) throws IOException {
+        final int n = layout.includedSize();
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                putBytes(delimiter);
+            }
+            putBytes(quote);
+            putValue(row.get(layout.includedAt(i)));
+            putBytes(quote);
         }
+        putBytes(lineSeparator);
     }
 
     /**
-     * Write out a string of items followed by a "new line", where the format of the new
-     * line separator is determined by the underlying operating system.
+     * Drain all buffered bytes to the underlying channel.
      *
-     * @param chunk to be written
-     * @return written lines
+     * @throws IOException on IO errors
      */
-    protected String doWrite(Chunk<? extends T> chunk) {
-        StringBuilder lines = new StringBuilder();
-        for (T item : chunk) {
-            lines.append(this.lineAggregator.aggregate(item))
-                    .append(this.lineSeparator);
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
         }
-        return lines.toString();
+        buffer.clear();
     }
 
     /**
-     * @see ItemStream#open(ExecutionContext)
+     * Flush and close the underlying channel.
+     *
+     * @throws IOException on IO errors
      */
-    @SuppressWarnings("removal")
     @Override
-    public void open(ExecutionContext executionContext) {
-        super.open(executionContext);
-
-        if (headerCallback != null) {
-            try {
-                headerCallback.writeHeader(writer);
-                writer.write(lineSeparator);
-            } catch (IOException e) {
-                throw new ItemStreamException("Could not write headers.  The file may be corrupt.", e);
-            }
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void ensureRemaining(int size) throws IOException {
+        if (buffer.remaining() < size) {
+            flush();
+        }
+    }
+
+    private void putBytes(byte[] bytes) throws IOException {
+        if (bytes.length > 0) {
+            ensureRemaining(bytes.length);
+            buffer.put(bytes);
         }
     }
 
+    private void putValue(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+
+        if (value instanceof String s) {
+            putChars(s, true);
+        } else if (value instanceof Long || value instanceof Integer
+                   || value instanceof Short || value instanceof Byte) {
+            putLong(((Number) value).longValue());
+        } else if (value instanceof BigDecimal bd) {
+            putAscii(bd.toString());
+        } else if (value instanceof UUID uuid) {
+            putUUID(uuid);
+        } else if (value instanceof LocalDate date) {
+            putDate(date);
+        } else if (value instanceof Number || value instanceof Boolean) {
+            putAscii(value.toString());
+        } else {
+            putChars(value.toString(), true);
+        }
+    }
+
+    private void putLong(long v) throws IOException {
+        if (v == Long.MIN_VALUE) {
+            putAscii(Long.toString(v));
+            return;
+        }
+
+        ensureRemaining(MAX_FIXED_SIZE);
+
+        if (v < 0) {
+            buffer.put((byte) '-');
+            v = -v;
+        }
+
+        int pos = scratch.length;
+        do {
+            scratch[--pos] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+
+        buffer.put(scratch, pos, scratch.length - pos);
+    }
+
+    private void putDigits(int v, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            scratch[i] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
+        buffer.put(scratch, 0, digits);
+    }
+
+    private void putDate(LocalDate date) throws IOException {
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            putAscii(date.toString());
+            return;
+        }
+
+        ensureRemaining(MAX_FIXED_SIZE);
+
+        putDigits(year, 4);
+        buffer.put((byte) '-');
+        putDigits(date.getMonthValue(), 2);
+        buffer.put((byte) '-');
+        putDigits(date.getDayOfMonth(), 2);
+    }
+
+    private void putHex(long v, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            buffer.put(HEX_DIGITS[(int) (v >>> (i << 2)) & 0xf]);
+        }
+    }
+
+    private void putUUID(UUID uuid) throws IOException {
+        ensureRemaining(MAX_FIXED_SIZE);
+
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+
+        putHex(msb >>> 32, 8);
+        buffer.put((byte) '-');
+        putHex(msb >>> 16, 4);
+        buffer.put((byte) '-');
+        putHex(msb, 4);
+        buffer.put((byte) '-');
+        putHex(lsb >>> 48, 4);
+        buffer.put((byte) '-');
+        putHex(lsb, 12);
+    }
+
     /**
-     * @see ItemStream#close()
+     * Put a string known to contain only ASCII characters, such as a number.
      */
-    @SuppressWarnings("removal")
-    @Override
-    public void close() {
-        super.close();
-        try {
-            if (footerCallback != null) {
-                footerCallback.writeFooter(writer);
-                writer.flush();
+    private void putAscii(String s) throws IOException {
+        final int len = s.length();
+        if (len > buffer.capacity()) {
+            putChars(s, false);
+            return;
+        }
+
+        ensureRemaining(len);
+
+        for (int i = 0; i < len; i++) {
+            buffer.put((byte) s.charAt(i));
+        }
+    }
+
+    private void putChars(String s, boolean escaped) throws IOException {
+        final int len = s.length();
+        final int reserve = 4 + escape.length + quote.length;
+        final boolean quoting = escaped && quoteChar != 0;
+
+        int i = 0;
+
+        // Copy leading ASCII chars not needing escape straight into the backing array
+        if (len <= buffer.capacity()) {
+            ensureRemaining(len);
+            final byte[] array = buffer.array();
+            final int offset = buffer.arrayOffset() + buffer.position();
+            for (; i < len; i++) {
+                char c = s.charAt(i);
+                if (c >= 0x80 || (quoting && (c == quoteChar || c == escapeChar))) {
+                    break;
+                }
+                array[offset + i] = (byte) c;
+            }
+            buffer.position(buffer.position() + i);
+        }
+
+        for (; i < len; i++) {
+            char c = s.charAt(i);
+
+            if (buffer.remaining() < reserve) {
+                flush();
+            }
+
+            if (quoting && (c == quoteChar || (escapeChar != 0 && c == escapeChar))) {
+                if (escape.length > 0) {
+                    buffer.put(escape);
+                } else {
+                    buffer.put(quote);
+                }
+            }
+
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xc0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isHighSurrogate(c)
+                       && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buffer.put((byte) (0xf0 | (cp >> 18)));
+                buffer.put((byte) (0x80 | ((cp >> 12) & 0x3f)));
+                buffer.put((byte) (0x80 | ((cp >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (cp & 0x3f)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xe0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
             }
-        } catch (IOException e) {
-            throw new ItemStreamException("Failed to write footer before closing", e);
         }
     }
 }
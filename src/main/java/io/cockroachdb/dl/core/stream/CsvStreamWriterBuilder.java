@@ -1,54 +1,82 @@
 package io.cockroachdb.dl.core.stream;
 
-import java.io.IOException;
-import java.util.List;
+import java.nio.channels.WritableByteChannel;
 
-import org.springframework.batch.item.file.transform.DelimitedLineAggregator;
-import org.springframework.util.StringUtils;
+import org.springframework.util.Assert;
+
+import io.cockroachdb.dl.core.model.ColumnLayout;
+
+public class CsvStreamWriterBuilder {
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
 
-public class CsvStreamWriterBuilder<W> {
     private String delimiter = ",";
 
     private String quoteCharacter = "";
 
-    private List<String> columnNames = List.of();
+    private String escapeCharacter = "";
+
+    private String lineSeparator = System.lineSeparator();
+
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+    private ColumnLayout columnLayout;
+
+    private WritableByteChannel channel;
 
     private boolean includeHeader;
 
-    public CsvStreamWriterBuilder<W> withIncludeHeader(boolean includeHeader) {
+    public CsvStreamWriterBuilder withIncludeHeader(boolean includeHeader) {
         this.includeHeader = includeHeader;
         return this;
     }
 
-    public CsvStreamWriterBuilder<W> withDelimiter(String delimiter) {
+    public CsvStreamWriterBuilder withDelimiter(String delimiter) {
         this.delimiter = delimiter;
         return this;
     }
 
-    public CsvStreamWriterBuilder<W> withQuoteCharacter(String quoteCharacter) {
+    public CsvStreamWriterBuilder withQuoteCharacter(String quoteCharacter) {
         this.quoteCharacter = quoteCharacter;
         return this;
     }
 
-    public CsvStreamWriterBuilder<W> withColumnNames(List<String> columnNames) {
-        this.columnNames = columnNames;
+    public CsvStreamWriterBuilder withEscapeCharacter(String escapeCharacter) {
+        this.escapeCharacter = escapeCharacter;
+        return this;
+    }
+
+    public CsvStreamWriterBuilder withLineSeparator(String lineSeparator) {
+        this.lineSeparator = lineSeparator;
         return this;
     }
 
-    public CsvStreamWriter<W> build() throws IOException {
-        DelimitedLineAggregator<W> lineAggregator
-                = new DelimitedLineAggregator<>();
-        lineAggregator.setQuoteCharacter(quoteCharacter);
-        lineAggregator.setDelimiter(delimiter);
+    public CsvStreamWriterBuilder withBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    public CsvStreamWriterBuilder withColumnLayout(ColumnLayout columnLayout) {
+        this.columnLayout = columnLayout;
+        return this;
+    }
+
+    public CsvStreamWriterBuilder withChannel(WritableByteChannel channel) {
+        this.channel = channel;
+        return this;
+    }
 
-        CsvStreamWriter<W> itemWriter = new CsvStreamWriter<>();
-        itemWriter.setLineAggregator(lineAggregator);
-        if (includeHeader) {
-            itemWriter.setHeaderCallback(writer -> writer
-                    .write(StringUtils.collectionToDelimitedString(columnNames, delimiter))
-            );
-        }
+    public CsvStreamWriter build() {
+        Assert.notNull(columnLayout, "columnLayout is null");
+        Assert.notNull(channel, "channel is null");
+        Assert.notNull(delimiter, "delimiter is null");
 
-        return itemWriter;
+        return new CsvStreamWriter(channel,
+                columnLayout,
+                delimiter,
+                quoteCharacter != null ? quoteCharacter : "",
+                escapeCharacter != null ? escapeCharacter : "",
+                lineSeparator,
+                bufferSize,
+                includeHeader);
     }
 }
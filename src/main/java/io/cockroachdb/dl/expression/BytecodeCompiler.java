@@ -0,0 +1,335 @@
+package io.cockroachdb.dl.expression;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.antlr.v4.runtime.Token;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+
+/**
+ * Compiles a tree of {@link ExpressionNode}s into a hidden class implementing
+ * {@link CompiledExpression}, where arithmetic, comparisons and conditional
+ * branches are plain bytecode and function calls are direct interface calls
+ * on the bound {@link Function} instances. Functions, tokens and literals are
+ * held in final fields of the hidden class, which the JIT treats as constants.
+ * <p>
+ * Each function call is compiled into a separate method to keep the methods
+ * small enough for inlining and to give each call its own exception handler.
+ * <p>
+ * Integral arithmetic and comparisons are also compiled into separate methods,
+ * which first evaluate all operands in order and then compute the result with
+ * long arithmetic if all operands are integral. If not, or if the long arithmetic
+ * overflows, the result is computed with decimal arithmetic from the already
+ * evaluated operands.
+ *
+ * @author Kai Niemi
+ */
+final class BytecodeCompiler {
+    private static final Logger logger = LoggerFactory.getLogger(BytecodeCompiler.class);
+
+    private static final String CLASS_NAME
+            = Type.getInternalName(BytecodeCompiler.class).replace("BytecodeCompiler", "GeneratedExpression");
+
+    private static final String NODE = Type.getInternalName(ExpressionNode.class);
+
+    private static final String OBJECT = Type.getInternalName(Object.class);
+
+    /**
+     * Compile an expression tree into bytecode, or fall back to the tree itself
+     * if bytecode generation fails, for example if the expression is too large.
+     *
+     * @param root the expression tree root
+     * @return the compiled expression
+     */
+    static CompiledExpression compile(ExpressionNode root) {
+        try {
+            return new BytecodeCompiler().generate(root);
+        } catch (RuntimeException | LinkageError e) {
+            logger.debug("Unable to compile expression to bytecode - falling back to interpreter", e);
+            return root;
+        }
+    }
+
+    private final ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+        @Override
+        protected String getCommonSuperClass(String type1, String type2) {
+            // Every value is consumed as an object so there's no need to resolve types
+            return OBJECT;
+        }
+    };
+
+    private final List<Object> constants = new ArrayList<>();
+
+    private final List<Class<?>> constantTypes = new ArrayList<>();
+
+    private final Map<Object, Integer> constantIndexes = new IdentityHashMap<>();
+
+    private final Deque<Map.Entry<String, Consumer<Emitter>>> pendingMethods = new ArrayDeque<>();
+
+    private int methodCount;
+
+    private BytecodeCompiler() {
+    }
+
+    private CompiledExpression generate(ExpressionNode root) {
+        classWriter.visit(Opcodes.V17, Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, CLASS_NAME, null,
+                OBJECT, new String[] {Type.getInternalName(CompiledExpression.class)});
+
+        generateMethod(Opcodes.ACC_PUBLIC, "evaluate", root::emit);
+
+        while (!pendingMethods.isEmpty()) {
+            Map.Entry<String, Consumer<Emitter>> method = pendingMethods.poll();
+            generateMethod(Opcodes.ACC_PRIVATE, method.getKey(), method.getValue());
+        }
+
+        generateConstructor();
+
+        classWriter.visitEnd();
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup()
+                    .defineHiddenClass(classWriter.toByteArray(), true);
+            MethodHandle constructor = lookup.findConstructor(lookup.lookupClass(),
+                    MethodType.methodType(void.class, Object[].class));
+            return (CompiledExpression) constructor.invoke(constants.toArray());
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to define expression class", e);
+        }
+    }
+
+    private void generateMethod(int access, String name, Consumer<Emitter> body) {
+        MethodVisitor mv = classWriter.visitMethod(access, name,
+                Type.getMethodDescriptor(Type.getType(Object.class)), null, null);
+        mv.visitCode();
+        body.accept(new Emitter(mv));
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void generateConstructor() {
+        MethodVisitor mv = classWriter.visitMethod(0, "<init>",
+                Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(Object[].class)), null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+
+        for (int i = 0; i < constants.size(); i++) {
+            Type type = Type.getType(constantTypes.get(i));
+            classWriter.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL,
+                    "c" + i, type.getDescriptor(), null, null).visitEnd();
+
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            pushInt(mv, i);
+            mv.visitInsn(Opcodes.AALOAD);
+            mv.visitTypeInsn(Opcodes.CHECKCAST, type.getInternalName());
+            mv.visitFieldInsn(Opcodes.PUTFIELD, CLASS_NAME, "c" + i, type.getDescriptor());
+        }
+
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void pushInt(MethodVisitor mv, int value) {
+        if (value >= -1 && value <= 5) {
+            mv.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.SIPUSH, value);
+        } else {
+            mv.visitLdcInsn(value);
+        }
+    }
+
+    /**
+     * Bytecode emitter for a single method, passed to each node to append
+     * instructions that leave the node value as an object on the operand stack.
+     */
+    final class Emitter {
+        private final MethodVisitor mv;
+
+        private final Map<ExpressionNode, Integer> operandLocals = new IdentityHashMap<>();
+
+        private boolean decimalOperands;
+
+        private int nextLocal = 1;
+
+        private Emitter(MethodVisitor mv) {
+            this.mv = mv;
+        }
+
+        MethodVisitor visitor() {
+            return mv;
+        }
+
+        int newLocal() {
+            return nextLocal++;
+        }
+
+        /**
+         * Push a constant held in a final field of the generated class.
+         */
+        void loadConstant(Object value, Class<?> type) {
+            int index = constantIndexes.computeIfAbsent(value, v -> {
+                constants.add(v);
+                constantTypes.add(type);
+                return constants.size() - 1;
+            });
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, CLASS_NAME, "c" + index,
+                    Type.getDescriptor(constantTypes.get(index)));
+        }
+
+        /**
+         * Emit instructions into a separate method of its own and push its result.
+         */
+        void invokeMethod(Consumer<Emitter> body) {
+            String name = "m" + methodCount++;
+            pendingMethods.add(Map.entry(name, body));
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, CLASS_NAME, name,
+                    Type.getMethodDescriptor(Type.getType(Object.class)), false);
+        }
+
+        /**
+         * Emit an operand of a decimal expression, which is either loaded from
+         * a local if already evaluated, or emitted as decimal if part of an
+         * integral expression.
+         */
+        void emitOperand(ExpressionNode node) {
+            Integer local = operandLocals.get(node);
+            if (local != null) {
+                node.emitLoad(this, local);
+            } else if (decimalOperands) {
+                node.emitDecimal(this);
+            } else {
+                node.emit(this);
+            }
+        }
+
+        /**
+         * Push an evaluated operand of an integral expression as a long.
+         */
+        void loadLong(ExpressionNode node) {
+            Integer local = operandLocals.get(node);
+            if (local == null) {
+                throw new IllegalStateException("Operand not evaluated");
+            }
+            mv.visitVarInsn(Opcodes.ALOAD, local);
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, NODE, "toLong", "(Ljava/lang/Object;)J", false);
+        }
+
+        /**
+         * Emit an integral expression into a separate method and push its result.
+         */
+        void emitIntegral(ExpressionNode root) {
+            invokeMethod(method -> method.generateIntegral(root));
+        }
+
+        private void generateIntegral(ExpressionNode root) {
+            List<ExpressionNode> operands = new ArrayList<>();
+            root.collectOperands(operands);
+
+            for (ExpressionNode operand : operands) {
+                operand.emitRaw(this);
+                int local = newLocal();
+                mv.visitVarInsn(Opcodes.ASTORE, local);
+                operandLocals.put(operand, local);
+            }
+
+            Label decimal = new Label();
+            Label start = new Label();
+            Label end = new Label();
+            Label handler = new Label();
+            Label exit = new Label();
+
+            for (int local : operandLocals.values()) {
+                mv.visitVarInsn(Opcodes.ALOAD, local);
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, NODE, "isIntegral", "(Ljava/lang/Object;)Z", false);
+                mv.visitJumpInsn(Opcodes.IFEQ, decimal);
+            }
+
+            mv.visitTryCatchBlock(start, end, handler, Type.getInternalName(ArithmeticException.class));
+            mv.visitLabel(start);
+            root.emitIntegral(this);
+            mv.visitLabel(end);
+            mv.visitJumpInsn(Opcodes.GOTO, exit);
+
+            // Overflow
+            mv.visitLabel(handler);
+            mv.visitInsn(Opcodes.POP);
+
+            mv.visitLabel(decimal);
+            decimalOperands = true;
+            root.emitDecimal(this);
+            decimalOperands = false;
+
+            mv.visitLabel(exit);
+        }
+
+        /**
+         * Cast the object on top of the stack to given type, or throw an
+         * expression exception referring to the token.
+         */
+        void cast(Class<?> type, Token token) {
+            mv.visitLdcInsn(Type.getType(type));
+            loadConstant(token, Token.class);
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, NODE, "cast",
+                    Type.getMethodDescriptor(Type.getType(Object.class), Type.getType(Object.class),
+                            Type.getType(Class.class), Type.getType(Token.class)), false);
+            mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(type));
+        }
+
+        /**
+         * Cast the object on top of the stack to a primitive boolean.
+         */
+        void castToBoolean(Token token) {
+            cast(Boolean.class, token);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(Boolean.class),
+                    "booleanValue", "()Z", false);
+        }
+
+        /**
+         * Push either a boxed true or false depending on the jump condition
+         * given a primitive value on top of the stack.
+         */
+        void pushBoolean(int jumpIfTrueOpcode) {
+            Label isTrue = new Label();
+            Label end = new Label();
+            mv.visitJumpInsn(jumpIfTrueOpcode, isTrue);
+            pushBoolean(false);
+            mv.visitJumpInsn(Opcodes.GOTO, end);
+            mv.visitLabel(isTrue);
+            pushBoolean(true);
+            mv.visitLabel(end);
+        }
+
+        void pushBoolean(boolean value) {
+            mv.visitFieldInsn(Opcodes.GETSTATIC, Type.getInternalName(Boolean.class),
+                    value ? "TRUE" : "FALSE", Type.getDescriptor(Boolean.class));
+        }
+
+        void pushInt(int value) {
+            BytecodeCompiler.pushInt(mv, value);
+        }
+    }
+}
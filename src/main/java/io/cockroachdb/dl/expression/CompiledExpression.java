@@ -0,0 +1,32 @@
+package io.cockroachdb.dl.expression;
+
+/**
+ * A parsed and resolved expression that can be evaluated repeatedly
+ * without lexing or parsing the expression text again. Instances are
+ * stateless and safe to share between threads, given that the bound
+ * functions are.
+ *
+ * @author Kai Niemi
+ * @see Expression#compile(String, ExpressionRegistry)
+ */
+@FunctionalInterface
+public interface CompiledExpression {
+    /**
+     * Evaluate the expression.
+     *
+     * @return the result object of the expression
+     * @throws ExpressionException on evaluation errors
+     */
+    Object evaluate();
+
+    /**
+     * Evaluate the expression.
+     *
+     * @param type the type that the result object is expected to match
+     * @return the result object of the expression
+     * @throws ExpressionException on evaluation errors
+     */
+    default <T> T evaluate(Class<T> type) {
+        return type.cast(evaluate());
+    }
+}
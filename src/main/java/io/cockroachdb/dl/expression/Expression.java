@@ -70,13 +70,48 @@ public class Expression {
      * @throws ExpressionException if the expression break grammar rules
      */
     public static <T> T evaluate(String expression, Class<T> type, ExpressionRegistry registry) {
+        return compile(expression, registry).evaluate(type);
+    }
+
+    /**
+     * Parse an expression once into a reusable, evaluable form. Variables and
+     * functions are resolved against the registry at compile time.
+     *
+     * @param expression the expression
+     * @param registry   callback for resolving expression variables and functions
+     * @return the compiled expression
+     * @throws ExpressionException if the expression break grammar rules or refers
+     *                             to unknown variables or functions
+     */
+    public static CompiledExpression compile(String expression, ExpressionRegistry registry) {
+        return parse(expression, registry);
+    }
+
+    /**
+     * Parse an expression once and compile it into a generated class, where operators
+     * and branches are bytecode and functions are invoked directly. Intended for
+     * expressions evaluated a large number of times, since generating the class is
+     * more costly than parsing. Falls back to the same form as {@link #compile(String,
+     * ExpressionRegistry)} if the expression cannot be compiled into bytecode.
+     *
+     * @param expression the expression
+     * @param registry   callback for resolving expression variables and functions
+     * @return the compiled expression
+     * @throws ExpressionException if the expression break grammar rules or refers
+     *                             to unknown variables or functions
+     */
+    public static CompiledExpression compileToBytecode(String expression, ExpressionRegistry registry) {
+        return BytecodeCompiler.compile(parse(expression, registry));
+    }
+
+    private static ExpressionNode parse(String expression, ExpressionRegistry registry) {
         ExpressionParser parser = createParser(expression);
 
         ExpressionParseTreeListener listener = new ExpressionParseTreeListener(parser, registry);
         parser.addParseListener(listener);
         parser.root();
 
-        return type.cast(listener.popFinal());
+        return (ExpressionNode) listener.popFinal();
     }
 
     private static ExpressionParser createParser(String expression) {
@@ -12,7 +12,19 @@ import org.antlr.v4.runtime.Token;
 public class ExpressionException extends RuntimeException {
     public static ExpressionException from(Parser parser, Throwable cause, Token token) {
         parser.removeParseListeners();
+        return from(cause, token);
+    }
+
+    public static ExpressionException from(Parser parser, String message, Token token) {
+        parser.removeParseListeners();
+        return from(message, token);
+    }
 
+    /**
+     * Create an exception for an evaluation error in a compiled expression,
+     * where the parser is no longer around.
+     */
+    public static ExpressionException from(Throwable cause, Token token) {
         String line = token.getInputStream().toString();
 
         return new ExpressionException(cause.getMessage() +
@@ -23,9 +35,7 @@ public class ExpressionException extends RuntimeException {
                 " in '" + line + "'", cause);
     }
 
-    public static ExpressionException from(Parser parser, String message, Token token) {
-        parser.removeParseListeners();
-
+    public static ExpressionException from(String message, Token token) {
         String line = token.getInputStream().toString();
 
         return new ExpressionException(message +
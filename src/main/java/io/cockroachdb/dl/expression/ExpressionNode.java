@@ -0,0 +1,1105 @@
+package io.cockroachdb.dl.expression;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import org.antlr.v4.runtime.Token;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+
+/**
+ * Node in a compiled expression tree produced by {@link ExpressionParseTreeListener}.
+ * Each node evaluates its children on demand, so a tree can be evaluated any
+ * number of times after a single parse. Each node can also emit the bytecode
+ * equivalent of its evaluation for {@link BytecodeCompiler}.
+ * <p>
+ * Numbers are represented as decimals. Each node also infers at compile time whether
+ * its value is integral, in which case the bytecode compiler evaluates it with long
+ * arithmetic and only falls back to decimal arithmetic on overflow or if a function
+ * turns out to return a non-integral value.
+ *
+ * @author Kai Niemi
+ */
+abstract class ExpressionNode implements CompiledExpression {
+    private static final String BIG_DECIMAL = Type.getInternalName(BigDecimal.class);
+
+    private static final String STRING_BUILDER = Type.getInternalName(StringBuilder.class);
+
+    private static final Set<String> INTEGRAL_RETURN_VALUES = Set.of(
+            "Long", "Integer", "Short", "Byte", "Object", "void");
+
+    /**
+     * Max precision of an integral decimal that always fits in a long.
+     */
+    private static final int MAX_LONG_PRECISION = 18;
+
+    enum ValueType {
+        /**
+         * Integral number that may be evaluated with long arithmetic.
+         */
+        INTEGRAL,
+        DECIMAL,
+        OTHER
+    }
+
+    static Object normalize(Object o) {
+        if (o instanceof Long || o instanceof Integer || o instanceof Short || o instanceof Byte) {
+            return BigDecimal.valueOf(((Number) o).longValue());
+        }
+        if (o instanceof Number && !(o instanceof BigDecimal)) {
+            return new BigDecimal(Objects.toString(o));
+        }
+        return o;
+    }
+
+    static Object normalize(Object o, Token token) {
+        try {
+            return normalize(o);
+        } catch (Exception e) {
+            throw ExpressionException.from(e, token);
+        }
+    }
+
+    static boolean isIntegral(Object o) {
+        if (o instanceof Long || o instanceof Integer || o instanceof Short || o instanceof Byte) {
+            return true;
+        }
+        return o instanceof BigDecimal bd && bd.scale() == 0 && bd.precision() <= MAX_LONG_PRECISION;
+    }
+
+    static long toLong(Object o) {
+        return ((Number) o).longValue();
+    }
+
+    /**
+     * Divide with half-even rounding to an integer, same as for decimals with zero scale.
+     *
+     * @throws ArithmeticException on division by zero or overflow
+     */
+    static long divideExact(long dividend, long divisor) {
+        if (divisor == 0 || divisor == Long.MIN_VALUE || (dividend == Long.MIN_VALUE && divisor == -1)) {
+            throw new ArithmeticException("Integral division not applicable");
+        }
+
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        if (remainder == 0) {
+            return quotient;
+        }
+
+        long distance = Math.abs(divisor) - remainder;
+        if (remainder > distance || (remainder == distance && (quotient & 1) != 0)) {
+            quotient += (dividend < 0) == (divisor < 0) ? 1 : -1;
+        }
+        return quotient;
+    }
+
+    /**
+     * Raise to the power of a non-negative exponent within the bounds accepted for decimals.
+     *
+     * @throws ArithmeticException on an exponent out of bounds or overflow
+     */
+    static long powExact(long base, long exponent) {
+        if (exponent < 0 || exponent > 999999999) {
+            throw new ArithmeticException("Integral power not applicable");
+        }
+
+        long result = 1;
+        while (true) {
+            if ((exponent & 1) != 0) {
+                result = Math.multiplyExact(result, base);
+            }
+            exponent >>= 1;
+            if (exponent == 0) {
+                return result;
+            }
+            base = Math.multiplyExact(base, base);
+        }
+    }
+
+    static boolean isLiteral(ExpressionNode... nodes) {
+        for (ExpressionNode node : nodes) {
+            if (!(node instanceof Literal)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean contains(Object value, String key) {
+        return value instanceof Collection<?> c ? c.contains(key) : key.equals(value);
+    }
+
+    static <T> T cast(Object o, Class<T> type, Token token) {
+        try {
+            return type.cast(o);
+        } catch (ClassCastException e) {
+            throw ExpressionException.from("Cannot cast '" + o + "' of type "
+                    + (o != null ? o.getClass().getSimpleName() : "null")
+                    + " into " + type.getSimpleName(), token);
+        }
+    }
+
+    enum ArithmeticOperator {
+        POW {
+            @Override
+            BigDecimal apply(BigDecimal left, BigDecimal right, Token token) {
+                if (right.stripTrailingZeros().scale() > 0) {
+                    throw ExpressionException.from(
+                            "Floating-point power exponents are not supported: " + right, token);
+                }
+                return left.pow(right.intValue());
+            }
+        },
+        MULT {
+            @Override
+            BigDecimal apply(BigDecimal left, BigDecimal right, Token token) {
+                return left.multiply(right);
+            }
+        },
+        DIV {
+            @Override
+            BigDecimal apply(BigDecimal left, BigDecimal right, Token token) {
+                return left.divide(right, RoundingMode.HALF_EVEN);
+            }
+        },
+        PLUS {
+            @Override
+            BigDecimal apply(BigDecimal left, BigDecimal right, Token token) {
+                return left.add(right);
+            }
+        },
+        MINUS {
+            @Override
+            BigDecimal apply(BigDecimal left, BigDecimal right, Token token) {
+                return left.subtract(right);
+            }
+        },
+        MIN {
+            @Override
+            BigDecimal apply(BigDecimal left, BigDecimal right, Token token) {
+                return left.min(right);
+            }
+        },
+        MAX {
+            @Override
+            BigDecimal apply(BigDecimal left, BigDecimal right, Token token) {
+                return left.max(right);
+            }
+        },
+        MOD {
+            @Override
+            BigDecimal apply(BigDecimal left, BigDecimal right, Token token) {
+                return left.remainder(right);
+            }
+        };
+
+        abstract BigDecimal apply(BigDecimal left, BigDecimal right, Token token);
+    }
+
+    /**
+     * @return true if this node always evaluates to the same value, given that
+     * all operands are literals and all functions are pure
+     */
+    boolean isConstant() {
+        return false;
+    }
+
+    /**
+     * Fold this node into a literal if it's constant. Nodes failing to evaluate
+     * are left as-is to report the error on evaluation.
+     *
+     * @return a literal or this node
+     */
+    ExpressionNode fold() {
+        if (!isConstant()) {
+            return this;
+        }
+        try {
+            return new Literal(evaluate());
+        } catch (RuntimeException e) {
+            return this;
+        }
+    }
+
+    /**
+     * @return the value type of this node inferred at compile time
+     */
+    ValueType valueType() {
+        return ValueType.OTHER;
+    }
+
+    /**
+     * Emit instructions leaving the value of this node as an object on the operand stack.
+     *
+     * @param out the emitter for the enclosing method
+     */
+    abstract void emit(BytecodeCompiler.Emitter out);
+
+    /**
+     * Emit instructions leaving the value of this node using decimal arithmetic,
+     * where operands are emitted by {@link BytecodeCompiler.Emitter#emitOperand(ExpressionNode)}.
+     */
+    void emitDecimal(BytecodeCompiler.Emitter out) {
+        emit(out);
+    }
+
+    /**
+     * Emit instructions leaving the value of this node as an object, which may
+     * not yet be normalized if this node is used as an operand of an integral
+     * expression.
+     */
+    void emitRaw(BytecodeCompiler.Emitter out) {
+        emit(out);
+    }
+
+    /**
+     * Emit instructions normalizing the raw value of this node stored in a local variable.
+     */
+    void emitLoad(BytecodeCompiler.Emitter out, int local) {
+        out.visitor().visitVarInsn(Opcodes.ALOAD, local);
+    }
+
+    /**
+     * Emit instructions leaving the value of this integral node as a long on the
+     * operand stack, which may throw an arithmetic exception on overflow.
+     */
+    void emitLong(BytecodeCompiler.Emitter out) {
+        out.loadLong(this);
+    }
+
+    /**
+     * Emit instructions leaving the value of this integral node as an object,
+     * computed with long arithmetic.
+     */
+    void emitIntegral(BytecodeCompiler.Emitter out) {
+        emitLong(out);
+        out.visitor().visitMethodInsn(Opcodes.INVOKESTATIC, BIG_DECIMAL, "valueOf",
+                "(J)L" + BIG_DECIMAL + ";", false);
+    }
+
+    /**
+     * Collect the operands of an integral expression in evaluation order.
+     */
+    void collectOperands(List<ExpressionNode> operands) {
+        operands.add(this);
+    }
+
+    enum ComparisonOperator {
+        GT {
+            @Override
+            boolean test(int comparison) {
+                return comparison > 0;
+            }
+        },
+        GE {
+            @Override
+            boolean test(int comparison) {
+                return comparison >= 0;
+            }
+        },
+        LT {
+            @Override
+            boolean test(int comparison) {
+                return comparison < 0;
+            }
+        },
+        LE {
+            @Override
+            boolean test(int comparison) {
+                return comparison <= 0;
+            }
+        },
+        EQ {
+            @Override
+            boolean test(int comparison) {
+                return comparison == 0;
+            }
+        },
+        NE {
+            @Override
+            boolean test(int comparison) {
+                return comparison != 0;
+            }
+        };
+
+        abstract boolean test(int comparison);
+    }
+
+    static final class Literal extends ExpressionNode {
+        private final Object value;
+
+        private final ValueType valueType;
+
+        Literal(Object value) {
+            this.value = normalize(value);
+            this.valueType = isIntegral(this.value)
+                    ? ValueType.INTEGRAL
+                    : this.value instanceof BigDecimal ? ValueType.DECIMAL : ValueType.OTHER;
+        }
+
+        @Override
+        public Object evaluate() {
+            return value;
+        }
+
+        @Override
+        ExpressionNode fold() {
+            return this;
+        }
+
+        @Override
+        ValueType valueType() {
+            return valueType;
+        }
+
+        @Override
+        void emit(BytecodeCompiler.Emitter out) {
+            out.loadConstant(value, Object.class);
+        }
+
+        @Override
+        void emitLong(BytecodeCompiler.Emitter out) {
+            out.visitor().visitLdcInsn(toLong(value));
+        }
+
+        @Override
+        void collectOperands(List<ExpressionNode> operands) {
+            // Constant, nothing to evaluate
+        }
+    }
+
+    static final class FunctionCall extends ExpressionNode {
+        private static Function bind(FunctionDef functionDef, List<ExpressionNode> args) {
+            FunctionBinder binder = functionDef.getBinder();
+            if (binder == null || args.isEmpty() || !isLiteral(args.toArray(new ExpressionNode[0]))) {
+                return null;
+            }
+            try {
+                return binder.bind(args.stream().map(ExpressionNode::evaluate).toArray());
+            } catch (Exception e) {
+                // Leave the error to be reported on evaluation
+                return null;
+            }
+        }
+
+        private final FunctionDef functionDef;
+
+        private final Function function;
+
+        private final ExpressionNode[] args;
+
+        private final Token token;
+
+        private final ValueType valueType;
+
+        FunctionCall(FunctionDef functionDef, List<ExpressionNode> args, Token token) {
+            this.functionDef = functionDef;
+            this.token = token;
+
+            Function bound = bind(functionDef, args);
+            if (bound != null) {
+                this.function = bound;
+                this.args = new ExpressionNode[0];
+            } else {
+                this.function = functionDef.getFunction();
+                this.args = args.toArray(new ExpressionNode[0]);
+            }
+
+            String returnValue = functionDef.getReturnValue();
+            if (INTEGRAL_RETURN_VALUES.contains(returnValue)) {
+                this.valueType = ValueType.INTEGRAL;
+            } else if ("BigDecimal".equals(returnValue) || "Double".equals(returnValue)
+                       || "Float".equals(returnValue)) {
+                this.valueType = ValueType.DECIMAL;
+            } else {
+                this.valueType = ValueType.OTHER;
+            }
+        }
+
+        @Override
+        public Object evaluate() {
+            try {
+                Object[] values = new Object[args.length];
+                for (int i = 0; i < args.length; i++) {
+                    values[i] = args[i].evaluate();
+                }
+                return normalize(function.call(values));
+            } catch (Exception e) {
+                throw ExpressionException.from(e, token);
+            }
+        }
+
+        @Override
+        boolean isConstant() {
+            return functionDef.isPure() && isLiteral(args);
+        }
+
+        @Override
+        ValueType valueType() {
+            return valueType;
+        }
+
+        @Override
+        void emit(BytecodeCompiler.Emitter out) {
+            emitCall(out, true);
+        }
+
+        @Override
+        void emitRaw(BytecodeCompiler.Emitter out) {
+            emitCall(out, false);
+        }
+
+        @Override
+        void emitLoad(BytecodeCompiler.Emitter out, int local) {
+            MethodVisitor mv = out.visitor();
+            mv.visitVarInsn(Opcodes.ALOAD, local);
+            out.loadConstant(token, Token.class);
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(ExpressionNode.class),
+                    "normalize", "(Ljava/lang/Object;Lorg/antlr/v4/runtime/Token;)Ljava/lang/Object;", false);
+        }
+
+        private void emitCall(BytecodeCompiler.Emitter out, boolean normalized) {
+            out.invokeMethod(method -> {
+                MethodVisitor mv = method.visitor();
+                Label start = new Label();
+                Label end = new Label();
+                Label handler = new Label();
+                Label exit = new Label();
+
+                mv.visitTryCatchBlock(start, end, handler, Type.getInternalName(Exception.class));
+                mv.visitLabel(start);
+
+                method.loadConstant(function, Function.class);
+                method.pushInt(args.length);
+                mv.visitTypeInsn(Opcodes.ANEWARRAY, Type.getInternalName(Object.class));
+                for (int i = 0; i < args.length; i++) {
+                    mv.visitInsn(Opcodes.DUP);
+                    method.pushInt(i);
+                    args[i].emit(method);
+                    mv.visitInsn(Opcodes.AASTORE);
+                }
+                mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, Type.getInternalName(Function.class),
+                        "call", "([Ljava/lang/Object;)Ljava/lang/Object;", true);
+                if (normalized) {
+                    mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(ExpressionNode.class),
+                            "normalize", "(Ljava/lang/Object;)Ljava/lang/Object;", false);
+                }
+
+                mv.visitLabel(end);
+                mv.visitJumpInsn(Opcodes.GOTO, exit);
+
+                mv.visitLabel(handler);
+                method.loadConstant(token, Token.class);
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(ExpressionException.class),
+                        "from", Type.getMethodDescriptor(Type.getType(ExpressionException.class),
+                                Type.getType(Throwable.class), Type.getType(Token.class)), false);
+                mv.visitInsn(Opcodes.ATHROW);
+
+                mv.visitLabel(exit);
+            });
+        }
+    }
+
+    static final class Arithmetic extends ExpressionNode {
+        private final ArithmeticOperator operator;
+
+        private final ExpressionNode left;
+
+        private final ExpressionNode right;
+
+        private final Token token;
+
+        private final ValueType valueType;
+
+        Arithmetic(ArithmeticOperator operator, ExpressionNode left, ExpressionNode right, Token token) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+            this.token = token;
+            this.valueType = left.valueType() == ValueType.INTEGRAL && right.valueType() == ValueType.INTEGRAL
+                    ? ValueType.INTEGRAL
+                    : ValueType.DECIMAL;
+        }
+
+        @Override
+        public Object evaluate() {
+            BigDecimal l = cast(left.evaluate(), BigDecimal.class, token);
+            BigDecimal r = cast(right.evaluate(), BigDecimal.class, token);
+            return operator.apply(l, r, token);
+        }
+
+        @Override
+        boolean isConstant() {
+            return isLiteral(left, right);
+        }
+
+        @Override
+        ValueType valueType() {
+            return valueType;
+        }
+
+        @Override
+        void emit(BytecodeCompiler.Emitter out) {
+            if (valueType == ValueType.INTEGRAL) {
+                out.emitIntegral(this);
+            } else {
+                emitDecimal(out);
+            }
+        }
+
+        @Override
+        void collectOperands(List<ExpressionNode> operands) {
+            left.collectOperands(operands);
+            right.collectOperands(operands);
+        }
+
+        @Override
+        void emitLong(BytecodeCompiler.Emitter out) {
+            MethodVisitor mv = out.visitor();
+
+            left.emitLong(out);
+            right.emitLong(out);
+
+            switch (operator) {
+                case POW -> mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(ExpressionNode.class),
+                        "powExact", "(JJ)J", false);
+                case DIV -> mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(ExpressionNode.class),
+                        "divideExact", "(JJ)J", false);
+                case MOD -> mv.visitInsn(Opcodes.LREM);
+                default -> {
+                    String name = switch (operator) {
+                        case MULT -> "multiplyExact";
+                        case PLUS -> "addExact";
+                        case MINUS -> "subtractExact";
+                        case MIN -> "min";
+                        case MAX -> "max";
+                        default -> throw new IllegalStateException("Unexpected operator: " + operator);
+                    };
+                    mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(Math.class),
+                            name, "(JJ)J", false);
+                }
+            }
+        }
+
+        @Override
+        void emitDecimal(BytecodeCompiler.Emitter out) {
+            MethodVisitor mv = out.visitor();
+
+            if (operator == ArithmeticOperator.POW) {
+                mv.visitFieldInsn(Opcodes.GETSTATIC, Type.getInternalName(ArithmeticOperator.class),
+                        operator.name(), Type.getDescriptor(ArithmeticOperator.class));
+            }
+
+            out.emitOperand(left);
+            out.cast(BigDecimal.class, token);
+            out.emitOperand(right);
+            out.cast(BigDecimal.class, token);
+
+            switch (operator) {
+                case POW -> {
+                    out.loadConstant(token, Token.class);
+                    mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(ArithmeticOperator.class),
+                            "apply", Type.getMethodDescriptor(Type.getType(BigDecimal.class),
+                                    Type.getType(BigDecimal.class), Type.getType(BigDecimal.class),
+                                    Type.getType(Token.class)), false);
+                }
+                case DIV -> {
+                    mv.visitFieldInsn(Opcodes.GETSTATIC, Type.getInternalName(RoundingMode.class),
+                            RoundingMode.HALF_EVEN.name(), Type.getDescriptor(RoundingMode.class));
+                    mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, BIG_DECIMAL, "divide",
+                            "(L" + BIG_DECIMAL + ";Ljava/math/RoundingMode;)L" + BIG_DECIMAL + ";", false);
+                }
+                default -> {
+                    String name = switch (operator) {
+                        case MULT -> "multiply";
+                        case PLUS -> "add";
+                        case MINUS -> "subtract";
+                        case MIN -> "min";
+                        case MAX -> "max";
+                        case MOD -> "remainder";
+                        default -> throw new IllegalStateException("Unexpected operator: " + operator);
+                    };
+                    mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, BIG_DECIMAL, name,
+                            "(L" + BIG_DECIMAL + ";)L" + BIG_DECIMAL + ";", false);
+                }
+            }
+        }
+    }
+
+    static final class Negate extends ExpressionNode {
+        private final ExpressionNode right;
+
+        private final Token token;
+
+        Negate(ExpressionNode right, Token token) {
+            this.right = right;
+            this.token = token;
+        }
+
+        @Override
+        public Object evaluate() {
+            return cast(right.evaluate(), BigDecimal.class, token).negate();
+        }
+
+        @Override
+        boolean isConstant() {
+            return isLiteral(right);
+        }
+
+        @Override
+        ValueType valueType() {
+            return right.valueType() == ValueType.INTEGRAL ? ValueType.INTEGRAL : ValueType.DECIMAL;
+        }
+
+        @Override
+        void emit(BytecodeCompiler.Emitter out) {
+            if (valueType() == ValueType.INTEGRAL) {
+                out.emitIntegral(this);
+            } else {
+                emitDecimal(out);
+            }
+        }
+
+        @Override
+        void collectOperands(List<ExpressionNode> operands) {
+            right.collectOperands(operands);
+        }
+
+        @Override
+        void emitLong(BytecodeCompiler.Emitter out) {
+            right.emitLong(out);
+            out.visitor().visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(Math.class),
+                    "negateExact", "(J)J", false);
+        }
+
+        @Override
+        void emitDecimal(BytecodeCompiler.Emitter out) {
+            out.emitOperand(right);
+            out.cast(BigDecimal.class, token);
+            out.visitor().visitMethodInsn(Opcodes.INVOKEVIRTUAL, BIG_DECIMAL, "negate",
+                    "()L" + BIG_DECIMAL + ";", false);
+        }
+    }
+
+    static final class Numeric extends ExpressionNode {
+        private final ExpressionNode right;
+
+        private final Token token;
+
+        Numeric(ExpressionNode right, Token token) {
+            this.right = right;
+            this.token = token;
+        }
+
+        @Override
+        public Object evaluate() {
+            return cast(right.evaluate(), BigDecimal.class, token);
+        }
+
+        @Override
+        boolean isConstant() {
+            return isLiteral(right);
+        }
+
+        @Override
+        ValueType valueType() {
+            return right.valueType() == ValueType.INTEGRAL ? ValueType.INTEGRAL : ValueType.DECIMAL;
+        }
+
+        @Override
+        void emit(BytecodeCompiler.Emitter out) {
+            if (valueType() == ValueType.INTEGRAL) {
+                out.emitIntegral(this);
+            } else {
+                emitDecimal(out);
+            }
+        }
+
+        @Override
+        void collectOperands(List<ExpressionNode> operands) {
+            right.collectOperands(operands);
+        }
+
+        @Override
+        void emitLong(BytecodeCompiler.Emitter out) {
+            right.emitLong(out);
+        }
+
+        @Override
+        void emitDecimal(BytecodeCompiler.Emitter out) {
+            out.emitOperand(right);
+            out.cast(BigDecimal.class, token);
+        }
+    }
+
+    static final class Concat extends ExpressionNode {
+        private final ExpressionNode left;
+
+        private final ExpressionNode right;
+
+        private final Token token;
+
+        Concat(ExpressionNode left, ExpressionNode right, Token token) {
+            this.left = left;
+            this.right = right;
+            this.token = token;
+        }
+
+        @Override
+        public Object evaluate() {
+            String l = cast(left.evaluate(), String.class, token);
+            String r = cast(right.evaluate(), String.class, token);
+            return l + r;
+        }
+
+        @Override
+        boolean isConstant() {
+            return isLiteral(left, right);
+        }
+
+        @Override
+        void emit(BytecodeCompiler.Emitter out) {
+            MethodVisitor mv = out.visitor();
+            mv.visitTypeInsn(Opcodes.NEW, STRING_BUILDER);
+            mv.visitInsn(Opcodes.DUP);
+            mv.visitMethodInsn(Opcodes.INVOKESPECIAL, STRING_BUILDER, "<init>", "()V", false);
+
+            left.emit(out);
+            out.cast(String.class, token);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, STRING_BUILDER, "append",
+                    "(Ljava/lang/String;)L" + STRING_BUILDER + ";", false);
+
+            right.emit(out);
+            out.cast(String.class, token);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, STRING_BUILDER, "append",
+                    "(Ljava/lang/String;)L" + STRING_BUILDER + ";", false);
+
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, STRING_BUILDER, "toString",
+                    "()Ljava/lang/String;", false);
+        }
+    }
+
+    static final class And extends ExpressionNode {
+        private final ExpressionNode left;
+
+        private final ExpressionNode right;
+
+        private final Token token;
+
+        And(ExpressionNode left, ExpressionNode right, Token token) {
+            this.left = left;
+            this.right = right;
+            this.token = token;
+        }
+
+        @Override
+        public Object evaluate() {
+            return cast(left.evaluate(), Boolean.class, token)
+                   && cast(right.evaluate(), Boolean.class, token);
+        }
+
+        @Override
+        boolean isConstant() {
+            return isLiteral(left, right);
+        }
+
+        @Override
+        void emit(BytecodeCompiler.Emitter out) {
+            MethodVisitor mv = out.visitor();
+            Label isFalse = new Label();
+            Label end = new Label();
+
+            left.emit(out);
+            out.castToBoolean(token);
+            mv.visitJumpInsn(Opcodes.IFEQ, isFalse);
+            right.emit(out);
+            out.castToBoolean(token);
+            mv.visitJumpInsn(Opcodes.IFEQ, isFalse);
+            out.pushBoolean(true);
+            mv.visitJumpInsn(Opcodes.GOTO, end);
+            mv.visitLabel(isFalse);
+            out.pushBoolean(false);
+            mv.visitLabel(end);
+        }
+    }
+
+    static final class Or extends ExpressionNode {
+        private final ExpressionNode left;
+
+        private final ExpressionNode right;
+
+        private final Token token;
+
+        Or(ExpressionNode left, ExpressionNode right, Token token) {
+            this.left = left;
+            this.right = right;
+            this.token = token;
+        }
+
+        @Override
+        public Object evaluate() {
+            return cast(left.evaluate(), Boolean.class, token)
+                   || cast(right.evaluate(), Boolean.class, token);
+        }
+
+        @Override
+        boolean isConstant() {
+            return isLiteral(left, right);
+        }
+
+        @Override
+        void emit(BytecodeCompiler.Emitter out) {
+            MethodVisitor mv = out.visitor();
+            Label isTrue = new Label();
+            Label end = new Label();
+
+            left.emit(out);
+            out.castToBoolean(token);
+            mv.visitJumpInsn(Opcodes.IFNE, isTrue);
+            right.emit(out);
+            out.castToBoolean(token);
+            mv.visitJumpInsn(Opcodes.IFNE, isTrue);
+            out.pushBoolean(false);
+            mv.visitJumpInsn(Opcodes.GOTO, end);
+            mv.visitLabel(isTrue);
+            out.pushBoolean(true);
+            mv.visitLabel(end);
+        }
+    }
+
+    static final class Not extends ExpressionNode {
+        private final ExpressionNode right;
+
+        private final Token token;
+
+        Not(ExpressionNode right, Token token) {
+            this.right = right;
+            this.token = token;
+        }
+
+        @Override
+        public Object evaluate() {
+            return !cast(right.evaluate(), Boolean.class, token);
+        }
+
+        @Override
+        boolean isConstant() {
+            return isLiteral(right);
+        }
+
+        @Override
+        void emit(BytecodeCompiler.Emitter out) {
+            right.emit(out);
+            out.castToBoolean(token);
+            out.pushBoolean(Opcodes.IFEQ);
+        }
+    }
+
+    static final class Comparison extends ExpressionNode {
+        private final ComparisonOperator operator;
+
+        private final ExpressionNode left;
+
+        private final ExpressionNode right;
+
+        private final Class<?> type;
+
+        private final Token token;
+
+        Comparison(ComparisonOperator operator, ExpressionNode left, ExpressionNode right,
+                   Class<?> type, Token token) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+            this.type = type;
+            this.token = token;
+        }
+
+        @Override
+        public Object evaluate() {
+            Object r = cast(right.evaluate(), type, token);
+            @SuppressWarnings("unchecked")
+            Comparable<Object> l = cast(cast(left.evaluate(), type, token), Comparable.class, token);
+            return operator.test(l.compareTo(r));
+        }
+
+        @Override
+        boolean isConstant() {
+            return isLiteral(left, right);
+        }
+
+        private boolean isIntegral() {
+            return type == Comparable.class
+                   && left.valueType() == ValueType.INTEGRAL
+                   && right.valueType() == ValueType.INTEGRAL;
+        }
+
+        private int jumpOpcode() {
+            return switch (operator) {
+                case GT -> Opcodes.IFGT;
+                case GE -> Opcodes.IFGE;
+                case LT -> Opcodes.IFLT;
+                case LE -> Opcodes.IFLE;
+                case EQ -> Opcodes.IFEQ;
+                case NE -> Opcodes.IFNE;
+            };
+        }
+
+        @Override
+        void emit(BytecodeCompiler.Emitter out) {
+            if (isIntegral()) {
+                out.emitIntegral(this);
+            } else {
+                emitDecimal(out);
+            }
+        }
+
+        @Override
+        void collectOperands(List<ExpressionNode> operands) {
+            // Right hand side is evaluated first
+            right.collectOperands(operands);
+            left.collectOperands(operands);
+        }
+
+        @Override
+        void emitIntegral(BytecodeCompiler.Emitter out) {
+            left.emitLong(out);
+            right.emitLong(out);
+            out.visitor().visitInsn(Opcodes.LCMP);
+            out.pushBoolean(jumpOpcode());
+        }
+
+        @Override
+        void emitDecimal(BytecodeCompiler.Emitter out) {
+            MethodVisitor mv = out.visitor();
+
+            // Right hand side is evaluated first
+            out.emitOperand(right);
+            out.cast(type, token);
+            out.emitOperand(left);
+            out.cast(type, token);
+            out.cast(Comparable.class, token);
+            mv.visitInsn(Opcodes.SWAP);
+            mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, Type.getInternalName(Comparable.class),
+                    "compareTo", "(Ljava/lang/Object;)I", true);
+
+            out.pushBoolean(jumpOpcode());
+        }
+    }
+
+    static final class InList extends ExpressionNode {
+        private final ExpressionNode key;
+
+        private final ExpressionNode[] values;
+
+        private final Token token;
+
+        InList(ExpressionNode key, List<ExpressionNode> values, Token token) {
+            this.key = key;
+            this.values = values.toArray(new ExpressionNode[0]);
+            this.token = token;
+        }
+
+        @Override
+        public Object evaluate() {
+            String k = cast(key.evaluate(), String.class, token);
+            for (ExpressionNode value : values) {
+                if (contains(value.evaluate(), k)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        boolean isConstant() {
+            return isLiteral(key) && isLiteral(values);
+        }
+
+        @Override
+        void emit(BytecodeCompiler.Emitter out) {
+            MethodVisitor mv = out.visitor();
+            Label isTrue = new Label();
+            Label end = new Label();
+
+            key.emit(out);
+            out.cast(String.class, token);
+            int k = out.newLocal();
+            mv.visitVarInsn(Opcodes.ASTORE, k);
+
+            for (ExpressionNode value : values) {
+                value.emit(out);
+                mv.visitVarInsn(Opcodes.ALOAD, k);
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(ExpressionNode.class),
+                        "contains", "(Ljava/lang/Object;Ljava/lang/String;)Z", false);
+                mv.visitJumpInsn(Opcodes.IFNE, isTrue);
+            }
+
+            out.pushBoolean(false);
+            mv.visitJumpInsn(Opcodes.GOTO, end);
+            mv.visitLabel(isTrue);
+            out.pushBoolean(true);
+            mv.visitLabel(end);
+        }
+    }
+
+    static final class Conditional extends ExpressionNode {
+        private final ExpressionNode condition;
+
+        private final ExpressionNode then;
+
+        private final ExpressionNode otherwise;
+
+        private final Token token;
+
+        Conditional(ExpressionNode condition, ExpressionNode then, ExpressionNode otherwise, Token token) {
+            this.condition = condition;
+            this.then = then;
+            this.otherwise = otherwise;
+            this.token = token;
+        }
+
+        @Override
+        public Object evaluate() {
+            return cast(condition.evaluate(), Boolean.class, token)
+                    ? then.evaluate()
+                    : otherwise.evaluate();
+        }
+
+        @Override
+        ExpressionNode fold() {
+            if (condition instanceof Literal literal && literal.value instanceof Boolean b) {
+                return b ? then : otherwise;
+            }
+            return this;
+        }
+
+        @Override
+        ValueType valueType() {
+            return then.valueType() == otherwise.valueType() ? then.valueType() : ValueType.OTHER;
+        }
+
+        @Override
+        void emit(BytecodeCompiler.Emitter out) {
+            MethodVisitor mv = out.visitor();
+            Label isFalse = new Label();
+            Label end = new Label();
+
+            condition.emit(out);
+            out.castToBoolean(token);
+            mv.visitJumpInsn(Opcodes.IFEQ, isFalse);
+            then.emit(out);
+            mv.visitJumpInsn(Opcodes.GOTO, end);
+            mv.visitLabel(isFalse);
+            otherwise.emit(out);
+            mv.visitLabel(end);
+        }
+    }
+}
@@ -4,7 +4,6 @@ import org.antlr.v4.runtime.Parser;
 import org.antlr.v4.runtime.ParserRuleContext;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -17,8 +16,12 @@ import java.util.List;
 import java.util.Objects;
 
 /**
- * ANTLR4 parse tree listener that evaluate logical and binary
- * expressions accordingly to grammar rules.
+ * ANTLR4 parse tree listener that compiles logical and binary expressions
+ * accordingly to grammar rules into a tree of {@link ExpressionNode}s.
+ * Variables and functions are resolved once at compile time so that the
+ * resulting tree can be evaluated repeatedly without parsing. Constant
+ * sub-expressions, including calls to pure functions with literal arguments,
+ * are folded into literals at compile time.
  *
  * @author Kai Niemi
  */
@@ -31,161 +34,129 @@ public class ExpressionParseTreeListener extends ExpressionParserBaseListener {
 
     private final ExpressionRegistry registry;
 
-    private final Deque<Object> stack = new ArrayDeque<>();
-
-    private final Deque<Object> binaryOutcome = new ArrayDeque<>();
+    private final Deque<ExpressionNode> stack = new ArrayDeque<>();
 
     public ExpressionParseTreeListener(Parser parser, ExpressionRegistry registry) {
         this.parser = parser;
         this.registry = registry;
     }
 
-    public Object popFinal() {
-        if (!binaryOutcome.isEmpty()) {
-            Boolean top = pop(Boolean.class);
-            return top ? binaryOutcome.getLast() : binaryOutcome.getFirst();
-        }
-        return pop(Object.class);
-    }
-
-    private void push(Object o) {
-        if (o instanceof Number && !(o instanceof BigDecimal)) {
-            this.stack.push(new BigDecimal(Objects.toString(o)));
-        } else {
-            this.stack.push(o);
-        }
+    public CompiledExpression popFinal() {
+        return pop();
     }
 
-    private <T> T pop(Class<T> type) {
-        Object top = this.stack.pop();
-        try {
-            return type.cast(top);
-        } catch (ClassCastException e) {
-            throw ExpressionException.from(parser, "Cannot cast '" + top + "' of type "
-                    + top.getClass().getSimpleName() + " into " + type.getSimpleName());
-        }
+    private void push(ExpressionNode node) {
+        this.stack.push(node.fold());
     }
 
-    private <T> T pop(Class<T> type, ParserRuleContext ctx) {
-        Object top = this.stack.pop();
-        try {
-            return type.cast(top);
-        } catch (ClassCastException e) {
-            throw ExpressionException.from(parser, "Cannot cast '" + top + "' of type "
-                    + top.getClass().getSimpleName() + " into " + type.getSimpleName(), ctx.getStop());
-        }
+    private ExpressionNode pop() {
+        return this.stack.pop();
     }
 
-    private <T> void compareAndPush(ExpressionParser.Comp_operatorContext op,
-                                    Comparable<T> left, T right) {
+    private ExpressionNode.ComparisonOperator comparisonOperator(ExpressionParser.Comp_operatorContext op) {
         if (Objects.nonNull(op.GT())) {
-            push(left.compareTo(right) > 0);
+            return ExpressionNode.ComparisonOperator.GT;
         } else if (Objects.nonNull(op.GE())) {
-            push(left.compareTo(right) >= 0);
+            return ExpressionNode.ComparisonOperator.GE;
         } else if (Objects.nonNull(op.LT())) {
-            push(left.compareTo(right) < 0);
+            return ExpressionNode.ComparisonOperator.LT;
         } else if (Objects.nonNull(op.LE())) {
-            push(left.compareTo(right) <= 0);
+            return ExpressionNode.ComparisonOperator.LE;
         } else if (Objects.nonNull(op.EQ())) {
-            push(left.compareTo(right) == 0);
+            return ExpressionNode.ComparisonOperator.EQ;
         } else if (Objects.nonNull(op.NE())) {
-            push(left.compareTo(right) != 0);
-        } else {
-            throw ExpressionException.from(parser,
-                    "Unknown comparison operator: " + op.getText(), op.getStop());
+            return ExpressionNode.ComparisonOperator.NE;
         }
+        throw ExpressionException.from(parser,
+                "Unknown comparison operator: " + op.getText(), op.getStop());
+    }
+
+    private void compareAndPush(ExpressionParser.Comp_operatorContext op, Class<?> type, ParserRuleContext ctx) {
+        ExpressionNode right = pop();
+        ExpressionNode left = pop();
+
+        push(new ExpressionNode.Comparison(comparisonOperator(op), left, right, type, ctx.getStop()));
+    }
+
+    private void arithmeticAndPush(ExpressionNode.ArithmeticOperator operator, ParserRuleContext ctx) {
+        ExpressionNode right = pop();
+        ExpressionNode left = pop();
+
+        push(new ExpressionNode.Arithmetic(operator, left, right, ctx.getStop()));
     }
 
     @Override
     public void exitComparisonExpressionStringList(ExpressionParser.ComparisonExpressionStringListContext ctx) {
-        boolean match = false;
-        String key = (String) stack.pollLast();
-
-        while (!stack.isEmpty()) {
-            String v = pop(String.class, ctx);
-            if (Objects.requireNonNull(key).equals(v)) {
-                match = true;
-            }
+        List<ExpressionNode> values = new ArrayList<>();
+
+        if (ctx.right instanceof ExpressionParser.StringArgumentListContext list) {
+            list.stringLiteral().forEach(literal -> values.add(pop()));
+            Collections.reverse(values);
+        } else if (ctx.right instanceof ExpressionParser.StringListVariableContext variable) {
+            String id = variable.Identifier().getText();
+            values.add(new ExpressionNode.Literal(registry.findVariable(id)
+                    .orElseThrow(() -> ExpressionException.from(parser, "No such variable: " + id))));
         }
 
-        push(match);
+        ExpressionNode key = pop();
+
+        push(new ExpressionNode.InList(key, values, ctx.getStop()));
+    }
+
+    @Override
+    public void exitComparisonExpressionString(ExpressionParser.ComparisonExpressionStringContext ctx) {
+        compareAndPush(ctx.op, String.class, ctx);
     }
 
     @Override
     public void exitArithmeticMultiplicationOrDivision(
             ExpressionParser.ArithmeticMultiplicationOrDivisionContext ctx) {
-        BigDecimal right = pop(BigDecimal.class, ctx);
-        BigDecimal left = pop(BigDecimal.class, ctx);
-
-        if (Objects.nonNull(ctx.MULT())) {
-            push(left.multiply(right));
-        } else {
-            push(left.divide(right, RoundingMode.HALF_EVEN));
-        }
+        arithmeticAndPush(Objects.nonNull(ctx.MULT())
+                ? ExpressionNode.ArithmeticOperator.MULT
+                : ExpressionNode.ArithmeticOperator.DIV, ctx);
     }
 
     @Override
     public void exitStringPlus(ExpressionParser.StringPlusContext ctx) {
-        String right = pop(String.class, ctx);
-        String left = pop(String.class, ctx);
+        ExpressionNode right = pop();
+        ExpressionNode left = pop();
 
-        push(left + right);
+        push(new ExpressionNode.Concat(left, right, ctx.getStop()));
     }
 
     @Override
     public void exitArithmeticPlusOrMinus(ExpressionParser.ArithmeticPlusOrMinusContext ctx) {
-        BigDecimal right = pop(BigDecimal.class, ctx);
-        BigDecimal left = pop(BigDecimal.class, ctx);
-
-        if (Objects.nonNull(ctx.PLUS())) {
-            push(left.add(right));
-        } else {
-            push(left.subtract(right));
-        }
+        arithmeticAndPush(Objects.nonNull(ctx.PLUS())
+                ? ExpressionNode.ArithmeticOperator.PLUS
+                : ExpressionNode.ArithmeticOperator.MINUS, ctx);
     }
 
     @Override
     public void exitArithmeticUnaryMinusOrPlus(ExpressionParser.ArithmeticUnaryMinusOrPlusContext ctx) {
-        BigDecimal right = pop(BigDecimal.class, ctx);
+        ExpressionNode right = pop();
 
         if (Objects.nonNull(ctx.MINUS())) {
-            push(right.negate());
+            push(new ExpressionNode.Negate(right, ctx.getStop()));
         } else {
-            push(right);
+            push(new ExpressionNode.Numeric(right, ctx.getStop()));
         }
     }
 
     @Override
     public void exitArithmeticPower(ExpressionParser.ArithmeticPowerContext ctx) {
-        BigDecimal right = pop(BigDecimal.class, ctx);
-        BigDecimal left = pop(BigDecimal.class, ctx);
-
-        if (right.stripTrailingZeros().scale() > 0) {
-            throw ExpressionException.from(parser,
-                    "Floating-point power exponents are not supported: " + right, ctx.getStop());
-        }
-
-        push(left.pow(right.intValue()));
+        arithmeticAndPush(ExpressionNode.ArithmeticOperator.POW, ctx);
     }
 
     @Override
     public void exitArithmeticMinOrMax(ExpressionParser.ArithmeticMinOrMaxContext ctx) {
-        BigDecimal right = pop(BigDecimal.class, ctx);
-        BigDecimal left = pop(BigDecimal.class, ctx);
-
-        if (Objects.nonNull(ctx.MIN())) {
-            push(left.min(right));
-        } else {
-            push(left.max(right));
-        }
+        arithmeticAndPush(Objects.nonNull(ctx.MIN())
+                ? ExpressionNode.ArithmeticOperator.MIN
+                : ExpressionNode.ArithmeticOperator.MAX, ctx);
     }
 
     @Override
     public void exitArithmeticModulus(ExpressionParser.ArithmeticModulusContext ctx) {
-        BigDecimal right = pop(BigDecimal.class, ctx);
-        BigDecimal left = pop(BigDecimal.class, ctx);
-
-        push(left.remainder(right));
+        arithmeticAndPush(ExpressionNode.ArithmeticOperator.MOD, ctx);
     }
 
     @Override
@@ -193,16 +164,16 @@ public class ExpressionParseTreeListener extends ExpressionParserBaseListener {
         String text = ctx.getText();
 
         if (!text.isEmpty()) {
-            push(text.substring(1, text.length() - 1));
+            push(new ExpressionNode.Literal(text.substring(1, text.length() - 1)));
         } else {
-            push("");
+            push(new ExpressionNode.Literal(""));
         }
     }
 
     @Override
     public void exitDecimalLiteral(ExpressionParser.DecimalLiteralContext ctx) {
         try {
-            push(new BigDecimal(ctx.getText()));
+            push(new ExpressionNode.Literal(new BigDecimal(ctx.getText())));
         } catch (NumberFormatException e) {
             throw ExpressionException.from(parser, e, ctx.getStop());
         }
@@ -212,7 +183,7 @@ public class ExpressionParseTreeListener extends ExpressionParserBaseListener {
     public void exitDateTimeLiteral(ExpressionParser.DateTimeLiteralContext ctx) {
         try {
             String dt = stripQuotes(ctx.DateTimeLiteral().getText());
-            push(LocalDateTime.parse(dt.replace(" ", "T")));
+            push(new ExpressionNode.Literal(LocalDateTime.parse(dt.replace(" ", "T"))));
         } catch (DateTimeParseException e) {
             throw ExpressionException.from(parser, e, ctx.getStop());
         }
@@ -221,14 +192,14 @@ public class ExpressionParseTreeListener extends ExpressionParserBaseListener {
     @Override
     public void exitBooleanLiteral(ExpressionParser.BooleanLiteralContext ctx) {
         String b = ctx.BooleanLiteral().getText();
-        push(Boolean.parseBoolean(b));
+        push(new ExpressionNode.Literal(Boolean.parseBoolean(b)));
     }
 
     @Override
     public void exitDateLiteral(ExpressionParser.DateLiteralContext ctx) {
         try {
             String dt = stripQuotes(ctx.DateLiteral().getText());
-            push(LocalDate.parse(dt));
+            push(new ExpressionNode.Literal(LocalDate.parse(dt)));
         } catch (DateTimeParseException e) {
             throw ExpressionException.from(parser, e, ctx.getStop());
         }
@@ -238,7 +209,7 @@ public class ExpressionParseTreeListener extends ExpressionParserBaseListener {
     public void exitTimeLiteral(ExpressionParser.TimeLiteralContext ctx) {
         try {
             String dt = stripQuotes(ctx.TimeLiteral().getText());
-            push(LocalTime.parse(dt));
+            push(new ExpressionNode.Literal(LocalTime.parse(dt)));
         } catch (DateTimeParseException e) {
             throw ExpressionException.from(parser, e, ctx.getStop());
         }
@@ -246,97 +217,77 @@ public class ExpressionParseTreeListener extends ExpressionParserBaseListener {
 
     @Override
     public void exitFunction(ExpressionParser.FunctionContext ctx) {
-        List<Object> args = new ArrayList<>();
+        List<ExpressionNode> args = new ArrayList<>();
 
-        try {
-            ctx.functionArguments().functionArgument()
-                    .forEach(expressionContext -> args.add(pop(Object.class, ctx)));
+        ctx.functionArguments().functionArgument()
+                .forEach(expressionContext -> args.add(pop()));
 
-            Collections.reverse(args);
+        Collections.reverse(args);
 
-            String id = ctx.Identifier().getText();
+        String id = ctx.Identifier().getText();
 
-            FunctionDef functionDef = registry.findFunction(id).orElseThrow(() ->
-                    ExpressionException.from(parser, "No such function: " + id));
+        FunctionDef functionDef = registry.findFunction(id).orElseThrow(() ->
+                ExpressionException.from(parser, "No such function: " + id));
 
-            Object rv = functionDef.getFunction()
-                    .call(args.toArray());
-            push(rv);
-        } catch (Exception e) {
-            throw ExpressionException.from(parser, e, ctx.getStop());
-        }
+        push(new ExpressionNode.FunctionCall(functionDef, args, ctx.getStop()));
     }
 
     @Override
     public void exitIdentifier(ExpressionParser.IdentifierContext ctx) {
         String id = ctx.Identifier().getText();
-        push(registry.findVariable(id)
-                .orElseThrow(() -> ExpressionException.from(parser, "No such variable: " + id)));
+        push(new ExpressionNode.Literal(registry.findVariable(id)
+                .orElseThrow(() -> ExpressionException.from(parser, "No such variable: " + id))));
     }
 
     @Override
-    public void exitOutcome(ExpressionParser.OutcomeContext ctx) {
-        binaryOutcome.push(pop(Object.class, ctx));
+    public void exitConditional_expr(ExpressionParser.Conditional_exprContext ctx) {
+        ExpressionNode otherwise = pop();
+        ExpressionNode then = pop();
+        ExpressionNode condition = pop();
+
+        push(new ExpressionNode.Conditional(condition, then, otherwise, ctx.getStop()));
     }
 
     @Override
     public void exitLogicalExpressionAnd(ExpressionParser.LogicalExpressionAndContext ctx) {
-        Boolean right = pop(Boolean.class, ctx);
-        Boolean left = pop(Boolean.class, ctx);
+        ExpressionNode right = pop();
+        ExpressionNode left = pop();
 
-        push(left && right);
+        push(new ExpressionNode.And(left, right, ctx.getStop()));
     }
 
     @Override
     public void exitLogicalExpressionNot(ExpressionParser.LogicalExpressionNotContext ctx) {
-        Boolean right = pop(Boolean.class, ctx);
+        ExpressionNode right = pop();
 
-        push(!right);
+        push(new ExpressionNode.Not(right, ctx.getStop()));
     }
 
     @Override
     public void exitLogicalExpressionOr(ExpressionParser.LogicalExpressionOrContext ctx) {
-        Boolean right = pop(Boolean.class, ctx);
-        Boolean left = pop(Boolean.class, ctx);
+        ExpressionNode right = pop();
+        ExpressionNode left = pop();
 
-        push(left || right);
+        push(new ExpressionNode.Or(left, right, ctx.getStop()));
     }
 
     @Override
     public void exitComparisonExpressionOperand(ExpressionParser.ComparisonExpressionOperandContext ctx) {
-        Object right = pop(Object.class, ctx);
-        @SuppressWarnings("unchecked")
-        Comparable<Object> left = pop(Comparable.class, ctx);
-
-        compareAndPush(ctx.op, left, right);
-    }
-
-    @Override
-    public void exitComparison_operand(ExpressionParser.Comparison_operandContext ctx) {
-        push(pop(Object.class, ctx));
+        compareAndPush(ctx.op, Comparable.class, ctx);
     }
 
     @Override
     public void exitComparisonExpressionDate(ExpressionParser.ComparisonExpressionDateContext ctx) {
-        LocalDate right = pop(LocalDate.class, ctx);
-        LocalDate left = pop(LocalDate.class, ctx);
-
-        compareAndPush(ctx.op, left, right);
+        compareAndPush(ctx.op, LocalDate.class, ctx);
     }
 
     @Override
     public void exitComparisonExpressionTime(ExpressionParser.ComparisonExpressionTimeContext ctx) {
-        LocalTime right = pop(LocalTime.class, ctx);
-        LocalTime left = pop(LocalTime.class, ctx);
-
-        compareAndPush(ctx.op, left, right);
+        compareAndPush(ctx.op, LocalTime.class, ctx);
     }
 
     @Override
     public void exitComparisonExpressionDateTime(ExpressionParser.ComparisonExpressionDateTimeContext ctx) {
-        LocalDateTime right = pop(LocalDateTime.class, ctx);
-        LocalDateTime left = pop(LocalDateTime.class, ctx);
-
-        compareAndPush(ctx.op, left, right);
+        compareAndPush(ctx.op, LocalDateTime.class, ctx);
     }
 }
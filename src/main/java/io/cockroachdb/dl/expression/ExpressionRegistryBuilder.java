@@ -9,7 +9,7 @@ import java.time.temporal.Temporal;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 import javax.sql.DataSource;
 
@@ -18,6 +18,9 @@ import org.springframework.util.StringUtils;
 import io.cockroachdb.dl.util.Money;
 import io.cockroachdb.dl.util.Networking;
 import io.cockroachdb.dl.util.RandomData;
+import io.cockroachdb.dl.util.RandomSampler;
+import io.cockroachdb.dl.util.RandomSource;
+import io.cockroachdb.dl.util.ZipfSampler;
 import io.cockroachdb.dl.util.wgs.Latitude;
 import io.cockroachdb.dl.util.wgs.Longitude;
 
@@ -25,6 +28,18 @@ public final class ExpressionRegistryBuilder {
     private ExpressionRegistryBuilder() {
     }
 
+    /**
+     * Returns an immutable registry with all built-in variables and functions, meant to be
+     * built once and shared between all callers. Use an {@link OverlayExpressionRegistry}
+     * on top of the shared registry to add variables or functions locally.
+     *
+     * @param dataSource the data source used by SQL functions, can be null
+     * @return an immutable registry
+     */
+    public static ExpressionRegistry buildImmutable(DataSource dataSource) {
+        return ImmutableExpressionRegistry.copyOf(build(dataSource));
+    }
+
     public static ExpressionRegistry build(DataSource dataSource) {
         ExpressionRegistry registry = new DefaultExpressionRegistry();
 
@@ -48,6 +63,7 @@ public final class ExpressionRegistryBuilder {
                 .withId("sin")
                 .withDescription("Returns the trigonometric sine of an angle.")
                 .withReturnValue(Double.class)
+                .withPure(true)
                 .withFunction(args -> {
                     Number arg1 = (Number) args[0];
                     return Math.sin(arg1.doubleValue());
@@ -58,6 +74,7 @@ public final class ExpressionRegistryBuilder {
                 .withId("cos")
                 .withDescription("Returns the trigonometric cosine of an angle.")
                 .withReturnValue(Double.class)
+                .withPure(true)
                 .withFunction(args -> {
                     Number arg1 = (Number) args[0];
                     return Math.cos(arg1.doubleValue());
@@ -68,6 +85,7 @@ public final class ExpressionRegistryBuilder {
                 .withId("tan")
                 .withDescription("Returns the trigonometric tangent of an angle.")
                 .withReturnValue(Double.class)
+                .withPure(true)
                 .withFunction(args -> {
                     Number arg1 = (Number) args[0];
                     return Math.tan(arg1.doubleValue());
@@ -78,6 +96,7 @@ public final class ExpressionRegistryBuilder {
                 .withId("log")
                 .withDescription("Returns the base-e log of a value.")
                 .withReturnValue(Double.class)
+                .withPure(true)
                 .withFunction(args -> {
                     Number arg1 = (Number) args[0];
                     return Math.log(arg1.doubleValue());
@@ -88,6 +107,7 @@ public final class ExpressionRegistryBuilder {
                 .withId("log10")
                 .withDescription("Returns the base-10 log of a value.")
                 .withReturnValue(Double.class)
+                .withPure(true)
                 .withFunction(args -> {
                     Number arg1 = (Number) args[0];
                     return Math.log10(arg1.doubleValue());
@@ -98,6 +118,7 @@ public final class ExpressionRegistryBuilder {
                 .withId("pow")
                 .withDescription("Returns the value of X raised to the power of Y.")
                 .withReturnValue(Double.class)
+                .withPure(true)
                 .withFunction(args -> {
                     Number arg1 = (Number) args[0];
                     Number arg2 = (Number) args[1];
@@ -109,6 +130,7 @@ public final class ExpressionRegistryBuilder {
                 .withId("sqrt")
                 .withDescription("Returns the square root X.")
                 .withReturnValue(Double.class)
+                .withPure(true)
                 .withFunction(args -> {
                     Number arg1 = (Number) args[0];
                     return Math.sqrt(arg1.doubleValue());
@@ -120,6 +142,7 @@ public final class ExpressionRegistryBuilder {
                 .withId("latitudeToDMS")
                 .withDescription("Converts a decimal latitude to DMS format.")
                 .withReturnValue(String.class)
+                .withPure(true)
                 .withFunction(args -> {
                     Number arg1 = (Number) args[0];
                     return Latitude.fromDecimal(arg1.doubleValue());
@@ -130,6 +153,7 @@ public final class ExpressionRegistryBuilder {
                 .withId("longitudeToDMS")
                 .withDescription("Converts a decimal longitude to DMS format.")
                 .withReturnValue(String.class)
+                .withPure(true)
                 .withFunction(args -> {
                     Number arg1 = (Number) args[0];
                     return Longitude.fromDecimal(arg1.doubleValue());
@@ -144,7 +168,7 @@ public final class ExpressionRegistryBuilder {
                 .withDescription("Returns a random latitude in decimal format.")
                 .withReturnValue(Double.class)
                 .withFunction(args -> {
-                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    RandomGenerator random = RandomSource.current();
                     return random.nextBoolean()
                             ? random.nextDouble(0, 90)
                             : -random.nextDouble(0, 90);
@@ -156,7 +180,7 @@ public final class ExpressionRegistryBuilder {
                 .withDescription("Returns a random longitude in decimal format.")
                 .withReturnValue(Double.class)
                 .withFunction(args -> {
-                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    RandomGenerator random = RandomSource.current();
                     return random.nextBoolean()
                             ? random.nextDouble(0, 180)
                             : -random.nextDouble(0, 180);
@@ -404,6 +428,10 @@ public final class ExpressionRegistryBuilder {
                 .withDescription("Select a random item from a value collection.")
                 .withReturnValue(Object.class)
                 .withFunction(RandomData::selectRandom)
+                .withBinder(args -> {
+                    RandomSampler<Object> sampler = RandomSampler.uniform(Arrays.asList(args));
+                    return none -> sampler.next();
+                })
                 .build());
         registry.addFunction(FunctionDef.builder()
                 .withCategory("random")
@@ -412,6 +440,83 @@ public final class ExpressionRegistryBuilder {
                 .withDescription("Select a random item from a value collection.")
                 .withReturnValue(Object.class)
                 .withFunction(args -> RandomData.selectRandom(Arrays.asList(args)))
+                .withBinder(args -> {
+                    RandomSampler<Object> sampler = RandomSampler.uniform(Arrays.asList(args));
+                    return none -> sampler.next();
+                })
+                .build());
+        registry.addFunction(FunctionDef.builder()
+                .withCategory("random")
+                .withId("zipf")
+                .withArgs(List.of("n: long", "s: double"))
+                .withDescription("Generate a Zipf distributed rank between 1 and n where 1 is the most frequent and s > 0 the skew.")
+                .withReturnValue(Long.class)
+                .withFunction(args -> {
+                    Number arg1 = (Number) args[0];
+                    Number arg2 = (Number) args[1];
+                    return new ZipfSampler(arg1.longValue(), arg2.doubleValue()).sample();
+                })
+                .withBinder(args -> {
+                    Number arg1 = (Number) args[0];
+                    Number arg2 = (Number) args[1];
+                    ZipfSampler sampler = new ZipfSampler(arg1.longValue(), arg2.doubleValue());
+                    return none -> sampler.sample();
+                })
+                .build());
+        registry.addFunction(FunctionDef.builder()
+                .withCategory("random")
+                .withId("latest")
+                .withArgs(List.of("n: long", "(optional) s: double"))
+                .withDescription("Generate a number between 1 and n where the latest (highest) are Zipf distributed most frequent, with default skew 0.99.")
+                .withReturnValue(Long.class)
+                .withFunction(args -> {
+                    Number arg1 = (Number) args[0];
+                    double s = args.length > 1 ? ((Number) args[1]).doubleValue() : 0.99;
+                    return arg1.longValue() + 1 - new ZipfSampler(arg1.longValue(), s).sample();
+                })
+                .withBinder(args -> {
+                    Number arg1 = (Number) args[0];
+                    double s = args.length > 1 ? ((Number) args[1]).doubleValue() : 0.99;
+                    ZipfSampler sampler = new ZipfSampler(arg1.longValue(), s);
+                    return none -> arg1.longValue() + 1 - sampler.sample();
+                })
+                .build());
+        registry.addFunction(FunctionDef.builder()
+                .withCategory("random")
+                .withId("hotspot")
+                .withArgs(List.of("n: long", "hotFraction: double", "hotProbability: double"))
+                .withDescription("Generate a number between 1 and n where the first hotFraction of the numbers are picked with hotProbability.")
+                .withReturnValue(Long.class)
+                .withFunction(args -> {
+                    Number arg1 = (Number) args[0];
+                    Number arg2 = (Number) args[1];
+                    Number arg3 = (Number) args[2];
+                    return RandomData.randomHotspot(arg1.longValue(), arg2.doubleValue(), arg3.doubleValue(),
+                            RandomSource.current());
+                })
+                .build());
+        registry.addFunction(FunctionDef.builder()
+                .withCategory("random")
+                .withId("gaussian")
+                .withArgs(List.of("mean: double", "stddev: double"))
+                .withDescription("Generate a normally distributed double with given mean and standard deviation.")
+                .withReturnValue(Double.class)
+                .withFunction(args -> {
+                    Number arg1 = (Number) args[0];
+                    Number arg2 = (Number) args[1];
+                    return RandomData.randomGaussian(arg1.doubleValue(), arg2.doubleValue());
+                })
+                .build());
+        registry.addFunction(FunctionDef.builder()
+                .withCategory("random")
+                .withId("exponential")
+                .withArgs(List.of("lambda: double"))
+                .withDescription("Generate an exponentially distributed double with given rate, i.e. a mean of 1/lambda.")
+                .withReturnValue(Double.class)
+                .withFunction(args -> {
+                    Number arg1 = (Number) args[0];
+                    return RandomData.randomExponential(arg1.doubleValue());
+                })
                 .build());
     }
 
@@ -422,7 +527,7 @@ public final class ExpressionRegistryBuilder {
                 .withId("randomUUID")
                 .withDescription("Generate a random first name.")
                 .withReturnValue(UUID.class)
-                .withFunction(args -> UUID.randomUUID())
+                .withFunction(args -> RandomSource.randomUUID())
                 .build());
     }
 
@@ -446,6 +551,7 @@ public final class ExpressionRegistryBuilder {
                 .withId("localIPv4")
                 .withDescription("Return local IPv6 address (behind NAT).")
                 .withReturnValue(String.class)
+                .withPure(true)
                 .withFunction(args -> Networking.getLocalIP())
                 .build());
         registry.addFunction(FunctionDef.builder()
@@ -453,6 +559,7 @@ public final class ExpressionRegistryBuilder {
                 .withId("publicIPv4")
                 .withDescription("Return public IPv6 address.")
                 .withReturnValue(String.class)
+                .withPure(true)
                 .withFunction(args -> Networking.getPublicIP())
                 .build());
     }
@@ -512,6 +619,7 @@ public final class ExpressionRegistryBuilder {
                         "unit: java.time.temporal.ChronoUnit"))
                 .withDescription("Add a value to a temporal object.")
                 .withReturnValue(Temporal.class)
+                .withPure(true)
                 .withFunction(args -> {
                     Temporal temporal = (Temporal) args[0];
                     Number amount = (Number) args[1];
@@ -529,6 +637,7 @@ public final class ExpressionRegistryBuilder {
                 .withArgs(List.of("str: String"))
                 .withDescription("Convert a string to lowercase.")
                 .withReturnValue(String.class)
+                .withPure(true)
                 .withFunction(args ->
                         ((String) args[0]).toLowerCase())
                 .build());
@@ -538,6 +647,7 @@ public final class ExpressionRegistryBuilder {
                 .withArgs(List.of("str: String"))
                 .withDescription("Convert a string to uppercase.")
                 .withReturnValue(String.class)
+                .withPure(true)
                 .withFunction(args ->
                         ((String) args[0]).toUpperCase())
                 .build());
@@ -547,6 +657,7 @@ public final class ExpressionRegistryBuilder {
                 .withArgs(List.of("str: String"))
                 .withDescription("Capitalize a string.")
                 .withReturnValue(String.class)
+                .withPure(true)
                 .withFunction(args ->
                         StringUtils.capitalize((String) args[0]).toLowerCase())
                 .build());
@@ -556,6 +667,7 @@ public final class ExpressionRegistryBuilder {
                 .withArgs(List.of("str: String"))
                 .withDescription("Trim a string from leading and tailing whitespace.")
                 .withReturnValue(String.class)
+                .withPure(true)
                 .withFunction(args ->
                         ((String) args[0]).toLowerCase().trim())
                 .build());
@@ -565,6 +677,7 @@ public final class ExpressionRegistryBuilder {
                 .withArgs(List.of("arr: byte[]"))
                 .withDescription("Encode byte array to base64.")
                 .withReturnValue(String.class)
+                .withPure(true)
                 .withFunction(args -> {
                     byte[] arr = (byte[]) args[0];
                     return RandomData.toBase64(arr);
@@ -0,0 +1,21 @@
+package io.cockroachdb.dl.expression;
+
+/**
+ * An interface used by {@link ExpressionParseTreeListener} for binding a
+ * function to constant arguments once at compile time, for example to
+ * precompute lookup tables, rather than passing the arguments on each call.
+ *
+ * @author Kai Niemi
+ * @see FunctionDef.Builder#withBinder(FunctionBinder)
+ */
+@FunctionalInterface
+public interface FunctionBinder {
+    /**
+     * Bind the function to given arguments.
+     *
+     * @param args constant arguments passed in expression
+     * @return a function invoked without arguments
+     * @throws Exception on any exception error
+     */
+    Function bind(Object... args) throws Exception;
+}
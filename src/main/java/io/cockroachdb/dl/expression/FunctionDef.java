@@ -52,6 +52,32 @@ public class FunctionDef {
             return this;
         }
 
+        /**
+         * Mark the function as pure, meaning it returns the same result for the same
+         * arguments during the lifetime of the process and has no side effects. Calls
+         * to pure functions with constant arguments are evaluated once when compiling
+         * an expression rather than per evaluation.
+         *
+         * @param pure true if the function is pure
+         * @return this builder
+         */
+        public Builder withPure(boolean pure) {
+            instance.pure = pure;
+            return this;
+        }
+
+        /**
+         * Set a binder for creating a specialized function when all arguments
+         * are constant, which is invoked once when compiling an expression.
+         *
+         * @param binder the function binder
+         * @return this builder
+         */
+        public Builder withBinder(FunctionBinder binder) {
+            instance.binder = binder;
+            return this;
+        }
+
         public FunctionDef build() {
             if (!StringUtils.hasLength(instance.id)) {
                 throw new IllegalStateException("id is required");
@@ -75,6 +101,10 @@ public class FunctionDef {
 
     private Function function;
 
+    private boolean pure;
+
+    private FunctionBinder binder;
+
     private FunctionDef() {
     }
 
@@ -106,6 +136,14 @@ public class FunctionDef {
         return function;
     }
 
+    public boolean isPure() {
+        return pure;
+    }
+
+    public FunctionBinder getBinder() {
+        return binder;
+    }
+
     public String toSignature() {
         StringBuilder sb = new StringBuilder(getId());
         sb.append("(");
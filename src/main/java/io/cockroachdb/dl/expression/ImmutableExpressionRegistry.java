@@ -0,0 +1,102 @@
+package io.cockroachdb.dl.expression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * An immutable registry holding a snapshot of the variables and functions of
+ * another registry. Function identifiers with aliases are resolved once when
+ * the snapshot is taken, and categories are grouped upfront. Safe to share
+ * between threads.
+ *
+ * @author Kai Niemi
+ * @see OverlayExpressionRegistry
+ */
+public final class ImmutableExpressionRegistry implements ExpressionRegistry {
+    /**
+     * Take an immutable snapshot of given registry.
+     *
+     * @param registry the registry to copy
+     * @return an immutable registry
+     */
+    public static ImmutableExpressionRegistry copyOf(ExpressionRegistry registry) {
+        if (registry instanceof ImmutableExpressionRegistry immutableRegistry) {
+            return immutableRegistry;
+        }
+        return new ImmutableExpressionRegistry(registry);
+    }
+
+    private final Map<String, Object> variables;
+
+    private final Map<String, FunctionDef> functions;
+
+    private final Map<String, List<FunctionDef>> categories;
+
+    private ImmutableExpressionRegistry(ExpressionRegistry registry) {
+        Map<String, Object> variables = new LinkedHashMap<>();
+        registry.variableNames().forEach(id -> registry.findVariable(id)
+                .ifPresent(value -> variables.put(id, value)));
+
+        Map<String, FunctionDef> functions = new LinkedHashMap<>();
+        registry.functionDefinitions().forEach(functionDef -> Arrays.stream(functionDef.getId().split(";"))
+                .forEach(id -> functions.putIfAbsent(id, functionDef)));
+
+        Map<String, List<FunctionDef>> categories = new LinkedHashMap<>();
+        functions.values().forEach(functionDef -> categories
+                .computeIfAbsent(functionDef.getCategory(), k -> new ArrayList<>()).add(functionDef));
+
+        this.variables = Collections.unmodifiableMap(variables);
+        this.functions = Collections.unmodifiableMap(functions);
+        this.categories = Collections.unmodifiableMap(categories);
+    }
+
+    @Override
+    public Optional<Object> findVariable(String id) {
+        return Optional.ofNullable(variables.get(id));
+    }
+
+    @Override
+    public Optional<FunctionDef> findFunction(String id) {
+        return Optional.ofNullable(functions.get(id));
+    }
+
+    @Override
+    public ExpressionRegistry addVariable(String id, Object value) {
+        throw new UnsupportedOperationException("Registry is immutable");
+    }
+
+    @Override
+    public ExpressionRegistry addFunction(String id, Function function) {
+        throw new UnsupportedOperationException("Registry is immutable");
+    }
+
+    @Override
+    public ExpressionRegistry addFunction(FunctionDef functionDef) {
+        throw new UnsupportedOperationException("Registry is immutable");
+    }
+
+    @Override
+    public Iterable<String> variableNames() {
+        return variables.keySet();
+    }
+
+    @Override
+    public Iterable<String> functionCategories() {
+        return categories.keySet();
+    }
+
+    @Override
+    public Iterable<FunctionDef> functionDefinitions(String category) {
+        return categories.getOrDefault(category, List.of());
+    }
+
+    @Override
+    public Iterable<FunctionDef> functionDefinitions() {
+        return functions.values();
+    }
+}
@@ -0,0 +1,103 @@
+package io.cockroachdb.dl.expression;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A mutable registry layered on top of a shared parent registry, typically the
+ * immutable built-in registry. Only variables and functions added to the overlay
+ * are held locally, such as the row number function of a single producer, which
+ * makes it cheap to create one per table or request.
+ * <p>
+ * Same as with {@link DefaultExpressionRegistry}, identifiers already defined
+ * (either in the parent or the overlay) are not replaced.
+ *
+ * @author Kai Niemi
+ * @see ExpressionRegistryBuilder#buildImmutable(javax.sql.DataSource)
+ */
+public class OverlayExpressionRegistry implements ExpressionRegistry {
+    private final ExpressionRegistry parent;
+
+    private final Map<String, Object> variables = new HashMap<>();
+
+    private final Map<String, FunctionDef> functions = new HashMap<>();
+
+    public OverlayExpressionRegistry(ExpressionRegistry parent) {
+        this.parent = parent;
+    }
+
+    @Override
+    public OverlayExpressionRegistry addVariable(String id, Object value) {
+        if (parent.findVariable(id).isEmpty()) {
+            this.variables.putIfAbsent(id, value);
+        }
+        return this;
+    }
+
+    @Override
+    public OverlayExpressionRegistry addFunction(String id, Function function) {
+        return addFunction(FunctionDef.builder()
+                .withId(id)
+                .withFunction(function)
+                .build());
+    }
+
+    @Override
+    public OverlayExpressionRegistry addFunction(FunctionDef functionDef) {
+        Arrays.stream(functionDef.getId().split(";"))
+                .filter(id -> parent.findFunction(id).isEmpty())
+                .forEach(id -> this.functions.putIfAbsent(id, functionDef));
+        return this;
+    }
+
+    @Override
+    public Optional<Object> findVariable(String id) {
+        Object value = variables.get(id);
+        return value != null ? Optional.of(value) : parent.findVariable(id);
+    }
+
+    @Override
+    public Optional<FunctionDef> findFunction(String id) {
+        FunctionDef functionDef = functions.get(id);
+        return functionDef != null ? Optional.of(functionDef) : parent.findFunction(id);
+    }
+
+    @Override
+    public Iterable<String> variableNames() {
+        return concat(parent.variableNames(), variables.keySet());
+    }
+
+    @Override
+    public Iterable<String> functionCategories() {
+        Set<String> categories = new LinkedHashSet<>();
+        parent.functionCategories().forEach(categories::add);
+        functions.values().forEach(functionDef -> categories.add(functionDef.getCategory()));
+        return categories;
+    }
+
+    @Override
+    public Iterable<FunctionDef> functionDefinitions(String category) {
+        return concat(parent.functionDefinitions(category), functions.values()
+                .stream()
+                .filter(functionDef -> category.equals(functionDef.getCategory()))
+                .toList());
+    }
+
+    @Override
+    public Iterable<FunctionDef> functionDefinitions() {
+        return concat(parent.functionDefinitions(), functions.values());
+    }
+
+    private static <T> Iterable<T> concat(Iterable<T> first, Iterable<T> second) {
+        return Stream.concat(StreamSupport.stream(first.spliterator(), false),
+                        StreamSupport.stream(second.spliterator(), false))
+                .collect(Collectors.toList());
+    }
+}
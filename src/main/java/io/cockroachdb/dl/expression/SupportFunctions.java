@@ -9,6 +9,7 @@ import java.util.Arrays;
 import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
 
 import javax.sql.DataSource;
 
@@ -52,50 +53,44 @@ public abstract class SupportFunctions {
     }
 
     public static Function unorderedUniqueRowId(DataSource dataSource) {
-        Deque<Long> uniqueRowIdBuffer = new LinkedList<>();
-
-        return args -> {
-            Number batchSize = (Number) args[0];
-            if (uniqueRowIdBuffer.isEmpty()) {
-                try (Connection conn = dataSource.getConnection();
-                     PreparedStatement ps = conn.prepareStatement(
-                             "select unordered_unique_rowid() from generate_series(1, "
-                                     + batchSize.intValue() + ")")) {
-                    ps.setFetchSize(batchSize.intValue());
-                    try (ResultSet res = ps.executeQuery()) {
-                        while (res.next()) {
-                            uniqueRowIdBuffer.add(res.getLong(1));
-                        }
-                    }
-                } catch (SQLException e) {
-                    throw new IllegalStateException(e);
-                }
-            }
-            return uniqueRowIdBuffer.pop();
-        };
+        return uniqueRowId(dataSource, "unordered_unique_rowid()");
     }
 
     public static Function uniqueRowId(DataSource dataSource) {
-        Deque<Long> uniqueRowIdBuffer = new LinkedList<>();
+        return uniqueRowId(dataSource, "unique_rowid()");
+    }
+
+    private static Function uniqueRowId(DataSource dataSource, String function) {
+        // Shared between threads when registered in a shared registry
+        Deque<Long> uniqueRowIdBuffer = new ConcurrentLinkedDeque<>();
 
         return args -> {
-            Number batchSize = (Number) args[0];
-            if (uniqueRowIdBuffer.isEmpty()) {
-                try (Connection conn = dataSource.getConnection();
-                     PreparedStatement ps = conn.prepareStatement(
-                             "select unique_rowid() from generate_series(1, "
-                                     + batchSize.intValue() + ")")) {
-                    ps.setFetchSize(batchSize.intValue());
-                    try (ResultSet res = ps.executeQuery()) {
-                        while (res.next()) {
-                            uniqueRowIdBuffer.add(res.getLong(1));
+            Long id = uniqueRowIdBuffer.poll();
+            while (id == null) {
+                synchronized (uniqueRowIdBuffer) {
+                    if (uniqueRowIdBuffer.isEmpty()) {
+                        Number batchSize = (Number) args[0];
+                        try (Connection conn = dataSource.getConnection();
+                             PreparedStatement ps = conn.prepareStatement(
+                                     "select " + function + " from generate_series(1, "
+                                             + batchSize.intValue() + ")")) {
+                            ps.setFetchSize(batchSize.intValue());
+                            try (ResultSet res = ps.executeQuery()) {
+                                while (res.next()) {
+                                    uniqueRowIdBuffer.add(res.getLong(1));
+                                }
+                            }
+                        } catch (SQLException e) {
+                            throw new IllegalStateException(e);
+                        }
+                        if (uniqueRowIdBuffer.isEmpty()) {
+                            throw new IllegalStateException("Expected " + batchSize + " rows got 0");
                         }
                     }
-                } catch (SQLException e) {
-                    throw new IllegalStateException(e);
                 }
+                id = uniqueRowIdBuffer.poll();
             }
-            return uniqueRowIdBuffer.pop();
+            return id;
         };
     }
 }
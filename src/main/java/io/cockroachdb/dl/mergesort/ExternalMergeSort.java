@@ -1,31 +1,25 @@
 package io.cockroachdb.dl.mergesort;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.Closeable;
-import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
-import java.util.PriorityQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.output.CountingOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
@@ -54,10 +48,6 @@ public class ExternalMergeSort {
     public static final class Builder {
         private final ExternalMergeSort instance = new ExternalMergeSort();
 
-        private final List<Integer> orderBy = new ArrayList<>();
-
-        private ComparatorType comparatorType;
-
         private String delimiter = ",";
 
         private Builder() {
@@ -78,6 +68,24 @@ public class ExternalMergeSort {
             return this;
         }
 
+        /**
+         * Set the total memory budget in bytes for sorting runs, shared by all chunks.
+         * Each chunk writes as many sorted runs as needed to stay within its share.
+         */
+        public Builder withMemory(long memory) {
+            instance.memory = memory;
+            return this;
+        }
+
+        /**
+         * Set the read buffer size in bytes for each sorted run during the merge. If not
+         * set, the memory budget is divided among the runs, within 64KB to 8MB per run.
+         */
+        public Builder withMergeBufferSize(int mergeBufferSize) {
+            instance.mergeBufferSize = mergeBufferSize;
+            return this;
+        }
+
         public Builder withReplace(boolean replace) {
             instance.replace = replace;
             return this;
@@ -88,12 +96,24 @@ public class ExternalMergeSort {
             return this;
         }
 
+        /**
+         * Set the one-based indexes of the columns to order by as ascending strings,
+         * in order of significance. Lines are ordered as a whole if empty.
+         */
         public Builder withOrderByColumns(List<Integer> indexes) {
-            indexes.forEach(index -> {
-                if (this.orderBy.contains(index)) {
-                    throw new IllegalArgumentException("Duplicate index: " + index);
+            return withOrderBy(indexes.stream().map(SortColumn::of).toList());
+        }
+
+        /**
+         * Set the columns to order by with their key types and directions, in order
+         * of significance. Lines are ordered as a whole if empty.
+         */
+        public Builder withOrderBy(List<SortColumn> columns) {
+            columns.forEach(column -> {
+                if (instance.orderBy.stream().anyMatch(c -> c.column() == column.column())) {
+                    throw new IllegalArgumentException("Duplicate index: " + column.column());
                 }
-                this.orderBy.add(index - 1);
+                instance.orderBy.add(column);
             });
             return this;
         }
@@ -103,8 +123,12 @@ public class ExternalMergeSort {
             return this;
         }
 
-        public Builder withComparator(ComparatorType comparatorType) {
-            this.comparatorType = comparatorType;
+        /**
+         * Set the quote character enclosing fields that may contain delimiters or
+         * line separators, or an empty string if fields are never quoted.
+         */
+        public Builder withQuoteCharacter(String quote) {
+            instance.quote = quote.isEmpty() ? 0 : toSingleByte(quote);
             return this;
         }
 
@@ -117,21 +141,21 @@ public class ExternalMergeSort {
             if (instance.chunks <= 0) {
                 throw new IllegalStateException("chunks < 0");
             }
+            if (instance.memory <= 0) {
+                throw new IllegalStateException("memory < 0");
+            }
 
-            instance.comparator = comparatorType.comparator(this.delimiter, this.orderBy);
+            instance.delimiter = toSingleByte(this.delimiter);
 
             return instance;
         }
     }
 
-    private static long calculateLines(Path path) {
-        try {
-            try (Stream<String> stream = Files.lines(path)) {
-                return stream.count();
-            }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+    static byte toSingleByte(String s) {
+        if (s.length() != 1 || s.charAt(0) >= 0x80) {
+            throw new IllegalArgumentException("Expected a single ASCII character: " + s);
         }
+        return (byte) s.charAt(0);
     }
 
     private static long calculateSize(Path path) {
@@ -142,21 +166,27 @@ public class ExternalMergeSort {
         }
     }
 
-    private static class InputFilePart implements Closeable {
+    /**
+     * A sorted run being merged, positioned at its current line with the sort key
+     * extracted once per line.
+     */
+    private static class SortedRun implements Closeable {
         private final Path path;
 
-        private final BufferedReader bufferedReader;
+        private final FileChannel channel;
+
+        private final LineReader lineReader;
+
+        private final SortKeyEncoder keyEncoder;
 
-        private String currentLine;
+        private boolean exhausted;
 
-        public InputFilePart(Path path) {
+        public SortedRun(Path path, int bufferSize, byte quote, SortKeyEncoder keyEncoder) throws IOException {
             this.path = path;
-            try {
-                this.bufferedReader = new BufferedReader(new FileReader(path.toFile()), 8196);
-                readNextLine();
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
+            this.keyEncoder = keyEncoder;
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.lineReader = new LineReader(channel, 0, channel.size(), bufferSize, quote);
+            next();
         }
 
         public Path getPath() {
@@ -164,36 +194,120 @@ public class ExternalMergeSort {
         }
 
         @Override
-        public void close() {
-            try {
-                bufferedReader.close();
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        public boolean isExhausted() {
+            return exhausted;
+        }
+
+        public void next() throws IOException {
+            if (lineReader.next()) {
+                if (!keyEncoder.isWholeLine()) {
+                    keyEncoder.encode(lineReader.array(), lineReader.offset(), lineReader.length());
+                }
+            } else {
+                exhausted = true;
             }
         }
 
-        public boolean isEmpty() {
-            return currentLine == null;
+        /**
+         * Compare the sort keys of the current lines.
+         */
+        public int compareTo(SortedRun other) {
+            if (keyEncoder.isWholeLine()) {
+                return SortKeyEncoder.compare(
+                        lineReader.array(), lineReader.offset(), lineReader.length(),
+                        other.lineReader.array(), other.lineReader.offset(), other.lineReader.length());
+            }
+            return SortKeyEncoder.compare(
+                    keyEncoder.key(), 0, keyEncoder.length(),
+                    other.keyEncoder.key(), 0, other.keyEncoder.length());
         }
 
-        public String peek() {
-            if (isEmpty()) {
-                return null;
+        /**
+         * Copy the current line followed by a line separator to the output.
+         *
+         * @return number of bytes written
+         */
+        public int writeTo(BufferedChannelWriter writer) throws IOException {
+            writer.write(lineReader.array(), lineReader.offset(), lineReader.length());
+            writer.write('\n');
+            return lineReader.length() + 1;
+        }
+    }
+
+    /**
+     * Writes bytes to a channel through a heap buffer.
+     */
+    private static class BufferedChannelWriter implements Closeable {
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer;
+
+        public BufferedChannelWriter(FileChannel channel, int bufferSize) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocate(bufferSize);
+        }
+
+        public void write(byte[] src, int offset, int length) throws IOException {
+            if (length > buffer.remaining()) {
+                flush();
+                if (length > buffer.capacity()) {
+                    drain(ByteBuffer.wrap(src, offset, length));
+                    return;
+                }
+            }
+            buffer.put(src, offset, length);
+        }
+
+        public void write(int b) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
             }
-            return currentLine;
+            buffer.put((byte) b);
         }
 
-        public String pop() throws IOException {
-            String line = peek();
-            readNextLine();
-            return line;
+        public void flush() throws IOException {
+            buffer.flip();
+            drain(buffer);
+            buffer.clear();
         }
 
-        private void readNextLine() throws IOException {
-            this.currentLine = bufferedReader.readLine();
+        private void drain(ByteBuffer src) throws IOException {
+            while (src.hasRemaining()) {
+                channel.write(src);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
         }
     }
 
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
+    private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+
+    private static final int MIN_MERGE_BUFFER_SIZE = 64 * 1024;
+
+    private static final int MAX_MERGE_BUFFER_SIZE = 8 * 1024 * 1024;
+
+    private static final int MIN_ARENA_SIZE = 1024 * 1024;
+
+    private static final int MAX_ARENA_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * Number of merged bytes between progress reports, to avoid building a report per line.
+     */
+    private static final long MERGE_PROGRESS_INTERVAL = 4 * 1024 * 1024;
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private Path inputFile;
@@ -204,11 +318,19 @@ public class ExternalMergeSort {
 
     private int linesToSkip;
 
+    private byte delimiter = ',';
+
+    private byte quote = '"';
+
     private boolean replace;
 
-    private final List<String> linesSkipped = new ArrayList<>();
+    private final List<byte[]> linesSkipped = new ArrayList<>();
+
+    private final List<SortColumn> orderBy = new ArrayList<>();
 
-    private Comparator<String> comparator;
+    private long memory = Runtime.getRuntime().maxMemory() / 2;
+
+    private int mergeBufferSize;
 
     private Consumer<Progress> progressConsumer = (p) -> {
     };
@@ -238,7 +360,7 @@ public class ExternalMergeSort {
 
         final Instant start = Instant.now();
 
-        List<Path> parts = new ArrayList<>();
+        List<Path> parts = Collections.synchronizedList(new ArrayList<>());
         split(parts::add);
         merge(parts);
         purge(parts);
@@ -264,128 +386,176 @@ public class ExternalMergeSort {
     }
 
     private void split(Consumer<Path> sortedParts) throws IOException {
-        if (linesToSkip > 0) {
-            try (Stream<String> stream = Files.lines(inputFile)
-                    .limit(linesToSkip)
-                    .sequential()) {
-                stream.forEach(linesSkipped::add);
+        try (FileChannel channel = FileChannel.open(inputFile, StandardOpenOption.READ)) {
+            final long start = LineRegions.skipLines(channel, linesToSkip, quote);
+
+            if (start > 0) {
+                LineReader reader = new LineReader(channel, 0, start, 8192, quote);
+                while (reader.next()) {
+                    linesSkipped.add(Arrays.copyOfRange(reader.array(),
+                            reader.offset(), reader.offset() + reader.length()));
+                }
             }
-        }
 
-        logger.info("Counting lines in %s".formatted(inputFile));
+            final long totalSize = channel.size() - start;
 
-        long totalLines = calculateLines(inputFile);
+            List<LineRegions.Region> regions = LineRegions.split(channel, start, chunks, delimiter, quote);
 
-        logger.info("Total lines in %s is %,d".formatted(inputFile, totalLines));
+            logger.info("Split %s of size %s into %d regions"
+                    .formatted(inputFile, ByteUtils.byteCountToDisplaySize(totalSize), regions.size()));
 
-        long linesPerChunk = totalLines / chunks;
-        AtomicLong lines = new AtomicLong();
+            final int arenaSize = (int) Math.min(MAX_ARENA_SIZE,
+                    Math.max(MIN_ARENA_SIZE, memory / Math.max(1, regions.size())));
 
-        List<CompletableFuture<?>> allFutures = new ArrayList<>();
+            logger.info("Sorting runs of up to %s per chunk"
+                    .formatted(ByteUtils.byteCountToDisplaySize(arenaSize)));
 
-        IntStream.rangeClosed(1, chunks).forEach(chunk -> {
-            long startLine = (chunk == 1 ? linesToSkip : 0) + (chunk - 1) * linesPerChunk + 1;
-            long endLine = chunk * linesPerChunk;
+            AtomicLong bytes = new AtomicLong();
 
-            Path inputPart = inputFile.resolveSibling("%s-part-%03d.%s".formatted(
-                    FilenameUtils.getBaseName(inputFile.getFileName().toString()),
-                    chunk,
-                    FilenameUtils.getExtension(inputFile.getFileName().toString()))
-            );
-
-            logger.info("Split/sort '%s' chunk %d/%d file '%s' for range %d/%d"
-                    .formatted(inputFile, chunk, chunks, inputPart, startLine, endLine));
-
-            CompletableFuture<?> future = CompletableFuture.runAsync(() -> {
-                final Instant splitStart = Instant.now();
-
-                try (BufferedWriter writer = Files.newBufferedWriter(inputPart)) {
-                    try (Stream<String> stream = Files.lines(inputFile)
-                            .skip(startLine - 1)
-                            .limit(endLine + 1 - startLine)
-                            .sequential()
-                            .sorted(comparator)) {
-                        stream.forEach(line -> {
-                            try {
-                                writer.write(line);
-                                writer.newLine();
+            List<CompletableFuture<?>> allFutures = new ArrayList<>();
+
+            regions.forEach(region -> {
+                logger.info("Split/sort '%s' chunk %d/%d for byte range %d/%d"
+                        .formatted(inputFile, region.index(), regions.size(), region.start(), region.end()));
+
+                CompletableFuture<?> future = CompletableFuture.runAsync(() -> {
+                    final Instant splitStart = Instant.now();
 
+                    try {
+                        LineReader reader = new LineReader(channel, region.start(), region.end(),
+                                READ_BUFFER_SIZE, quote);
+                        LineArena arena = new LineArena(arenaSize, newKeyEncoder());
+                        ByteBuffer output = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+
+                        int run = 0;
+                        long lastPosition = region.start();
+
+                        while (reader.next()) {
+                            if (!arena.add(reader.array(), reader.offset(), reader.length())) {
+                                sortedParts.accept(writeRun(arena, output, region, ++run));
+                                arena.clear();
+                                if (!arena.add(reader.array(), reader.offset(), reader.length())) {
+                                    throw new IllegalStateException("Line of %d bytes exceeds memory budget of %s"
+                                            .formatted(reader.length(), ByteUtils.byteCountToDisplaySize(arenaSize)));
+                                }
+                            }
+
+                            if (reader.position() != lastPosition) {
+                                bytes.addAndGet(reader.position() - lastPosition);
+                                lastPosition = reader.position();
                                 progressConsumerThrottle.accept(Progress.builder()
-                                        .withCurrent(lines.incrementAndGet())
-                                        .withTotal(totalLines)
-                                        .withNote("split/sort " + inputPart.getFileName().toString())
+                                        .withCurrent(bytes.get())
+                                        .withTotal(totalSize)
+                                        .withNote("split/sort chunk %d run %d".formatted(region.index(), run + 1))
+                                        .withUnit(Progress.Unit.bytes)
                                         .build());
-                            } catch (IOException e) {
-                                throw new UncheckedIOException(e);
                             }
-                        });
+                        }
+
+                        if (arena.size() > 0) {
+                            sortedParts.accept(writeRun(arena, output, region, ++run));
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    } finally {
+                        logger.info("Done splitting %s chunk %d at byte range %d/%d in %s"
+                                .formatted(inputFile, region.index(), region.start(), region.end(),
+                                        Duration.between(splitStart, Instant.now())));
                     }
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
-                } finally {
-                    logger.info("Done splitting %s at range %d/%d in %s"
-                            .formatted(inputPart, startLine, endLine, Duration.between(splitStart, Instant.now())));
-                    sortedParts.accept(inputPart);
-                }
-            });
+                });
 
-            allFutures.add(future);
-        });
+                allFutures.add(future);
+            });
 
-        CompletableFuture.allOf(allFutures.toArray(new CompletableFuture[] {})).join();
+            CompletableFuture.allOf(allFutures.toArray(new CompletableFuture[] {})).join();
+        }
     }
 
-    private void merge(List<Path> sortedInputFiles) throws IOException {
-        final PriorityQueue<InputFilePart> priorityQueue = new PriorityQueue<>(sortedInputFiles.size(),
-                (left, right) -> comparator.compare(left.peek(), right.peek())
+    private Path writeRun(LineArena arena, ByteBuffer output, LineRegions.Region region, int run)
+            throws IOException {
+        Path path = inputFile.resolveSibling("%s-part-%03d-%03d.%s".formatted(
+                FilenameUtils.getBaseName(inputFile.getFileName().toString()),
+                region.index(),
+                run,
+                FilenameUtils.getExtension(inputFile.getFileName().toString()))
         );
 
+        final Instant sortStart = Instant.now();
+
+        arena.sort();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            arena.writeTo(channel, output);
+        }
+
+        logger.info("Wrote run %s of %,d lines in %s"
+                .formatted(path, arena.size(), Duration.between(sortStart, Instant.now())));
+
+        return path;
+    }
+
+    private SortKeyEncoder newKeyEncoder() {
+        return new SortKeyEncoder(delimiter, quote, orderBy);
+    }
+
+    private void merge(List<Path> sortedInputFiles) throws IOException {
         Collections.sort(sortedInputFiles);
 
-        sortedInputFiles.forEach(path -> priorityQueue.add(new InputFilePart(path)));
+        final int bufferSize = mergeBufferSize > 0
+                ? mergeBufferSize
+                : (int) Math.min(MAX_MERGE_BUFFER_SIZE,
+                Math.max(MIN_MERGE_BUFFER_SIZE, memory / Math.max(1, sortedInputFiles.size())));
 
         long totalSize = sortedInputFiles.stream()
                 .mapToLong(ExternalMergeSort::calculateSize).sum();
 
-        logger.info("Merging %d parts of total size %s into %s"
+        logger.info("Merging %d parts of total size %s into %s using read buffers of %s"
                 .formatted(sortedInputFiles.size(),
                         ByteUtils.byteCountToDisplaySize(totalSize),
-                        outputFile));
-
-        try (CountingOutputStream outputStream
-                     = new CountingOutputStream(new FileOutputStream(outputFile.toFile()));
-             BufferedWriter outputWriter
-                     = new BufferedWriter(new OutputStreamWriter(outputStream), 8192)) {
-            linesSkipped.forEach(line -> {
-                try {
-                    outputWriter.write(line);
-                    outputWriter.newLine();
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
-                }
-            });
+                        outputFile,
+                        ByteUtils.byteCountToDisplaySize(bufferSize)));
 
-            while (!priorityQueue.isEmpty()) {
-                InputFilePart inputFilePart = priorityQueue.poll();
+        final List<SortedRun> runs = new ArrayList<>();
 
-                outputWriter.write(inputFilePart.pop());
-                outputWriter.newLine();
+        try (BufferedChannelWriter writer = new BufferedChannelWriter(FileChannel.open(outputFile,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE),
+                WRITE_BUFFER_SIZE)) {
+            for (Path path : sortedInputFiles) {
+                runs.add(new SortedRun(path, bufferSize, quote, newKeyEncoder()));
+            }
 
-                progressConsumerThrottle.accept(Progress.builder()
-                        .withCurrent(outputStream.getByteCount())
-                        .withTotal(totalSize)
-                        .withNote("merge " + inputFilePart.getPath().getFileName().toString())
-                        .withUnit(Progress.Unit.bytes)
-                        .build());
+            for (byte[] line : linesSkipped) {
+                writer.write(line, 0, line.length);
+                writer.write('\n');
+            }
 
-                if (!inputFilePart.isEmpty()) {
-                    priorityQueue.add(inputFilePart);
-                } else {
-                    inputFilePart.close();
+            final LoserTree<SortedRun> loserTree
+                    = new LoserTree<>(runs, SortedRun::compareTo, SortedRun::isExhausted);
+
+            long bytes = 0;
+            long nextProgress = MERGE_PROGRESS_INTERVAL;
+            SortedRun run;
+            while ((run = loserTree.winner()) != null) {
+                bytes += run.writeTo(writer);
+
+                if (bytes >= nextProgress) {
+                    nextProgress = bytes + MERGE_PROGRESS_INTERVAL;
+                    progressConsumerThrottle.accept(Progress.builder()
+                            .withCurrent(bytes)
+                            .withTotal(totalSize)
+                            .withNote("merge " + run.getPath().getFileName().toString())
+                            .withUnit(Progress.Unit.bytes)
+                            .build());
                 }
+
+                run.next();
+                loserTree.advance();
             }
         } finally {
-            priorityQueue.forEach(InputFilePart::close);
+            for (SortedRun run : runs) {
+                run.close();
+            }
         }
     }
 }
@@ -5,11 +5,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
 
-import java.io.BufferedWriter;
+import io.cockroachdb.dl.util.ByteUtils;
+
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.nio.file.Files;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -17,8 +19,6 @@ import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
 public class ExternalSplit {
     public static Builder builder() {
@@ -51,6 +51,20 @@ public class ExternalSplit {
             return this;
         }
 
+        public Builder withDelimiter(String delimiter) {
+            instance.delimiter = ExternalMergeSort.toSingleByte(delimiter);
+            return this;
+        }
+
+        /**
+         * Set the quote character enclosing fields that may contain delimiters or
+         * line separators, or an empty string if fields are never quoted.
+         */
+        public Builder withQuoteCharacter(String quote) {
+            instance.quote = quote.isEmpty() ? 0 : ExternalMergeSort.toSingleByte(quote);
+            return this;
+        }
+
         public Builder withProgressConsumer(Consumer<Progress> progressConsumer) {
             instance.progressConsumer = progressConsumer;
             return this;
@@ -60,21 +74,11 @@ public class ExternalSplit {
             if (instance.chunks <= 0) {
                 throw new IllegalStateException("chunks < 0");
             }
-
-
             return instance;
         }
     }
 
-    private static long calculateLines(Path path) {
-        try {
-            try (Stream<String> stream = Files.lines(path)) {
-                return stream.count();
-            }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
-    }
+    private static final long TRANSFER_SIZE = 64 * 1024 * 1024;
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
@@ -84,6 +88,10 @@ public class ExternalSplit {
 
     private int linesToSkip;
 
+    private byte delimiter = ',';
+
+    private byte quote = '"';
+
     private boolean delete;
 
     private Consumer<Progress> progressConsumer = (p) -> {
@@ -122,62 +130,67 @@ public class ExternalSplit {
     }
 
     private void splitInputFile() {
-        logger.info("Counting lines in %s".formatted(inputFile));
-        long totalLines = calculateLines(inputFile);
-        logger.info("Total lines in %s is %,d".formatted(inputFile, totalLines));
-
-        long linesPerChunk = totalLines / chunks;
-        AtomicLong lines = new AtomicLong();
-
-        List<CompletableFuture<?>> allFutures = new ArrayList<>();
-
-        IntStream.rangeClosed(1, chunks).forEach(chunk -> {
-            long startLine = (chunk == 1 ? linesToSkip : 0) + (chunk - 1) * linesPerChunk + 1;
-            long endLine = chunk * linesPerChunk;
-
-            Path inputPart = inputFile.resolveSibling("%s-%03d.%s".formatted(
-                    FilenameUtils.getBaseName(inputFile.getFileName().toString()),
-                    chunk,
-                    FilenameUtils.getExtension(inputFile.getFileName().toString()))
-            );
-
-            logger.info("Split '%s' chunk %d/%d file '%s' for range %d/%d"
-                    .formatted(inputFile, chunk, chunks, inputPart, startLine, endLine));
-
-            CompletableFuture<?> future = CompletableFuture.runAsync(() -> {
-                final Instant splitStart = Instant.now();
-
-                try (BufferedWriter writer = Files.newBufferedWriter(inputPart)) {
-                    try (Stream<String> stream = Files.lines(inputFile)
-                            .skip(startLine - 1)
-                            .limit(endLine + 1 - startLine)
-                            .sequential()) {
-                        stream.forEach(line -> {
-                            try {
-                                writer.write(line);
-                                writer.newLine();
-
-                                progressConsumerThrottle.accept(Progress.builder()
-                                        .withCurrent(lines.incrementAndGet())
-                                        .withTotal(totalLines)
-                                        .withNote("split " + inputPart.getFileName().toString())
-                                        .build());
-                            } catch (IOException e) {
-                                throw new UncheckedIOException(e);
+        try (FileChannel channel = FileChannel.open(inputFile, StandardOpenOption.READ)) {
+            final long start = LineRegions.skipLines(channel, linesToSkip, quote);
+            final long totalSize = channel.size() - start;
+
+            List<LineRegions.Region> regions = LineRegions.split(channel, start, chunks, delimiter, quote);
+
+            logger.info("Split %s of size %s into %d regions"
+                    .formatted(inputFile, ByteUtils.byteCountToDisplaySize(totalSize), regions.size()));
+
+            AtomicLong bytes = new AtomicLong();
+
+            List<CompletableFuture<?>> allFutures = new ArrayList<>();
+
+            regions.forEach(region -> {
+                Path inputPart = inputFile.resolveSibling("%s-%03d.%s".formatted(
+                        FilenameUtils.getBaseName(inputFile.getFileName().toString()),
+                        region.index(),
+                        FilenameUtils.getExtension(inputFile.getFileName().toString()))
+                );
+
+                logger.info("Split '%s' chunk %d/%d file '%s' for byte range %d/%d"
+                        .formatted(inputFile, region.index(), regions.size(), inputPart,
+                                region.start(), region.end()));
+
+                CompletableFuture<?> future = CompletableFuture.runAsync(() -> {
+                    final Instant splitStart = Instant.now();
+
+                    // Copy the raw bytes of the region, without decoding lines
+                    try (FileChannel output = FileChannel.open(inputPart, StandardOpenOption.CREATE,
+                            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                        long position = region.start();
+                        while (position < region.end()) {
+                            long n = channel.transferTo(position,
+                                    Math.min(TRANSFER_SIZE, region.end() - position), output);
+                            if (n <= 0) {
+                                throw new IOException("Unexpected end of file " + inputFile);
                             }
-                        });
+                            position += n;
+
+                            progressConsumerThrottle.accept(Progress.builder()
+                                    .withCurrent(bytes.addAndGet(n))
+                                    .withTotal(totalSize)
+                                    .withNote("split " + inputPart.getFileName().toString())
+                                    .withUnit(Progress.Unit.bytes)
+                                    .build());
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    } finally {
+                        logger.info("Done splitting %s at byte range %d/%d in %s"
+                                .formatted(inputPart, region.start(), region.end(),
+                                        Duration.between(splitStart, Instant.now())));
                     }
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
-                } finally {
-                    logger.info("Done splitting %s at range %d/%d in %s"
-                            .formatted(inputPart, startLine, endLine, Duration.between(splitStart, Instant.now())));
-                }
-            });
+                });
 
-            allFutures.add(future);
-        });
+                allFutures.add(future);
+            });
 
-        CompletableFuture.allOf(allFutures.toArray(new CompletableFuture[]{})).join();
+            CompletableFuture.allOf(allFutures.toArray(new CompletableFuture[]{})).join();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -0,0 +1,281 @@
+package io.cockroachdb.dl.mergesort;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A fixed size, packed off-heap arena of lines for sorting a run of lines in memory
+ * without allocating objects per line. Records are appended from the start of the
+ * arena and 16-byte entries are added from the end of the arena, until the two meet.
+ * Sorting only moves the entries.
+ * <p>
+ * The sort key of each line is extracted once when added. A record holds the line
+ * length, the key and the line, unless ordering by whole lines in which case the line
+ * is its own key. Each entry holds the first 8 bytes of the key as an unsigned prefix
+ * along with the record offset and key length, so that most comparisons are decided
+ * by the prefixes alone without touching the records.
+ * <p>
+ * Not thread safe.
+ */
+public class LineArena {
+    private static final int ENTRY_SIZE = Long.BYTES * 2;
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final ByteBuffer buffer;
+
+    private final SortKeyEncoder keyEncoder;
+
+    private final int headerSize;
+
+    private int dataEnd;
+
+    private int count;
+
+    /**
+     * @param capacity   arena capacity in bytes
+     * @param keyEncoder the sort key encoder
+     */
+    public LineArena(int capacity, SortKeyEncoder keyEncoder) {
+        this.buffer = ByteBuffer.allocateDirect(capacity);
+        this.keyEncoder = keyEncoder;
+        this.headerSize = keyEncoder.isWholeLine() ? 0 : Integer.BYTES;
+    }
+
+    /**
+     * Add a line unless the arena is full.
+     *
+     * @param src    line bytes
+     * @param offset line offset in the source
+     * @param length line length
+     * @return true if added or false if there is not enough space left
+     */
+    public boolean add(byte[] src, int offset, int length) {
+        final byte[] key;
+        final int keyOffset;
+        final int keyLength;
+
+        if (keyEncoder.isWholeLine()) {
+            key = src;
+            keyOffset = offset;
+            keyLength = length;
+        } else {
+            keyLength = keyEncoder.encode(src, offset, length);
+            key = keyEncoder.key();
+            keyOffset = 0;
+        }
+
+        final int recordLength = keyEncoder.isWholeLine() ? length : headerSize + keyLength + length;
+
+        if ((long) dataEnd + recordLength > entryPosition(count)) {
+            return false;
+        }
+
+        if (!keyEncoder.isWholeLine()) {
+            buffer.putInt(dataEnd, length);
+            buffer.put(dataEnd + headerSize, key, keyOffset, keyLength);
+        }
+        buffer.put(dataEnd + recordLength - length, src, offset, length);
+
+        final int position = entryPosition(count);
+        buffer.putLong(position, prefix(key, keyOffset, keyLength));
+        buffer.putLong(position + Long.BYTES, (long) dataEnd << 32 | keyLength);
+
+        dataEnd += recordLength;
+        count++;
+        return true;
+    }
+
+    /**
+     * @return number of lines in the arena
+     */
+    public int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    public void clear() {
+        dataEnd = 0;
+        count = 0;
+    }
+
+    /**
+     * Sort the lines in place by their keys.
+     */
+    public void sort() {
+        sort(0, count - 1);
+    }
+
+    /**
+     * Write all lines in order, each followed by a line separator.
+     *
+     * @param channel the target channel
+     * @param output  a heap buffer used for writing
+     * @throws IOException on IO errors
+     */
+    public void writeTo(WritableByteChannel channel, ByteBuffer output) throws IOException {
+        output.clear();
+        for (int i = 0; i < count; i++) {
+            long ref = ref(i);
+            int offset = recordOffset(ref);
+            int length;
+
+            if (keyEncoder.isWholeLine()) {
+                length = keyLength(ref);
+            } else {
+                length = buffer.getInt(offset);
+                offset += headerSize + keyLength(ref);
+            }
+
+            while (length + 1 > output.remaining()) {
+                int n = Math.min(length, output.remaining());
+                output.put(output.position(), buffer, offset, n);
+                output.position(output.position() + n);
+                offset += n;
+                length -= n;
+                drain(channel, output);
+            }
+
+            output.put(output.position(), buffer, offset, length);
+            output.position(output.position() + length);
+            output.put((byte) '\n');
+        }
+        drain(channel, output);
+    }
+
+    private static void drain(WritableByteChannel channel, ByteBuffer output) throws IOException {
+        output.flip();
+        while (output.hasRemaining()) {
+            channel.write(output);
+        }
+        output.clear();
+    }
+
+    /**
+     * @return the first 8 bytes of the key as a big-endian long, zero padded
+     */
+    private static long prefix(byte[] key, int offset, int length) {
+        long prefix = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            prefix <<= 8;
+            if (i < length) {
+                prefix |= key[offset + i] & 0xff;
+            }
+        }
+        return prefix;
+    }
+
+    private int entryPosition(int index) {
+        return buffer.capacity() - (index + 1) * ENTRY_SIZE;
+    }
+
+    private long prefix(int index) {
+        return buffer.getLong(entryPosition(index));
+    }
+
+    private long ref(int index) {
+        return buffer.getLong(entryPosition(index) + Long.BYTES);
+    }
+
+    private static int recordOffset(long ref) {
+        return (int) (ref >>> 32);
+    }
+
+    private static int keyLength(long ref) {
+        return (int) ref;
+    }
+
+    private void set(int index, long prefix, long ref) {
+        int position = entryPosition(index);
+        buffer.putLong(position, prefix);
+        buffer.putLong(position + Long.BYTES, ref);
+    }
+
+    private void swap(int i, int j) {
+        long prefix = prefix(i);
+        long ref = ref(i);
+        set(i, prefix(j), ref(j));
+        set(j, prefix, ref);
+    }
+
+    private int compare(long leftPrefix, long leftRef, long rightPrefix, long rightRef) {
+        if (leftPrefix != rightPrefix) {
+            return Long.compareUnsigned(leftPrefix, rightPrefix);
+        }
+
+        final int leftOffset = recordOffset(leftRef) + headerSize;
+        final int rightOffset = recordOffset(rightRef) + headerSize;
+        final int leftLength = keyLength(leftRef);
+        final int rightLength = keyLength(rightRef);
+        final int n = Math.min(leftLength, rightLength);
+
+        // Prefixes are equal but may be zero padded, so compare 8 bytes at a time from the start
+        int i = 0;
+        for (; i + Long.BYTES <= n; i += Long.BYTES) {
+            long l = buffer.getLong(leftOffset + i);
+            long r = buffer.getLong(rightOffset + i);
+            if (l != r) {
+                return Long.compareUnsigned(l, r);
+            }
+        }
+        for (; i < n; i++) {
+            int c = Byte.toUnsignedInt(buffer.get(leftOffset + i))
+                    - Byte.toUnsignedInt(buffer.get(rightOffset + i));
+            if (c != 0) {
+                return c;
+            }
+        }
+        return leftLength - rightLength;
+    }
+
+    /**
+     * Quicksort with random pivots and three-way partitioning to cope with
+     * many equal keys, using insertion sort for small ranges.
+     */
+    private void sort(int lo, int hi) {
+        while (hi - lo >= INSERTION_SORT_THRESHOLD) {
+            swap(lo, ThreadLocalRandom.current().nextInt(lo, hi + 1));
+            final long pivotPrefix = prefix(lo);
+            final long pivotRef = ref(lo);
+
+            int lt = lo;
+            int gt = hi;
+            int i = lo + 1;
+            while (i <= gt) {
+                int c = compare(prefix(i), ref(i), pivotPrefix, pivotRef);
+                if (c < 0) {
+                    swap(lt++, i++);
+                } else if (c > 0) {
+                    swap(i, gt--);
+                } else {
+                    i++;
+                }
+            }
+
+            // Recurse into the smaller side to bound stack depth
+            if (lt - lo < hi - gt) {
+                sort(lo, lt - 1);
+                lo = gt + 1;
+            } else {
+                sort(gt + 1, hi);
+                hi = lt - 1;
+            }
+        }
+
+        for (int i = lo + 1; i <= hi; i++) {
+            long prefix = prefix(i);
+            long ref = ref(i);
+            int j = i - 1;
+            while (j >= lo && compare(prefix(j), ref(j), prefix, ref) > 0) {
+                set(j + 1, prefix(j), ref(j));
+                j--;
+            }
+            set(j + 1, prefix, ref);
+        }
+    }
+}
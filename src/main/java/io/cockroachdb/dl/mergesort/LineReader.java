@@ -0,0 +1,179 @@
+package io.cockroachdb.dl.mergesort;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads lines as raw bytes from a region of a file channel through a reusable buffer,
+ * without decoding to strings. Line separators within quoted fields are part of the
+ * line. Lines are returned without the trailing LF or CRLF separator.
+ * <p>
+ * The buffer grows to fit lines longer than the buffer size. The reader does not
+ * own the channel, which allows concurrent readers using positional reads of
+ * different regions of the same channel.
+ * <p>
+ * Not thread safe.
+ */
+public class LineReader {
+    private final FileChannel channel;
+
+    private long end;
+
+    private final byte quote;
+
+    private long filePosition;
+
+    private ByteBuffer buffer;
+
+    private int lineStart;
+
+    private int lineLength;
+
+    /**
+     * @param channel    the file channel
+     * @param start      region start offset, at a line boundary
+     * @param end        region end offset (exclusive), at a line boundary
+     * @param bufferSize initial read buffer size
+     * @param quote      the quote character or 0 for none
+     */
+    public LineReader(FileChannel channel, long start, long end, int bufferSize, byte quote) {
+        this.channel = channel;
+        this.filePosition = start;
+        this.end = end;
+        this.quote = quote;
+        this.buffer = ByteBuffer.allocate(Math.max(bufferSize, 1024));
+        this.buffer.limit(0);
+    }
+
+    /**
+     * Advance to the next line.
+     *
+     * @return true if there is a line or false at the end of the region
+     * @throws IOException on IO errors
+     */
+    public boolean next() throws IOException {
+        int start = buffer.position();
+        int i = start;
+        boolean quoted = false;
+
+        while (true) {
+            final byte[] array = buffer.array();
+            final int limit = buffer.limit();
+
+            for (; i < limit; i++) {
+                byte b = array[i];
+                if (b == quote && quote != 0) {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted) {
+                    int length = i - start;
+                    if (length > 0 && array[i - 1] == '\r') {
+                        length--;
+                    }
+                    setLine(start, length, i + 1);
+                    return true;
+                }
+            }
+
+            int shift = fill();
+            if (shift < 0) {
+                // Last line without a separator
+                if (start < limit) {
+                    setLine(start, limit - start, limit);
+                    return true;
+                }
+                return false;
+            }
+
+            start -= shift;
+            i -= shift;
+        }
+    }
+
+    private void setLine(int start, int length, int next) {
+        this.lineStart = start;
+        this.lineLength = length;
+        buffer.position(next);
+    }
+
+    /**
+     * Read more bytes after moving the unconsumed bytes to the start of the buffer,
+     * growing the buffer if already full.
+     *
+     * @return number of bytes the unconsumed bytes moved or -1 at the end of the region
+     */
+    private int fill() throws IOException {
+        if (filePosition >= end) {
+            return -1;
+        }
+
+        int shift = buffer.position();
+        if (shift == 0 && buffer.limit() == buffer.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+            larger.put(buffer.array(), 0, buffer.limit());
+            larger.flip();
+            buffer = larger;
+        } else if (shift > 0) {
+            buffer.compact();
+            buffer.flip();
+        }
+
+        int limit = buffer.limit();
+        int n = (int) Math.min(buffer.capacity() - limit, end - filePosition);
+
+        ByteBuffer target = buffer.duplicate();
+        target.limit(limit + n).position(limit);
+
+        while (target.hasRemaining()) {
+            int read = channel.read(target, filePosition);
+            if (read < 0) {
+                break;
+            }
+            filePosition += read;
+        }
+
+        if (target.position() < limit + n) {
+            // Truncated while reading
+            end = filePosition;
+        }
+
+        buffer.limit(target.position());
+        return shift;
+    }
+
+    /**
+     * @return the backing array of the current line, valid until the next call to {@link #next()}
+     */
+    public byte[] array() {
+        return buffer.array();
+    }
+
+    /**
+     * @return offset of the current line in the backing array
+     */
+    public int offset() {
+        return lineStart;
+    }
+
+    /**
+     * @return length in bytes of the current line, excluding the line separator
+     */
+    public int length() {
+        return lineLength;
+    }
+
+    /**
+     * @return the current line decoded as UTF-8
+     */
+    public String line() {
+        return new String(buffer.array(), lineStart, lineLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return number of bytes read from the channel so far
+     */
+    public long position() {
+        return filePosition;
+    }
+}
@@ -0,0 +1,261 @@
+package io.cockroachdb.dl.mergesort;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a CSV file into regions of about equal size by byte offsets aligned to line
+ * boundaries, so that each region can be processed independently by reading only its
+ * own bytes. No up-front line count is needed.
+ * <p>
+ * Aligning an arbitrary offset to the next line boundary is quote-aware. Since the
+ * quoting state at an arbitrary offset is unknown, the bytes following the offset
+ * are scanned both as if outside and inside a quoted field, until one interpretation
+ * contradicts RFC-4180 quoting (like a quote in the middle of an unquoted field or a
+ * closing quote followed by anything other than a delimiter or line separator). If
+ * both remain valid within a look-ahead limit, the offset is assumed to be outside
+ * quotes.
+ */
+public abstract class LineRegions {
+    /**
+     * A region of a file from start (inclusive) to end (exclusive) byte offset.
+     */
+    public record Region(int index, long start, long end) {
+        public long size() {
+            return end - start;
+        }
+    }
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private static final int MAX_LOOKAHEAD = 1024 * 1024;
+
+    // Scan states
+    private static final int FIELD_START = 0;
+
+    private static final int UNQUOTED = 1;
+
+    private static final int QUOTED = 2;
+
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    private static final int INVALID = -1;
+
+    private LineRegions() {
+    }
+
+    /**
+     * Find the offset following a given number of lines from the start of the file,
+     * such as header lines.
+     *
+     * @param channel the file channel
+     * @param lines   number of lines to skip
+     * @param quote   the quote character or 0 for none
+     * @return the offset following the lines
+     * @throws IOException on IO errors
+     */
+    public static long skipLines(FileChannel channel, long lines, byte quote) throws IOException {
+        if (lines <= 0) {
+            return 0;
+        }
+
+        final long size = channel.size();
+        final ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+
+        long position = 0;
+        long remaining = lines;
+        boolean quoted = false;
+
+        while (position < size) {
+            block.clear();
+            int n = channel.read(block, position);
+            if (n <= 0) {
+                break;
+            }
+            byte[] array = block.array();
+            for (int i = 0; i < n; i++) {
+                byte b = array[i];
+                if (b == quote && quote != 0) {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted && --remaining == 0) {
+                    return position + i + 1;
+                }
+            }
+            position += n;
+        }
+
+        return size;
+    }
+
+    /**
+     * Split the file from a given offset into regions of about equal size,
+     * aligned to line boundaries. Empty regions are omitted.
+     *
+     * @param channel   the file channel
+     * @param start     start offset
+     * @param chunks    number of regions
+     * @param delimiter the field delimiter
+     * @param quote     the quote character or 0 for none
+     * @return the regions in file order
+     * @throws IOException on IO errors
+     */
+    public static List<Region> split(FileChannel channel, long start, int chunks, byte delimiter, byte quote)
+            throws IOException {
+        final long size = channel.size();
+        final long chunkSize = Math.max(1, (size - start) / Math.max(1, chunks));
+
+        List<Region> regions = new ArrayList<>();
+
+        long regionStart = start;
+        for (int chunk = 1; chunk <= chunks && regionStart < size; chunk++) {
+            long regionEnd = chunk == chunks
+                    ? size
+                    : alignToLine(channel, Math.max(regionStart, start + chunk * chunkSize), delimiter, quote);
+            if (regionEnd > regionStart) {
+                regions.add(new Region(regions.size() + 1, regionStart, regionEnd));
+            }
+            regionStart = regionEnd;
+        }
+
+        return regions;
+    }
+
+    /**
+     * Find the first line boundary at or after a given offset.
+     *
+     * @param channel   the file channel
+     * @param offset    the offset
+     * @param delimiter the field delimiter
+     * @param quote     the quote character or 0 for none
+     * @return offset of the first byte of the next line, or the file size if none
+     * @throws IOException on IO errors
+     */
+    public static long alignToLine(FileChannel channel, long offset, byte delimiter, byte quote)
+            throws IOException {
+        final long size = channel.size();
+        if (offset <= 0) {
+            return 0;
+        }
+        if (offset >= size) {
+            return size;
+        }
+
+        final ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+
+        // Look at the previous byte to tell if at field start, moving past quotes
+        // since these could either be opening, closing or escaped
+        byte previous;
+        do {
+            block.clear().limit(1);
+            if (channel.read(block, offset - 1) <= 0) {
+                return size;
+            }
+            previous = block.get(0);
+        } while (previous == quote && quote != 0 && ++offset < size);
+
+        if (offset >= size) {
+            return size;
+        }
+        if (previous == '\n' && quote == 0) {
+            return offset;
+        }
+
+        int outside = previous == '\n' || previous == delimiter ? FIELD_START : UNQUOTED;
+        int inside = quote != 0 ? QUOTED : INVALID;
+        long outsideBoundary = previous == '\n' ? offset : -1;
+        long insideBoundary = -1;
+
+        long position = offset;
+        long lookaheadLimit = offset + MAX_LOOKAHEAD;
+
+        while (position < size) {
+            block.clear();
+            int n = channel.read(block, position);
+            if (n <= 0) {
+                break;
+            }
+
+            byte[] array = block.array();
+            for (int i = 0; i < n; i++) {
+                byte b = array[i];
+                long next = position + i + 1;
+
+                if (outside != INVALID) {
+                    outside = nextState(outside, b, delimiter, quote);
+                    if (outsideBoundary < 0 && outside == FIELD_START && b == '\n') {
+                        outsideBoundary = next;
+                    }
+                }
+                if (inside != INVALID) {
+                    inside = nextState(inside, b, delimiter, quote);
+                    if (insideBoundary < 0 && inside == FIELD_START && b == '\n') {
+                        insideBoundary = next;
+                    }
+                }
+
+                if (inside == INVALID && outsideBoundary >= 0) {
+                    return outsideBoundary;
+                }
+                if (outside == INVALID && insideBoundary >= 0) {
+                    return insideBoundary;
+                }
+                if (outside == INVALID && inside == INVALID) {
+                    // Not valid quoting either way, fall back to the next line separator
+                    return alignToLine(channel, offset, delimiter, (byte) 0);
+                }
+                if (outsideBoundary >= 0 && (outsideBoundary == insideBoundary || outside == inside)) {
+                    // Either agreeing or indistinguishable from here on
+                    return outsideBoundary;
+                }
+                if (next >= lookaheadLimit && outsideBoundary >= 0 && outside != INVALID) {
+                    return outsideBoundary;
+                }
+            }
+
+            position += n;
+        }
+
+        if (outside != INVALID && outsideBoundary >= 0) {
+            return outsideBoundary;
+        }
+        if (inside != INVALID && insideBoundary >= 0) {
+            return insideBoundary;
+        }
+        return size;
+    }
+
+    private static int nextState(int state, byte b, byte delimiter, byte quote) {
+        if (quote == 0) {
+            return b == '\n' || b == delimiter ? FIELD_START : UNQUOTED;
+        }
+        switch (state) {
+            case FIELD_START:
+                if (b == quote) {
+                    return QUOTED;
+                }
+                return b == '\n' || b == delimiter ? FIELD_START : UNQUOTED;
+            case UNQUOTED:
+                if (b == quote) {
+                    return INVALID;
+                }
+                return b == '\n' || b == delimiter ? FIELD_START : UNQUOTED;
+            case QUOTED:
+                return b == quote ? QUOTE_IN_QUOTED : QUOTED;
+            case QUOTE_IN_QUOTED:
+                if (b == quote) {
+                    // Escaped by doubling
+                    return QUOTED;
+                }
+                if (b == '\n' || b == delimiter) {
+                    return FIELD_START;
+                }
+                // Closing quote of a CRLF terminated line
+                return b == '\r' ? QUOTE_IN_QUOTED : INVALID;
+            default:
+                return INVALID;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package io.cockroachdb.dl.mergesort;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Tournament tree of losers for k-way merging of sorted sources. Each internal node
+ * holds the source that lost the match at that node and the root holds the overall
+ * winner, so that replacing the winner's head only replays the matches on the path
+ * from its leaf to the root, taking log2(k) comparisons, and compared to a binary
+ * heap only one comparison per level.
+ * <p>
+ * Exhausted sources lose against all others. Ties are won by the source with the
+ * lowest index, which makes the merge stable with respect to source order.
+ * <p>
+ * Not thread safe.
+ *
+ * @param <T> the source type
+ */
+final class LoserTree<T> {
+    /**
+     * Virtual source winning against all others, used only while building the tree.
+     */
+    private static final int SENTINEL = -1;
+
+    private final List<T> sources;
+
+    private final Comparator<T> comparator;
+
+    private final Predicate<T> exhausted;
+
+    private final int[] tree;
+
+    /**
+     * @param sources    the sources, each positioned at its first item
+     * @param comparator comparator for the current items of two non-exhausted sources
+     * @param exhausted  tells if a source has no more items
+     */
+    LoserTree(List<T> sources, Comparator<T> comparator, Predicate<T> exhausted) {
+        this.sources = sources;
+        this.comparator = comparator;
+        this.exhausted = exhausted;
+        this.tree = new int[Math.max(1, sources.size())];
+
+        Arrays.fill(tree, SENTINEL);
+        for (int i = sources.size() - 1; i >= 0; i--) {
+            replay(i);
+        }
+    }
+
+    /**
+     * @return the source with the least current item, or null if all sources are exhausted
+     */
+    T winner() {
+        int winner = tree[0];
+        if (winner == SENTINEL || exhausted.test(sources.get(winner))) {
+            return null;
+        }
+        return sources.get(winner);
+    }
+
+    /**
+     * Restore the tree after the winner advanced to its next item or got exhausted.
+     */
+    void advance() {
+        if (tree[0] != SENTINEL) {
+            replay(tree[0]);
+        }
+    }
+
+    private void replay(int source) {
+        int winner = source;
+        for (int node = (source + sources.size()) >> 1; node > 0; node >>= 1) {
+            if (beats(tree[node], winner)) {
+                int loser = winner;
+                winner = tree[node];
+                tree[node] = loser;
+            }
+        }
+        tree[0] = winner;
+    }
+
+    private boolean beats(int left, int right) {
+        if (left == SENTINEL) {
+            return true;
+        }
+        if (right == SENTINEL) {
+            return false;
+        }
+
+        T l = sources.get(left);
+        T r = sources.get(right);
+
+        if (exhausted.test(l)) {
+            return false;
+        }
+        if (exhausted.test(r)) {
+            return true;
+        }
+
+        int c = comparator.compare(l, r);
+        return c < 0 || (c == 0 && left < right);
+    }
+}
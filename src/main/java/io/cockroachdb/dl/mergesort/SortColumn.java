@@ -0,0 +1,76 @@
+package io.cockroachdb.dl.mergesort;
+
+import java.util.Locale;
+
+/**
+ * A column to sort CSV lines by.
+ *
+ * @param column     the one-based column index
+ * @param type       the sort key type
+ * @param descending true for descending order
+ */
+public record SortColumn(int column, SortKeyType type, boolean descending) {
+    public SortColumn {
+        if (column < 1) {
+            throw new IllegalArgumentException("Column index must be > 0: " + column);
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("Sort key type is null");
+        }
+    }
+
+    /**
+     * @param column the one-based column index
+     * @return an ascending string column
+     */
+    public static SortColumn of(int column) {
+        return new SortColumn(column, SortKeyType.string, false);
+    }
+
+    /**
+     * Parse a column in the form {@code <index>[:<type>][:asc|desc]}, like {@code 1},
+     * {@code 2:int} or {@code 3:timestamp:desc}. The type defaults to string and
+     * {@code int} is short for integer.
+     *
+     * @param spec the column spec
+     * @return the sort column
+     */
+    public static SortColumn parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        if (parts.length > 3) {
+            throw new IllegalArgumentException("Expected <index>[:<type>][:asc|desc]: " + spec);
+        }
+
+        int column;
+        try {
+            column = Integer.parseInt(parts[0].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected column index: " + spec);
+        }
+
+        SortKeyType type = SortKeyType.string;
+        boolean descending = false;
+
+        for (int i = 1; i < parts.length; i++) {
+            String part = parts[i].trim().toLowerCase(Locale.ROOT);
+            if ("asc".equals(part) || "desc".equals(part)) {
+                descending = "desc".equals(part);
+            } else if (i == 1) {
+                try {
+                    type = "int".equals(part) ? SortKeyType.integer : SortKeyType.valueOf(part);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown sort key type '%s' in: %s".formatted(part, spec));
+                }
+            } else {
+                throw new IllegalArgumentException("Expected asc or desc: " + spec);
+            }
+        }
+
+        return new SortColumn(column, type, descending);
+    }
+
+    @Override
+    public String toString() {
+        return column + ":" + type + (descending ? ":desc" : "");
+    }
+}
@@ -0,0 +1,469 @@
+package io.cockroachdb.dl.mergesort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Extracts the order-by columns of a CSV line into a normalized binary sort key, so
+ * that lines are tokenized once rather than on every comparison and keys compare as
+ * plain unsigned byte sequences (see {@link #compare(byte[], int, int, byte[], int, int)}).
+ * <p>
+ * Fields are parsed as RFC-4180 where fields enclosed by the quote character may contain
+ * delimiters and line separators, and doubled quotes denote a quote. Each column is
+ * encoded so that its bytes sort in the order of its {@link SortKeyType} and no encoded
+ * value is a prefix of another, which means composite keys compare column by column:
+ * <ul>
+ *     <li>string - the unquoted bytes with zero bytes escaped as {@code 0x00 0xFF},
+ *     followed by a {@code 0x00 0x01} terminator. Missing fields compare as empty.</li>
+ *     <li>integer, uuid, date and timestamp - a null marker followed by fixed size
+ *     big-endian values with the sign bit flipped.</li>
+ *     <li>decimal - a null or sign marker followed by the decimal exponent and the
+ *     significant digits, terminated by a zero byte. Negative numbers have these bytes
+ *     inverted so that larger magnitudes sort first.</li>
+ * </ul>
+ * Descending columns have all their bytes inverted. Empty or missing fields of typed
+ * columns are nulls, which sort first in ascending order and last in descending order.
+ * <p>
+ * Without order-by columns the key is the line itself, see {@link #isWholeLine()}.
+ * <p>
+ * Not thread safe.
+ */
+public class SortKeyEncoder {
+    private static final byte ESCAPE = 0x00;
+
+    private static final byte ESCAPED_ZERO = (byte) 0xff;
+
+    private static final byte TERMINATOR = 0x01;
+
+    private static final byte NULL = 0x00;
+
+    private static final byte NOT_NULL = 0x01;
+
+    private static final byte NEGATIVE = 0x02;
+
+    private static final byte ZERO = 0x03;
+
+    private static final byte POSITIVE = 0x04;
+
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = new DateTimeFormatterBuilder()
+            .parseCaseInsensitive()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE)
+            .appendPattern("[' ']['T']")
+            .append(DateTimeFormatter.ISO_LOCAL_TIME)
+            .optionalStart()
+            .appendOffset("+HH:mm", "Z")
+            .optionalEnd()
+            .toFormatter();
+
+    private final byte delimiter;
+
+    private final byte quote;
+
+    private final SortColumn[] columns;
+
+    private final int[] fieldStart;
+
+    private final int[] fieldEnd;
+
+    private byte[] key = new byte[256];
+
+    private int length;
+
+    private byte[] scratch = new byte[64];
+
+    /**
+     * @param delimiter the field delimiter
+     * @param quote     the quote character or 0 for none
+     * @param columns   the columns to order by, in order of significance
+     */
+    public SortKeyEncoder(byte delimiter, byte quote, List<SortColumn> columns) {
+        this.delimiter = delimiter;
+        this.quote = quote;
+        this.columns = columns.toArray(new SortColumn[0]);
+
+        int fields = Arrays.stream(this.columns).mapToInt(SortColumn::column).max().orElse(0);
+        this.fieldStart = new int[fields];
+        this.fieldEnd = new int[fields];
+    }
+
+    /**
+     * @return true if there are no order-by columns and lines are compared as a whole
+     */
+    public boolean isWholeLine() {
+        return columns.length == 0;
+    }
+
+    /**
+     * Encode the key of a line, replacing any previous key.
+     *
+     * @param line   line bytes without line separator
+     * @param offset line offset
+     * @param length line length
+     * @return the key length
+     * @throws IllegalArgumentException if a field is not a valid value of its column type
+     * @see #key()
+     */
+    public int encode(byte[] line, int offset, int length) {
+        this.length = 0;
+
+        final int fields = locateFields(line, offset, offset + length);
+
+        for (SortColumn column : columns) {
+            final int index = column.column() - 1;
+            final int start = this.length;
+
+            if (column.type() == SortKeyType.string) {
+                if (index < fields) {
+                    putString(line, fieldStart[index], fieldEnd[index]);
+                }
+                ensureCapacity(2);
+                key[this.length++] = ESCAPE;
+                key[this.length++] = TERMINATOR;
+            } else {
+                int n = index < fields ? unquote(line, fieldStart[index], fieldEnd[index]) : 0;
+                try {
+                    putTyped(column.type(), n);
+                } catch (IllegalArgumentException | DateTimeParseException | ArithmeticException e) {
+                    throw new IllegalArgumentException("Invalid %s value in column %d: '%s'"
+                            .formatted(column.type(), column.column(),
+                                    new String(scratch, 0, n, StandardCharsets.UTF_8)), e);
+                }
+            }
+
+            if (column.descending()) {
+                for (int i = start; i < this.length; i++) {
+                    key[i] = (byte) ~key[i];
+                }
+            }
+        }
+
+        return this.length;
+    }
+
+    /**
+     * @return the backing array of the last encoded key, valid until the next call to encode
+     */
+    public byte[] key() {
+        return key;
+    }
+
+    /**
+     * @return the length of the last encoded key
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Compare two keys (or whole lines) in lexicographic order of unsigned bytes.
+     */
+    public static int compare(byte[] left, int leftOffset, int leftLength,
+                              byte[] right, int rightOffset, int rightLength) {
+        return Arrays.compareUnsigned(left, leftOffset, leftOffset + leftLength,
+                right, rightOffset, rightOffset + rightLength);
+    }
+
+    /**
+     * Find the start and end of each field up to the last order-by column.
+     *
+     * @return number of fields found
+     */
+    private int locateFields(byte[] line, int offset, int end) {
+        int field = 0;
+        int i = offset;
+
+        while (field < fieldStart.length) {
+            fieldStart[field] = i;
+
+            if (quote != 0 && i < end && line[i] == quote) {
+                boolean quoted = true;
+                for (i++; i < end && (quoted || line[i] != delimiter); i++) {
+                    if (line[i] == quote) {
+                        quoted = !quoted;
+                    }
+                }
+            } else {
+                while (i < end && line[i] != delimiter) {
+                    i++;
+                }
+            }
+
+            fieldEnd[field++] = i;
+
+            if (i >= end) {
+                break;
+            }
+            i++;
+        }
+
+        return field;
+    }
+
+    private void putString(byte[] line, int start, int end) {
+        ensureCapacity((end - start) * 2);
+
+        if (quote != 0 && start < end && line[start] == quote) {
+            boolean quoted = true;
+            for (int i = start + 1; i < end; i++) {
+                byte b = line[i];
+                if (b == quote) {
+                    if (quoted && i + 1 < end && line[i + 1] == quote) {
+                        i++;
+                    } else {
+                        quoted = !quoted;
+                        continue;
+                    }
+                }
+                putByte(b);
+            }
+        } else {
+            for (int i = start; i < end; i++) {
+                putByte(line[i]);
+            }
+        }
+    }
+
+    private void putByte(byte b) {
+        key[length++] = b;
+        if (b == ESCAPE) {
+            key[length++] = ESCAPED_ZERO;
+        }
+    }
+
+    /**
+     * Copy the unquoted and trimmed field value to the scratch buffer.
+     *
+     * @return the value length
+     */
+    private int unquote(byte[] line, int start, int end) {
+        if (scratch.length < end - start) {
+            scratch = new byte[Math.max(scratch.length * 2, end - start)];
+        }
+
+        int n = 0;
+        boolean quoted = false;
+        for (int i = start; i < end; i++) {
+            byte b = line[i];
+            if (b == quote && quote != 0) {
+                if (quoted && i + 1 < end && line[i + 1] == quote) {
+                    i++;
+                } else {
+                    quoted = !quoted;
+                    continue;
+                }
+            }
+            if (n > 0 || b != ' ') {
+                scratch[n++] = b;
+            }
+        }
+        while (n > 0 && scratch[n - 1] == ' ') {
+            n--;
+        }
+        return n;
+    }
+
+    private void putTyped(SortKeyType type, int n) {
+        ensureCapacity(Math.max(n + 8, 24));
+
+        if (n == 0) {
+            key[length++] = NULL;
+            return;
+        }
+
+        switch (type) {
+            case integer -> {
+                key[length++] = NOT_NULL;
+                putLong(parseLong(n) ^ Long.MIN_VALUE);
+            }
+            case decimal -> putDecimal(n);
+            case uuid -> {
+                key[length++] = NOT_NULL;
+                putUUID(n);
+            }
+            case date -> {
+                key[length++] = NOT_NULL;
+                putLong(LocalDate.parse(scratchString(n)).toEpochDay() ^ Long.MIN_VALUE);
+            }
+            case timestamp -> {
+                key[length++] = NOT_NULL;
+                Instant instant = parseTimestamp(scratchString(n));
+                putLong(instant.getEpochSecond() ^ Long.MIN_VALUE);
+                putInt(instant.getNano());
+            }
+            default -> throw new IllegalStateException("Unexpected type: " + type);
+        }
+    }
+
+    private String scratchString(int n) {
+        return new String(scratch, 0, n, StandardCharsets.US_ASCII);
+    }
+
+    private static Instant parseTimestamp(String value) {
+        TemporalAccessor temporal = TIMESTAMP_FORMATTER.parse(value);
+        if (temporal.isSupported(ChronoField.OFFSET_SECONDS)) {
+            return OffsetDateTime.from(temporal).toInstant();
+        }
+        return LocalDateTime.from(temporal).toInstant(ZoneOffset.UTC);
+    }
+
+    private long parseLong(int n) {
+        int i = 0;
+        boolean negative = false;
+        if (scratch[0] == '-' || scratch[0] == '+') {
+            negative = scratch[0] == '-';
+            i++;
+        }
+        if (i == n) {
+            throw new IllegalArgumentException("No digits");
+        }
+
+        // Accumulate negatively to cover Long.MIN_VALUE
+        long value = 0;
+        for (; i < n; i++) {
+            int digit = scratch[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Not a digit: " + (char) scratch[i]);
+            }
+            value = Math.subtractExact(Math.multiplyExact(value, 10), digit);
+        }
+
+        return negative ? value : Math.negateExact(value);
+    }
+
+    /**
+     * Encode a decimal as sign marker, exponent and significant digits such that
+     * the value is 0.d1d2d3... * 10^exponent, with leading and trailing zeros removed.
+     */
+    private void putDecimal(int n) {
+        int i = 0;
+        boolean negative = false;
+        if (scratch[0] == '-' || scratch[0] == '+') {
+            negative = scratch[0] == '-';
+            i++;
+        }
+
+        final int header = length;
+        final int digitsStart = header + 1 + Integer.BYTES;
+        length = digitsStart;
+
+        long exponent = 0;
+        int digits = 0;
+        boolean point = false;
+        boolean significant = false;
+
+        for (; i < n; i++) {
+            byte b = scratch[i];
+            if (b >= '0' && b <= '9') {
+                digits++;
+                if (b == '0' && !significant) {
+                    if (point) {
+                        exponent--;
+                    }
+                    continue;
+                }
+                significant = true;
+                if (!point) {
+                    exponent++;
+                }
+                key[length++] = b;
+            } else if (b == '.' && !point) {
+                point = true;
+            } else if (b == 'e' || b == 'E') {
+                break;
+            } else {
+                throw new IllegalArgumentException("Not a number");
+            }
+        }
+
+        if (digits == 0) {
+            throw new IllegalArgumentException("No digits");
+        }
+
+        if (i < n) {
+            // Exponent part, Long.parseLong accepts a leading sign
+            exponent += Long.parseLong(new String(scratch, i + 1, n - i - 1, StandardCharsets.US_ASCII));
+        }
+
+        while (length > digitsStart && key[length - 1] == '0') {
+            length--;
+        }
+
+        if (length == digitsStart) {
+            key[header] = ZERO;
+            length = header + 1;
+            return;
+        }
+
+        key[header] = negative ? NEGATIVE : POSITIVE;
+        key[length++] = 0;
+
+        int e = Math.toIntExact(exponent) ^ Integer.MIN_VALUE;
+        for (int k = 0; k < Integer.BYTES; k++) {
+            key[header + 1 + k] = (byte) (e >>> (24 - k * 8));
+        }
+
+        if (negative) {
+            for (int k = header + 1; k < length; k++) {
+                key[k] = (byte) ~key[k];
+            }
+        }
+    }
+
+    private void putUUID(int n) {
+        int nibbles = 0;
+        long msb = 0;
+        long lsb = 0;
+
+        for (int i = 0; i < n; i++) {
+            byte b = scratch[i];
+            if (b == '-' && (i == 8 || i == 13 || i == 18 || i == 23) && n == 36) {
+                continue;
+            }
+            int v = Character.digit(b, 16);
+            if (v < 0 || nibbles == 32) {
+                throw new IllegalArgumentException("Not a UUID");
+            }
+            if (nibbles++ < 16) {
+                msb = msb << 4 | v;
+            } else {
+                lsb = lsb << 4 | v;
+            }
+        }
+
+        if (nibbles != 32) {
+            throw new IllegalArgumentException("Not a UUID");
+        }
+
+        putLong(msb);
+        putLong(lsb);
+    }
+
+    private void putLong(long v) {
+        for (int i = 56; i >= 0; i -= 8) {
+            key[length++] = (byte) (v >>> i);
+        }
+    }
+
+    private void putInt(int v) {
+        for (int i = 24; i >= 0; i -= 8) {
+            key[length++] = (byte) (v >>> i);
+        }
+    }
+
+    private void ensureCapacity(int n) {
+        if (length + n > key.length) {
+            key = Arrays.copyOf(key, Math.max(key.length * 2, length + n));
+        }
+    }
+}
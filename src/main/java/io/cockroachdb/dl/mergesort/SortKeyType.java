@@ -0,0 +1,33 @@
+package io.cockroachdb.dl.mergesort;
+
+/**
+ * Type of sort key column, determining how field values are ordered.
+ * Empty fields of typed columns are nulls, sorting first in ascending order.
+ */
+public enum SortKeyType {
+    /**
+     * Unquoted field value in byte order, which is the same as code point order.
+     */
+    string,
+    /**
+     * Signed 64-bit integer, like INT8.
+     */
+    integer,
+    /**
+     * Arbitrary precision decimal with optional exponent, like DECIMAL or FLOAT.
+     */
+    decimal,
+    /**
+     * UUID in canonical form, with or without hyphens, in byte order.
+     */
+    uuid,
+    /**
+     * ISO-8601 date, like 2024-12-31.
+     */
+    date,
+    /**
+     * ISO-8601 date and time with either a space or 'T' separator and an optional offset,
+     * like 2024-12-31 23:59:59.999999+00. Values without offset are taken as UTC.
+     */
+    timestamp
+}
@@ -1,36 +1,31 @@
 package io.cockroachdb.dl.pubsub;
 
-import java.time.Instant;
-
 import org.springframework.util.Assert;
 
 public class Message<E> {
+    private static final Message<?> POISON_PILL = new Message<>();
+
     public static <E> Message<E> of(E object) {
-        return new Message<>(Instant.now(),object);
+        return new Message<>(object);
     }
 
+    @SuppressWarnings("unchecked")
     public static <E> Message<E> poisonPill() {
-        return new Message<>(Instant.now());
+        return (Message<E>) POISON_PILL;
     }
 
     private final E payload;
 
-    private final Instant publishTime;
-
     private final boolean poisonPill;
 
-    private Message(Instant publishTime, E payload) {
-        Assert.notNull(publishTime, "publishTime is null");
+    private Message(E payload) {
         Assert.notNull(payload, "payload is null");
         this.payload = payload;
-        this.publishTime = publishTime;
         this.poisonPill = false;
     }
 
-    private Message(Instant publishTime) {
-        Assert.notNull(publishTime, "publishTime is null");
+    private Message() {
         this.payload = null;
-        this.publishTime = publishTime;
         this.poisonPill = true;
     }
 
@@ -42,15 +37,10 @@ public class Message<E> {
         return payload;
     }
 
-    public Instant getPublishTime() {
-        return publishTime;
-    }
-
     @Override
     public String toString() {
         return "Message{" +
                 "payload=" + payload +
-                ", publishTime=" + publishTime +
                 ", poisonPill=" + poisonPill +
                 '}';
     }
@@ -20,7 +20,8 @@ import io.cockroachdb.dl.core.event.CancellationEvent;
 import io.cockroachdb.dl.core.event.GenericEvent;
 
 /**
- * A basic publish/subscribe orchestrator using blocking queues and parallelism.
+ * A basic publish/subscribe orchestrator using lock-free ring buffer topics, where
+ * each topic listener is drained by a separate thread.
  */
 @Component
 public class Publisher {
@@ -49,36 +50,43 @@ public class Publisher {
     @SuppressWarnings("unchecked")
     public <E> Topic<E> getTopic(String name) {
         return (Topic<E>) topics.computeIfAbsent(name, n -> {
-            DefaultTopic<E> topic = new DefaultTopic<>(name, queueSize);
-
-            Future<Void> future = threadPoolExecutor.submit(() -> {
-                try {
-                    DefaultTopic.Stats stats = topic.drainAndBroadcast();
-                    logger.debug("Topic [%s] drained - listeners(%d) queued(%d) dequeued(%d) published(%d)"
-                            .formatted(stats.getName(),
-                                    stats.getListeners(),
-                                    stats.getEventsQueued(),
-                                    stats.getEventsDequeued(),
-                                    stats.getEventsPublished()));
-                    return null;
-                } catch (Throwable e) {
-                    logger.error("Uncategorized error draining topic [%s]".formatted(name), e);
-                    throw new UndeclaredThrowableException(e);
-                } finally {
-                    topics.remove(name);
-                    logger.debug("Topic [%s] removed - remaining: %s"
-                            .formatted(name, topics.keySet()));
-                }
+            RingBufferTopic<E> topic = new RingBufferTopic<>(name, queueSize, subscriber -> {
+                Future<Void> future = threadPoolExecutor.submit(() -> {
+                    try {
+                        RingBufferTopic.Stats stats = subscriber.call();
+                        logger.debug("Topic [%s] drained - listeners(%d) published(%d) consumed(%d)"
+                                .formatted(stats.getName(),
+                                        stats.getListeners(),
+                                        stats.getEventsPublished(),
+                                        stats.getEventsConsumed()));
+                        return null;
+                    } catch (Throwable e) {
+                        logger.error("Uncategorized error draining topic [%s]".formatted(name), e);
+                        throw new UndeclaredThrowableException(e);
+                    } finally {
+                        removeIfDrained(name);
+                    }
+                });
+
+                futures.add(new WeakReference<>(future));
             });
 
-            futures.add(new WeakReference<>(future));
-
             logger.debug("Topic [%s] created - queue size %d".formatted(name, queueSize));
 
             return topic;
         });
     }
 
+    private void removeIfDrained(String name) {
+        topics.computeIfPresent(name, (n, topic) -> {
+            if (topic instanceof RingBufferTopic<?> t && t.isDrained()) {
+                logger.debug("Topic [%s] removed - remaining: %s".formatted(name, topics.keySet()));
+                return null;
+            }
+            return topic;
+        });
+    }
+
     public void cancel() {
         futures.forEach(futureWeakReference -> {
             try {
@@ -0,0 +1,296 @@
+package io.cockroachdb.dl.pubsub;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.cockroachdb.dl.util.concurrent.Sequence;
+
+/**
+ * A single-producer topic backed by a pre-allocated ring buffer, where each
+ * subscriber drains the buffer in its own thread and tracks its position with
+ * a separate sequence cursor. The producer claims slots without locking and is
+ * only held back when the slowest subscriber is a full buffer behind.
+ * <p>
+ * Subscribers process all published messages available in batches and only
+ * advance their cursor once per batch. Idle subscribers spin briefly and then
+ * park, and are only woken up by the producer once a batch of messages has
+ * been published (or on a poison pill), or by timeout.
+ * <p>
+ * Messages must be published by one thread at a time.
+ *
+ * @param <E> the message payload type
+ */
+public class RingBufferTopic<E> implements Topic<E> {
+    public static class Stats {
+        private final String name;
+
+        private final long eventsPublished;
+
+        private final long eventsConsumed;
+
+        private final int listeners;
+
+        Stats(String name, long eventsPublished, long eventsConsumed, int listeners) {
+            this.name = name;
+            this.eventsPublished = eventsPublished;
+            this.eventsConsumed = eventsConsumed;
+            this.listeners = listeners;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getEventsPublished() {
+            return eventsPublished;
+        }
+
+        public long getEventsConsumed() {
+            return eventsConsumed;
+        }
+
+        public int getListeners() {
+            return listeners;
+        }
+    }
+
+    private static final int SPIN_TRIES = 100;
+
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long PUBLISHER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final String name;
+
+    private final Object[] entries;
+
+    private final int mask;
+
+    private final int signalThreshold;
+
+    private final Sequence cursor = new Sequence(-1);
+
+    private final AtomicInteger parkedSubscribers = new AtomicInteger();
+
+    private final Consumer<Callable<Stats>> launcher;
+
+    private volatile Subscriber<?>[] subscribers = new Subscriber<?>[0];
+
+    private volatile Sequence[] gatingSequences = new Sequence[0];
+
+    private volatile boolean completed;
+
+    // Producer state, only accessed by the publishing thread
+
+    private long claimed = -1;
+
+    private long cachedGatingSequence = -1;
+
+    private long lastSignal = -1;
+
+    /**
+     * @param name     the topic name
+     * @param capacity the ring buffer capacity, rounded up to the next power of two
+     * @param launcher launcher for subscriber drain tasks, invoked once per listener
+     */
+    public RingBufferTopic(String name, int capacity, Consumer<Callable<Stats>> launcher) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be > 0");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.name = name;
+        this.entries = new Object[size];
+        this.mask = size - 1;
+        this.signalThreshold = Math.max(1, size >> 3);
+        this.launcher = launcher;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return true if a poison pill is published and all subscribers have consumed it
+     */
+    public boolean isDrained() {
+        return completed && subscribers.length == 0;
+    }
+
+    @Override
+    public void addMessageListener(MessageListener<E> listener) {
+        Subscriber<E> subscriber = new Subscriber<>(this, listener);
+        synchronized (this) {
+            subscriber.sequence.set(cursor.get());
+            subscribers = append(subscribers, subscriber);
+            gatingSequences = append(gatingSequences, subscriber.sequence);
+        }
+        launcher.accept(subscriber);
+    }
+
+    @Override
+    public boolean hasMessageListeners() {
+        return subscribers.length > 0;
+    }
+
+    @Override
+    public void publish(Message<E> message) {
+        final long next = claimed + 1;
+        final long wrapPoint = next - entries.length;
+
+        if (wrapPoint > cachedGatingSequence) {
+            awaitCapacity(wrapPoint);
+        }
+
+        entries[(int) (next & mask)] = message;
+        cursor.set(next);
+        claimed = next;
+
+        if (message.isPoisonPill()) {
+            completed = true;
+        }
+
+        if (parkedSubscribers.get() > 0 && (message.isPoisonPill() || next - lastSignal >= signalThreshold)) {
+            wakeSubscribers();
+            lastSignal = next;
+        }
+    }
+
+    private void awaitCapacity(long wrapPoint) {
+        long minimum;
+        int spins = 0;
+
+        while (wrapPoint > (minimum = Sequence.minimumOf(gatingSequences, claimed))) {
+            wakeSubscribers();
+            if (++spins < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(this, PUBLISHER_PARK_NANOS);
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("Interrupted publish for topic: " + name);
+            }
+        }
+
+        cachedGatingSequence = minimum;
+    }
+
+    private void wakeSubscribers() {
+        for (Subscriber<?> subscriber : subscribers) {
+            if (subscriber.parked) {
+                LockSupport.unpark(subscriber.thread);
+            }
+        }
+    }
+
+    private synchronized void remove(Subscriber<?> subscriber) {
+        subscribers = Arrays.stream(subscribers)
+                .filter(s -> s != subscriber)
+                .toArray(Subscriber<?>[]::new);
+        gatingSequences = Arrays.stream(gatingSequences)
+                .filter(s -> s != subscriber.sequence)
+                .toArray(Sequence[]::new);
+    }
+
+    private static <T> T[] append(T[] array, T element) {
+        T[] copy = Arrays.copyOf(array, array.length + 1);
+        copy[array.length] = element;
+        return copy;
+    }
+
+    private static class Subscriber<E> implements Callable<Stats> {
+        private final RingBufferTopic<E> topic;
+
+        private final MessageListener<E> listener;
+
+        private final Sequence sequence = new Sequence(-1);
+
+        private volatile Thread thread;
+
+        private volatile boolean parked;
+
+        Subscriber(RingBufferTopic<E> topic, MessageListener<E> listener) {
+            this.topic = topic;
+            this.listener = listener;
+        }
+
+        @Override
+        public Stats call() {
+            this.thread = Thread.currentThread();
+
+            final String name = topic.name;
+
+            long consumed = 0;
+            long next = sequence.get() + 1;
+
+            topic.logger.debug("Draining topic [%s] from sequence %d".formatted(name, next));
+
+            try {
+                while (true) {
+                    final long available = waitFor(next);
+
+                    for (; next <= available; next++) {
+                        @SuppressWarnings("unchecked")
+                        Message<E> message = (Message<E>) topic.entries[(int) (next & topic.mask)];
+                        listener.onMessage(message);
+                        consumed++;
+
+                        if (message.isPoisonPill()) {
+                            topic.logger.debug("Suspending draining topic [%s] due to poison pill".formatted(name));
+                            sequence.set(next);
+                            return new Stats(name, topic.cursor.get() + 1, consumed, topic.subscribers.length);
+                        }
+                    }
+
+                    sequence.set(available);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                topic.logger.warn("Interrupted topic [%s]".formatted(name));
+                return new Stats(name, topic.cursor.get() + 1, consumed, topic.subscribers.length);
+            } finally {
+                topic.remove(this);
+            }
+        }
+
+        private long waitFor(long next) throws InterruptedException {
+            long available;
+            int spins = 0;
+
+            while ((available = topic.cursor.get()) < next) {
+                if (++spins < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+
+                parked = true;
+                topic.parkedSubscribers.incrementAndGet();
+                try {
+                    if (topic.cursor.get() < next) {
+                        LockSupport.parkNanos(this, PARK_NANOS);
+                    }
+                } finally {
+                    parked = false;
+                    topic.parkedSubscribers.decrementAndGet();
+                }
+
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+
+            return available;
+        }
+    }
+}
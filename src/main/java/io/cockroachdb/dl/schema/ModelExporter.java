@@ -19,8 +19,9 @@ import io.cockroachdb.dl.core.model.Ref;
 import io.cockroachdb.dl.core.model.Table;
 import io.cockroachdb.dl.util.graph.DirectedAcyclicGraph;
 
+import static io.cockroachdb.dl.core.model.IdentityType.local_ordered;
+import static io.cockroachdb.dl.core.model.IdentityType.local_unordered;
 import static io.cockroachdb.dl.core.model.IdentityType.sequence;
-import static io.cockroachdb.dl.core.model.IdentityType.unordered;
 import static io.cockroachdb.dl.core.model.IdentityType.uuid;
 
 public abstract class ModelExporter {
@@ -167,17 +168,16 @@ public abstract class ModelExporter {
 
                 Gen gen = new Gen();
 
-                if ("unique_rowid()".equalsIgnoreCase(columnDef)
-                        || "unordered_unique_rowid()".equalsIgnoreCase(columnDef)) {
-                    gen.setType(unordered);
-                    gen.setBatchSize(512);
+                if ("unique_rowid()".equalsIgnoreCase(columnDef)) {
+                    gen.setType(local_ordered);
+                } else if ("unordered_unique_rowid()".equalsIgnoreCase(columnDef)) {
+                    gen.setType(local_unordered);
                 } else if ("gen_random_uuid()".equalsIgnoreCase(columnDef)
                         || "uuid_generate_v4()".equalsIgnoreCase(columnDef)) {
                     gen.setType(uuid);
                 } else {
                     if ("YES".equalsIgnoreCase(generatedColumn)) {
-                        gen.setType(unordered);
-                        gen.setBatchSize(512);
+                        gen.setType(local_unordered);
                     } else {
                         gen.setType(sequence);
                         gen.setFrom("1");
@@ -8,7 +8,9 @@ import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
@@ -21,6 +23,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.event.EventListener;
 import org.springframework.data.util.Pair;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.shell.Availability;
 import org.springframework.shell.standard.ShellCommandGroup;
 import org.springframework.shell.standard.ShellComponent;
@@ -44,6 +47,7 @@ import io.cockroachdb.dl.core.event.ProducersStartingEvent;
 import io.cockroachdb.dl.core.ChunkProducerQualifier;
 import io.cockroachdb.dl.core.ChunkProducers;
 import io.cockroachdb.dl.core.CsvFileProducer;
+import io.cockroachdb.dl.core.Slice;
 import io.cockroachdb.dl.core.model.ApplicationModel;
 import io.cockroachdb.dl.core.model.ImportInto;
 import io.cockroachdb.dl.core.model.Root;
@@ -69,6 +73,10 @@ public class CSV extends AbstractEventPublisher {
     @Autowired
     private CsvFileProducer csvFileProducer;
 
+    @Autowired
+    @Qualifier("asyncTaskExecutor")
+    private ThreadPoolTaskExecutor threadPoolExecutor;
+
     private final List<Path> activeProducers
             = Collections.synchronizedList(new ArrayList<>());
 
@@ -184,21 +192,38 @@ public class CSV extends AbstractEventPublisher {
 
         publishEvent(new ProducersStartingEvent());
 
-        final CountDownLatch startLatch = new CountDownLatch(applicationModel.getTables().size());
+        final Map<Table, List<Slice>> tableSlices = new LinkedHashMap<>();
+
+        applicationModel.getTables().forEach(table -> tableSlices.put(table,
+                table.getFinalPartitions() > 1
+                        ? Slice.partition(table.getFinalCount(), table.getFinalPartitions())
+                        : List.of(Slice.whole(table.getFinalCount()))));
+
+        final int producers = tableSlices.values()
+                .stream()
+                .mapToInt(List::size)
+                .sum();
+
+        // All producers and topic drains must be running concurrently to pass the start latch
+        ChunkProducers.validateThreadPoolSize(tableSlices, threadPoolExecutor.getCorePoolSize());
+
+        final CountDownLatch startLatch = new CountDownLatch(producers);
         final List<Task> futures = new ArrayList<>();
 
-        applicationModel.getTables().forEach(table -> {
-            Path path = basePath.resolve("%s%s%s".formatted(prefix, table.getName(), suffix));
+        tableSlices.forEach((table, slices) -> slices.forEach(slice -> {
+            Path path = basePath.resolve(slice.isPartial()
+                    ? "%s%s-%03d%s".formatted(prefix, table.getName(), slice.getIndex() + 1, suffix)
+                    : "%s%s%s".formatted(prefix, table.getName(), suffix));
 
             Task task = new Task();
             task.table = table;
             task.path = path;
-            task.future = csvFileProducer.start(table, path, startLatch);
+            task.future = csvFileProducer.start(table, slice, path, startLatch);
 
             futures.add(task);
 
             publishEvent(new ProducerStartedEvent(table, path));
-        });
+        }));
 
         while (!futures.isEmpty()) {
             Task t = futures.remove(0);
@@ -3,8 +3,6 @@ package io.cockroachdb.dl.shell;
 import java.time.Duration;
 import java.time.Instant;
 
-import javax.sql.DataSource;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.shell.standard.ShellCommandGroup;
 import org.springframework.shell.standard.ShellComponent;
@@ -14,7 +12,6 @@ import org.springframework.shell.standard.ShellOption;
 import io.cockroachdb.dl.expression.Expression;
 import io.cockroachdb.dl.expression.ExpressionException;
 import io.cockroachdb.dl.expression.ExpressionRegistry;
-import io.cockroachdb.dl.expression.ExpressionRegistryBuilder;
 import io.cockroachdb.dl.shell.support.AnsiConsole;
 import io.cockroachdb.dl.shell.support.FunctionValueProvider;
 
@@ -22,7 +19,7 @@ import io.cockroachdb.dl.shell.support.FunctionValueProvider;
 @ShellCommandGroup(CommandGroups.EXPR)
 public class Expressions {
     @Autowired
-    private DataSource dataSource;
+    private ExpressionRegistry registry;
 
     @Autowired
     private AnsiConsole ansiConsole;
@@ -31,9 +28,6 @@ public class Expressions {
     public void evaluateFunction(@ShellOption(
             value = {"expression"},
             valueProvider = FunctionValueProvider.class) String expression) {
-
-        final ExpressionRegistry registry = ExpressionRegistryBuilder.build(dataSource);
-
         ansiConsole.magenta("Expression: ").green("%s", expression).nl();
 
         try {
@@ -55,8 +49,6 @@ public class Expressions {
 
     @ShellMethod(value = "List expression functions and variables", key = {"expr-functions", "f"})
     public void listFunctions() {
-        final ExpressionRegistry registry = ExpressionRegistryBuilder.build(dataSource);
-
         ansiConsole.cyan("-- Functions --").nl();
         registry.functionCategories().forEach(category -> {
             ansiConsole.green("--- Category '%s' ---", category).nl();
@@ -10,20 +10,20 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.shell.standard.EnumValueProvider;
 import org.springframework.shell.standard.ShellCommandGroup;
 import org.springframework.shell.standard.ShellComponent;
 import org.springframework.shell.standard.ShellMethod;
 import org.springframework.shell.standard.ShellOption;
 
 import io.cockroachdb.dl.core.event.AbstractEventPublisher;
-import io.cockroachdb.dl.mergesort.ComparatorType;
 import io.cockroachdb.dl.mergesort.ExternalMerge;
 import io.cockroachdb.dl.mergesort.ExternalMergeSort;
 import io.cockroachdb.dl.mergesort.ExternalSplit;
+import io.cockroachdb.dl.mergesort.SortColumn;
 import io.cockroachdb.dl.shell.support.AnotherFileValueProvider;
 import io.cockroachdb.dl.shell.support.AnsiConsole;
 import io.cockroachdb.dl.shell.support.DirectoryValueProvider;
+import io.cockroachdb.dl.util.Multiplier;
 
 import static java.nio.file.FileVisitOption.FOLLOW_LINKS;
 
@@ -40,14 +40,19 @@ public class Sort extends AbstractEventPublisher {
             @ShellOption(help = "output file path (derived from input path if omitted)",
                     defaultValue = ShellOption.NULL,
                     valueProvider = AnotherFileValueProvider.class) String outputFile,
-            @ShellOption(help = "comma separated list of CSV column(s) to sort by (one-based). If omitted, all columns are included.",
-                    defaultValue = ShellOption.NULL) List<Integer> columns,
-            @ShellOption(help = "line comparator type",
-                    defaultValue = "auto",
-                    valueProvider = EnumValueProvider.class) ComparatorType comparatorType,
+            @ShellOption(help = "comma separated list of CSV column(s) to sort by as <index>[:<type>][:asc|desc] "
+                                + "where index is one-based and type is one of string (default), int, decimal, uuid, date or timestamp, "
+                                + "like 2:int:desc,1. If omitted, whole lines are compared.",
+                    defaultValue = ShellOption.NULL) List<String> columns,
             @ShellOption(help = "column delimiter", defaultValue = ",") String delimiter,
+            @ShellOption(help = "quote character for fields with delimiters or line breaks (empty for none)",
+                    defaultValue = "\"") String quote,
             @ShellOption(help = "number of chunks or files (-1 denotes number of host vCPU:s)", defaultValue = "-1")
             int chunks,
+            @ShellOption(help = "memory budget for sorting shared by all chunks in multiplier syntax like 512M or 4G (half of max heap if omitted)",
+                    defaultValue = ShellOption.NULL) String memory,
+            @ShellOption(help = "read buffer size per sorted run when merging in multiplier syntax like 4M (derived from memory budget if omitted)",
+                    defaultValue = ShellOption.NULL) String mergeBufferSize,
             @ShellOption(help = "lines to skip from input file denoting header (included in sorted output)", defaultValue = "0")
             int linesToSkip,
             @ShellOption(help = "keep original input file after completion",
@@ -59,12 +64,14 @@ public class Sort extends AbstractEventPublisher {
 
         ExternalMergeSort externalMergeSort = ExternalMergeSort.builder()
                 .withChunks(chunks > 0 ? chunks : Runtime.getRuntime().availableProcessors())
+                .withMemory(memory != null ? Multiplier.parseLong(memory) : Runtime.getRuntime().maxMemory() / 2)
+                .withMergeBufferSize(mergeBufferSize != null ? Math.toIntExact(Multiplier.parseLong(mergeBufferSize)) : 0)
                 .withLinesToSkip(linesToSkip)
                 .withInputFile(Paths.get(inputFile))
                 .withOutputFile(outputFile != null ? Paths.get(outputFile) : null)
-                .withOrderByColumns(columns != null ? columns : List.of())
-                .withComparator(comparatorType)
+                .withOrderBy(columns != null ? columns.stream().map(SortColumn::parse).toList() : List.of())
                 .withDelimiter(delimiter)
+                .withQuoteCharacter(quote)
                 .withReplace(!skipReplace)
                 .withProgressConsumer((progress) -> {
                     console.progressBar(
@@ -82,6 +89,9 @@ public class Sort extends AbstractEventPublisher {
             @ShellOption(help = "input file path",
                     defaultValue = ShellOption.NONE,
                     valueProvider = AnotherFileValueProvider.class) String inputFile,
+            @ShellOption(help = "column delimiter", defaultValue = ",") String delimiter,
+            @ShellOption(help = "quote character for fields with delimiters or line breaks (empty for none)",
+                    defaultValue = "\"") String quote,
             @ShellOption(help = "number of chunks or files (-1 denotes number of host vCPU:s)", defaultValue = "-1")
             int chunks,
             @ShellOption(help = "lines to skip from input file denoting header (included in sorted output)", defaultValue = "0")
@@ -93,6 +103,8 @@ public class Sort extends AbstractEventPublisher {
                 .withChunks(chunks > 0 ? chunks : Runtime.getRuntime().availableProcessors())
                 .withLinesToSkip(linesToSkip)
                 .withInputFile(Paths.get(inputFile))
+                .withDelimiter(delimiter)
+                .withQuoteCharacter(quote)
                 .withDelete(!skipDelete)
                 .withProgressConsumer((progress) -> {
                     console.progressBar(
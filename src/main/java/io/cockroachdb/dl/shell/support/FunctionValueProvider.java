@@ -1,8 +1,8 @@
 package io.cockroachdb.dl.shell.support;
 
 import io.cockroachdb.dl.expression.ExpressionRegistry;
-import io.cockroachdb.dl.expression.ExpressionRegistryBuilder;
 import io.cockroachdb.dl.expression.FunctionDef;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.shell.CompletionContext;
 import org.springframework.shell.CompletionProposal;
 import org.springframework.shell.standard.ValueProvider;
@@ -11,6 +11,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class FunctionValueProvider implements ValueProvider {
+    @Autowired
+    private ExpressionRegistry registry;
+
     @Override
     public List<CompletionProposal> complete(CompletionContext completionContext) {
         List<CompletionProposal> result = new ArrayList<>();
@@ -20,8 +23,6 @@ public class FunctionValueProvider implements ValueProvider {
             prefix = "";
         }
 
-        final ExpressionRegistry registry = ExpressionRegistryBuilder.build(null);
-
         for (FunctionDef functionDef : registry.functionDefinitions()) {
             if (functionDef.idMatchesPrefix(prefix)) {
                 result.add(new CompletionProposal(functionDef.getId())
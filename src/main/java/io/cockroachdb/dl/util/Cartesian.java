@@ -1,7 +1,11 @@
 package io.cockroachdb.dl.util;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -14,6 +18,20 @@ public abstract class Cartesian {
     private Cartesian() {
     }
 
+    /**
+     * Create a lazy iterator over the cartesian product of N random access sets,
+     * advancing an index per set like an odometer (last set varies fastest).
+     * The same list view is returned for each combination and is only valid
+     * until the next call to {@code next()}.
+     *
+     * @param sets the sets, must support random access
+     * @param <T>  element type
+     * @return odometer iterator of combinations
+     */
+    public static <T> Odometer<T> cartesianProductIterator(List<? extends List<T>> sets) {
+        return new Odometer<>(sets);
+    }
+
     public static <T> List<List<T>> cartesianProductList(List<List<T>> sets) {
         return cartesianProductStream(sets, 0)
                 .collect(Collectors.toList());
@@ -36,4 +54,78 @@ public abstract class Cartesian {
                         }));
     }
 
+    public static final class Odometer<T> implements Iterator<List<T>> {
+        private final List<? extends List<T>> sets;
+
+        private final int[] indexes;
+
+        private final List<T> current;
+
+        private boolean exhausted;
+
+        private boolean started;
+
+        private Odometer(List<? extends List<T>> sets) {
+            this.sets = sets;
+            this.indexes = new int[sets.size()];
+            this.exhausted = sets.isEmpty() || sets.stream().anyMatch(List::isEmpty);
+            this.current = new CombinationView();
+        }
+
+        /**
+         * @return number of combinations (product of set sizes)
+         * @throws ArithmeticException on overflow
+         */
+        public long size() {
+            return sets.stream()
+                    .mapToLong(List::size)
+                    .reduce(1, Math::multiplyExact);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (exhausted) {
+                return false;
+            }
+            if (!started) {
+                return true;
+            }
+            for (int i = indexes.length - 1; i >= 0; i--) {
+                if (indexes[i] + 1 < sets.get(i).size()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public List<T> next() {
+            if (!started && !exhausted) {
+                started = true;
+                return current;
+            }
+
+            for (int i = indexes.length - 1; i >= 0; i--) {
+                if (++indexes[i] < sets.get(i).size()) {
+                    return current;
+                }
+                indexes[i] = 0;
+            }
+
+            exhausted = true;
+            throw new NoSuchElementException();
+        }
+
+        private final class CombinationView extends AbstractList<T> implements RandomAccess {
+            @Override
+            public T get(int index) {
+                return sets.get(index).get(indexes[index]);
+            }
+
+            @Override
+            public int size() {
+                return indexes.length;
+            }
+        }
+    }
 }
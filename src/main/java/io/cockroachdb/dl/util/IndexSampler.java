@@ -0,0 +1,72 @@
+package io.cockroachdb.dl.util;
+
+/**
+ * Samples a position in a sequence of a varying number of items ordered from
+ * oldest to newest, for example to pick rows from a rolling window with skew.
+ * Draws from the current {@link RandomSource}.
+ */
+@FunctionalInterface
+public interface IndexSampler {
+    /**
+     * Each position is equally likely.
+     */
+    IndexSampler UNIFORM = bound -> RandomSource.current().nextInt(bound);
+
+    /**
+     * The first (oldest) positions are the most likely, following a Zipf distribution.
+     *
+     * @param exponent the Zipf exponent
+     * @return the sampler
+     */
+    static IndexSampler zipf(double exponent) {
+        return new IndexSampler() {
+            private volatile ZipfSampler sampler = new ZipfSampler(1, exponent);
+
+            @Override
+            public int nextIndex(int bound) {
+                ZipfSampler s = sampler;
+                if (s.getNumberOfElements() != bound) {
+                    // Only recomputed while the number of items grows
+                    s = new ZipfSampler(bound, exponent);
+                    sampler = s;
+                }
+                return (int) s.sample() - 1;
+            }
+        };
+    }
+
+    /**
+     * The last (newest) positions are the most likely, following a Zipf distribution.
+     *
+     * @param exponent the Zipf exponent
+     * @return the sampler
+     */
+    static IndexSampler latest(double exponent) {
+        IndexSampler zipf = zipf(exponent);
+        return bound -> bound - 1 - zipf.nextIndex(bound);
+    }
+
+    /**
+     * A fraction of the first positions are picked with a given probability
+     * and the rest otherwise, uniformly within each set.
+     *
+     * @param hotFraction    fraction of hot positions, between 0 and 1
+     * @param hotProbability probability of picking a hot position, between 0 and 1
+     * @return the sampler
+     */
+    static IndexSampler hotspot(double hotFraction, double hotProbability) {
+        if (!(hotFraction >= 0 && hotFraction <= 1)) {
+            throw new IllegalArgumentException("Hot fraction must be between 0 and 1: " + hotFraction);
+        }
+        if (!(hotProbability >= 0 && hotProbability <= 1)) {
+            throw new IllegalArgumentException("Hot probability must be between 0 and 1: " + hotProbability);
+        }
+        return bound -> (int) RandomData.randomHotspot(bound, hotFraction, hotProbability, RandomSource.current()) - 1;
+    }
+
+    /**
+     * @param bound the number of items, must be > 0
+     * @return a position in {@code 0..bound-1}
+     */
+    int nextIndex(int bound);
+}
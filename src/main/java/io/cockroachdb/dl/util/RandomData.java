@@ -18,6 +18,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -30,7 +31,7 @@ import java.util.Currency;
 import java.util.List;
 import java.util.Locale;
 import java.util.StringJoiner;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -58,6 +59,24 @@ public class RandomData {
 
     private static final List<String> lorem = new ArrayList<>();
 
+    private static final List<String> emailFirstNames = new ArrayList<>();
+
+    private static final List<String> emailLastNames = new ArrayList<>();
+
+    private static final byte[] ALPHANUMERIC
+            = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] VOWELS = "aeiou".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] CONSONANTS = "bcdfghjklmnpqrstvwxyz".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int SCRATCH_SIZE = 1024;
+
+    /**
+     * Per-thread buffer for composing ASCII strings, copied once into the resulting string.
+     */
+    private static final ThreadLocal<byte[]> scratch = ThreadLocal.withInitial(() -> new byte[SCRATCH_SIZE]);
+
     private static List<String> readLines(String path) {
         try (InputStream resource = new ClassPathResource(path).getInputStream();
              BufferedReader reader = new BufferedReader(new InputStreamReader(resource))) {
@@ -76,6 +95,9 @@ public class RandomData {
         stateCodes.addAll(readLines(("random/state_code.txt")));
         lorem.addAll(readLines(("random/lorem.txt")));
 
+        firstNames.forEach(name -> emailFirstNames.add(name.toLowerCase().replace(' ', '.')));
+        lastNames.forEach(name -> emailLastNames.add(name.toLowerCase().replace(' ', '.')));
+
         Arrays.stream(Locale.getAvailableLocales())
                 .filter(locale -> StringUtils.hasLength(locale.getDisplayCountry(Locale.US)))
                 .map(locale -> locale.getDisplayCountry(Locale.US))
@@ -95,33 +117,60 @@ public class RandomData {
     }
 
     public static boolean randomBoolean() {
-        return ThreadLocalRandom.current().nextBoolean();
+        return RandomSource.current().nextBoolean();
     }
 
     public static int randomInt(int start, int end) {
-        return ThreadLocalRandom.current().nextInt(start, end);
+        return RandomSource.current().nextInt(start, end);
     }
 
     public static long randomLong(long start, long end) {
-        return ThreadLocalRandom.current().nextLong(start, end);
+        return RandomSource.current().nextLong(start, end);
     }
 
     public static double randomDouble(double start, double end) {
-        return ThreadLocalRandom.current().nextDouble(start, end);
+        return RandomSource.current().nextDouble(start, end);
+    }
+
+    public static double randomGaussian(double mean, double stddev) {
+        return RandomSource.current().nextGaussian(mean, stddev);
+    }
+
+    public static double randomExponential(double lambda) {
+        if (!(lambda > 0)) {
+            throw new IllegalArgumentException("Rate must be > 0: " + lambda);
+        }
+        return RandomSource.current().nextExponential() / lambda;
+    }
+
+    /**
+     * Pick a number in {@code 1..n} where the first {@code hotFraction} of the numbers
+     * are picked with {@code hotProbability} and the remaining ones otherwise,
+     * uniformly within each range.
+     */
+    public static long randomHotspot(long n, double hotFraction, double hotProbability, RandomGenerator random) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Number of elements must be > 0: " + n);
+        }
+        long hotCount = Math.min(n, (long) (n * hotFraction));
+        if (hotCount == n || (hotCount > 0 && random.nextDouble() < hotProbability)) {
+            return 1 + random.nextLong(hotCount);
+        }
+        return hotCount + 1 + random.nextLong(n - hotCount);
     }
 
     public static LocalDate randomDate() {
-        return LocalDate.now().plusDays(ThreadLocalRandom.current().nextBoolean()
+        return LocalDate.now().plusDays(RandomSource.current().nextBoolean()
                 ? randomInt(0, 90) : -randomInt(0, 90));
     }
 
     public static LocalTime randomTime() {
-        return LocalTime.now().plusHours(ThreadLocalRandom.current().nextBoolean()
+        return LocalTime.now().plusHours(RandomSource.current().nextBoolean()
                 ? randomInt(0, 24) : -randomInt(0, 24));
     }
 
     public static LocalDateTime randomDateTime() {
-        ThreadLocalRandom r = ThreadLocalRandom.current();
+        RandomGenerator r = RandomSource.current();
         return LocalDateTime.now()
                 .plusDays(r.nextBoolean() ? randomInt(0, 90) : -randomInt(0, 90))
                 .plusHours(r.nextBoolean() ? randomInt(0, 24) : -randomInt(0, 24));
@@ -136,16 +185,16 @@ public class RandomData {
     }
 
     public static BigDecimal randomBigDecimal(double origin, double bound, int scale) {
-        return BigDecimal.valueOf(ThreadLocalRandom.current().nextDouble(origin, bound))
+        return BigDecimal.valueOf(RandomSource.current().nextDouble(origin, bound))
                 .setScale(scale, RoundingMode.HALF_UP);
     }
 
     public static <E> E selectRandom(List<E> collection) {
-        return collection.get(ThreadLocalRandom.current().nextInt(collection.size()));
+        return collection.get(RandomSource.current().nextInt(collection.size()));
     }
 
     public static <E> E selectRandom(E[] collection) {
-        return collection[ThreadLocalRandom.current().nextInt(collection.length)];
+        return collection[RandomSource.current().nextInt(collection.length)];
     }
 
     public static <T> T selectRandomWeighted(Collection<T> items, List<Double> weights) {
@@ -157,7 +206,7 @@ public class RandomData {
         }
 
         double totalWeight = weights.stream().mapToDouble(w -> w).sum();
-        double randomWeight = ThreadLocalRandom.current().nextDouble() * totalWeight;
+        double randomWeight = RandomSource.current().nextDouble() * totalWeight;
         double cumulativeWeight = 0;
 
         int idx = 0;
@@ -184,23 +233,16 @@ public class RandomData {
     }
 
     public static String randomPhoneNumber() {
-        ThreadLocalRandom random = ThreadLocalRandom.current();
-        StringBuilder sb = new StringBuilder()
-                .append("(")
-                .append(random.nextInt(9) + 1);
-        for (int i = 0; i < 2; i++) {
-            sb.append(random.nextInt(10));
-        }
-        sb.append(") ")
-                .append(random.nextInt(9) + 1);
-        for (int i = 0; i < 2; i++) {
-            sb.append(random.nextInt(10));
-        }
-        sb.append("-");
-        for (int i = 0; i < 4; i++) {
-            sb.append(random.nextInt(10));
-        }
-        return sb.toString();
+        RandomGenerator random = RandomSource.current();
+        byte[] buf = scratch.get();
+        buf[0] = '(';
+        putDigits(buf, 1, random.nextInt(100, 1000), 3);
+        buf[4] = ')';
+        buf[5] = ' ';
+        putDigits(buf, 6, random.nextInt(100, 1000), 3);
+        buf[9] = '-';
+        putDigits(buf, 10, random.nextInt(10000), 4);
+        return new String(buf, 0, 14, StandardCharsets.ISO_8859_1);
     }
 
     public static String randomCountry() {
@@ -220,20 +262,13 @@ public class RandomData {
     }
 
     public static String randomZipCode() {
-        StringBuilder sb = new StringBuilder();
-        ThreadLocalRandom random = ThreadLocalRandom.current();
-        for (int i = 0; i < 5; i++) {
-            sb.append(random.nextInt(10));
-        }
-        return sb.toString();
+        byte[] buf = scratch.get();
+        putDigits(buf, 0, RandomSource.current().nextInt(100000), 5);
+        return new String(buf, 0, 5, StandardCharsets.ISO_8859_1);
     }
 
     public static String randomEmail() {
-        String sb = randomFirstName().toLowerCase()
-                + "."
-                + randomLastName().toLowerCase()
-                + "@example.com";
-        return sb.replace(' ', '.');
+        return selectRandom(emailFirstNames) + "." + selectRandom(emailLastNames) + "@example.com";
     }
 
     public static String randomLoreIpsum(int min, int max, boolean paragraphs) {
@@ -275,13 +310,9 @@ public class RandomData {
         }
     }
 
-    private static final char[] VOWELS = "aeiou".toCharArray();
-
-    private static final char[] CONSONANTS = "bcdfghjklmnpqrstvwxyz".toCharArray();
-
     public static byte[] randomBytes(int min) {
         byte[] arr = new byte[min];
-        ThreadLocalRandom.current().nextBytes(arr);
+        RandomSource.current().nextBytes(arr);
         return arr;
     }
 
@@ -296,40 +327,48 @@ public class RandomData {
     }
 
     public static String randomString(int min, int max) {
-        int leftLimit = 48; // numeral '0'
-        int rightLimit = 122; // letter 'z'
-        ThreadLocalRandom random = ThreadLocalRandom.current();
-        return random.ints(leftLimit, rightLimit + 1)
-                .filter(i -> (i <= 57 || i >= 65) && (i <= 90 || i >= 97))
-                .limit(random.nextInt(min, max))
-                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
-                .toString();
+        return randomString(RandomSource.current().nextInt(min, max));
     }
 
     public static String randomString(int min) {
-        int leftLimit = 48; // numeral '0'
-        int rightLimit = 122; // letter 'z'
-        ThreadLocalRandom random = ThreadLocalRandom.current();
-        return random.ints(leftLimit, rightLimit + 1)
-                .filter(i -> (i <= 57 || i >= 65) && (i <= 90 || i >= 97))
-                .limit(min)
-                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
-                .toString();
+        byte[] buf = min <= SCRATCH_SIZE ? scratch.get() : new byte[min];
+        fillAlphanumeric(buf, min, RandomSource.current());
+        return new String(buf, 0, min, StandardCharsets.ISO_8859_1);
     }
 
     public static String randomWord(int min) {
-        StringBuilder sb = new StringBuilder();
-        boolean vowelStart = true;
-        ThreadLocalRandom random = ThreadLocalRandom.current();
+        byte[] buf = min <= SCRATCH_SIZE ? scratch.get() : new byte[min];
+        RandomGenerator random = RandomSource.current();
         for (int i = 0; i < min; i++) {
-            if (vowelStart) {
-                sb.append(VOWELS[random.nextInt(VOWELS.length)]);
-            } else {
-                sb.append(CONSONANTS[random.nextInt(CONSONANTS.length)]);
+            buf[i] = (i & 1) == 0
+                    ? VOWELS[random.nextInt(VOWELS.length)]
+                    : CONSONANTS[random.nextInt(CONSONANTS.length)];
+        }
+        return new String(buf, 0, min, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Fill a buffer with random alphanumeric characters, drawing 6 bits per character
+     * from each random long and rejecting the two values out of range.
+     */
+    private static void fillAlphanumeric(byte[] buf, int len, RandomGenerator random) {
+        int i = 0;
+        while (i < len) {
+            long bits = random.nextLong();
+            for (int n = 0; n < 10 && i < len; n++, bits >>>= 6) {
+                int c = (int) bits & 0x3f;
+                if (c < ALPHANUMERIC.length) {
+                    buf[i++] = ALPHANUMERIC[c];
+                }
             }
-            vowelStart = !vowelStart;
         }
-        return sb.toString();
+    }
+
+    private static void putDigits(byte[] buf, int offset, int v, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            buf[i] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
     }
 
     public static final List<String> FACTS = Arrays.asList(
@@ -351,7 +390,7 @@ public class RandomData {
     );
 
     public static String randomRoachFact() {
-        return FACTS.get(ThreadLocalRandom.current().nextInt(FACTS.size()));
+        return FACTS.get(RandomSource.current().nextInt(FACTS.size()));
     }
 
     private static class LoreIpsum {
@@ -375,7 +414,7 @@ public class RandomData {
 
         public String getParagraphs(int min, int max) {
             StringBuilder sb = new StringBuilder();
-            ThreadLocalRandom random = ThreadLocalRandom.current();
+            RandomGenerator random = RandomSource.current();
 
             for (int j = 0; j < getCount(min, max); j++) {
                 for (int i = 0; i < random.nextInt(5) + 2; i++) {
@@ -393,14 +432,14 @@ public class RandomData {
             if (max < min) {
                 max = min;
             }
-            return max != min ? ThreadLocalRandom.current().nextInt(max - min) + min : min;
+            return max != min ? RandomSource.current().nextInt(max - min) + min : min;
         }
 
         private String getWords(int count, boolean capitalize) {
             StringBuilder sb = new StringBuilder();
 
             int wordCount = 0;
-            ThreadLocalRandom random = ThreadLocalRandom.current();
+            RandomGenerator random = RandomSource.current();
             while (wordCount < count) {
                 String word = lorem.get(random.nextInt(lorem.size()));
                 if (capitalize) {
@@ -417,7 +456,7 @@ public class RandomData {
     }
 
     public static String randomIPv4() {
-        ThreadLocalRandom r = ThreadLocalRandom.current();
+        RandomGenerator r = RandomSource.current();
         StringJoiner joiner = new StringJoiner(".");
         joiner.add(r.nextInt(0, 255) + "");
         joiner.add(r.nextInt(0, 255) + "");
@@ -429,7 +468,7 @@ public class RandomData {
     private static final char[] hexChars = "0123456789abcdef".toCharArray();
 
     public static String randomIPv6() {
-        ThreadLocalRandom random = ThreadLocalRandom.current();
+        RandomGenerator random = RandomSource.current();
         StringJoiner joiner = new StringJoiner(":");
         IntStream.range(0, 8).mapToObj(i -> new StringBuilder()).forEach(b -> {
             IntStream.rangeClosed(1, 4).forEach(value ->
@@ -0,0 +1,170 @@
+package io.cockroachdb.dl.util;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Samples items from a fixed collection in constant time, either uniformly or
+ * according to given weights. Weighted sampling uses an alias table built with
+ * Vose's method, so that each sample takes one bounded random int and one random
+ * double regardless of the number of items. Instances are immutable and thread safe.
+ *
+ * @param <T> the item type
+ */
+public final class RandomSampler<T> {
+    /**
+     * Create a sampler selecting each item with equal probability.
+     *
+     * @param items the items to sample
+     * @param <T> the item type
+     * @return the sampler
+     */
+    public static <T> RandomSampler<T> uniform(Collection<T> items) {
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException("Empty collection");
+        }
+        return new RandomSampler<>(items.toArray(), null, null);
+    }
+
+    /**
+     * Create a sampler selecting items with a probability proportional to
+     * their weight. Falls back to uniform sampling if there are no weights.
+     *
+     * @param items the items to sample
+     * @param weights the non-negative item weights, in the same order as the items
+     * @param <T> the item type
+     * @return the sampler
+     */
+    public static <T> RandomSampler<T> weighted(Collection<T> items, List<? extends Number> weights) {
+        if (weights.isEmpty()) {
+            return uniform(items);
+        }
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException("Empty collection");
+        }
+        if (items.size() != weights.size()) {
+            throw new IllegalArgumentException("Collection and weights mismatch");
+        }
+
+        final int n = weights.size();
+
+        double totalWeight = 0;
+        for (Number weight : weights) {
+            double w = weight.doubleValue();
+            if (!(w >= 0) || Double.isInfinite(w)) {
+                throw new IllegalArgumentException("Weights must be finite and non-negative: " + weight);
+            }
+            totalWeight += w;
+        }
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("Sum of weights must be > 0");
+        }
+
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights.get(i).doubleValue() * n / totalWeight;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        double[] probability = new double[n];
+        int[] alias = new int[n];
+
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+
+            probability[less] = scaled[less];
+            alias[less] = more;
+
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+
+        // Leftovers are 1 save for rounding errors
+        while (largeCount > 0) {
+            int i = large[--largeCount];
+            probability[i] = 1.0;
+            alias[i] = i;
+        }
+        while (smallCount > 0) {
+            int i = small[--smallCount];
+            probability[i] = 1.0;
+            alias[i] = i;
+        }
+
+        return new RandomSampler<>(items.toArray(), probability, alias);
+    }
+
+    private final Object[] items;
+
+    private final double[] probability;
+
+    private final int[] alias;
+
+    private RandomSampler(Object[] items, double[] probability, int[] alias) {
+        this.items = items;
+        this.probability = probability;
+        this.alias = alias;
+    }
+
+    /**
+     * @return a random item using the current random source
+     */
+    public T next() {
+        return next(RandomSource.current());
+    }
+
+    /**
+     * @param random the random generator to use
+     * @return a random item
+     */
+    @SuppressWarnings("unchecked")
+    public T next(RandomGenerator random) {
+        int i = random.nextInt(items.length);
+        if (probability != null && random.nextDouble() >= probability[i]) {
+            i = alias[i];
+        }
+        return (T) items[i];
+    }
+
+    /**
+     * @return the number of items
+     */
+    public int size() {
+        return items.length;
+    }
+
+    /**
+     * Returns the exact probability of sampling the item at given index,
+     * as represented by the alias table.
+     */
+    double probabilityOf(int index) {
+        if (probability == null) {
+            return 1.0 / items.length;
+        }
+        double p = 0;
+        for (int i = 0; i < items.length; i++) {
+            if (i == index) {
+                p += probability[i];
+            }
+            if (alias[i] == index) {
+                p += 1.0 - probability[i];
+            }
+        }
+        return p / items.length;
+    }
+}
@@ -0,0 +1,62 @@
+package io.cockroachdb.dl.util;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Source of random values for all random data generators. Defaults to the
+ * thread local random generator unless a seeded generator has been installed
+ * for the current thread, in which case generated values are reproducible.
+ */
+public abstract class RandomSource {
+    private static final ThreadLocal<RandomGenerator> installed = new ThreadLocal<>();
+
+    private RandomSource() {
+    }
+
+    /**
+     * @return the random generator for the current thread
+     */
+    public static RandomGenerator current() {
+        RandomGenerator random = installed.get();
+        return random != null ? random : ThreadLocalRandom.current();
+    }
+
+    /**
+     * @return true if a seeded generator is installed for the current thread
+     */
+    public static boolean isSeeded() {
+        return installed.get() != null;
+    }
+
+    /**
+     * Install a generator for the current thread until uninstalled.
+     *
+     * @param random the generator
+     */
+    public static void install(RandomGenerator random) {
+        installed.set(random);
+    }
+
+    /**
+     * Revert to the thread local random generator for the current thread.
+     */
+    public static void uninstall() {
+        installed.remove();
+    }
+
+    /**
+     * @return a random version 4 UUID, using a cryptographically strong generator
+     * unless seeded
+     */
+    public static UUID randomUUID() {
+        RandomGenerator random = installed.get();
+        if (random == null) {
+            return UUID.randomUUID();
+        }
+        long msb = (random.nextLong() & ~0xf000L) | 0x4000L;
+        long lsb = (random.nextLong() & ~(0xc000L << 48)) | (0x8000L << 48);
+        return new UUID(msb, lsb);
+    }
+}
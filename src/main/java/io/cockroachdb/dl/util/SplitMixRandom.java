@@ -0,0 +1,89 @@
+package io.cockroachdb.dl.util;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A seeded, splittable pseudo-random generator based on the SplitMix64 algorithm
+ * (same as {@link java.util.SplittableRandom}), where the state is a counter
+ * advanced by a constant for each value drawn. This allows jumping ahead any
+ * number of values in constant time and repositioning the generator to an
+ * independent stream per row, so that any row of a table can be generated
+ * without generating the preceding rows.
+ * <p>
+ * Not thread safe.
+ */
+public final class SplitMixRandom implements RandomGenerator {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Derive a seed for a named stream, such as a table, from a common seed.
+     *
+     * @param seed the common seed
+     * @param name the stream name
+     * @return the derived seed
+     */
+    public static long deriveSeed(long seed, String name) {
+        return mix64(seed + mix64(name.hashCode() * GOLDEN_GAMMA));
+    }
+
+    private final long seed;
+
+    private long state;
+
+    public SplitMixRandom(long seed) {
+        this.seed = seed;
+        this.state = seed;
+    }
+
+    /**
+     * @return the seed of this generator
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Position the generator at the start of the value stream for a given
+     * position, such as a row number, derived from the seed. Positioning is
+     * independent of any values drawn before.
+     *
+     * @param position the stream position
+     */
+    public void setPosition(long position) {
+        this.state = mix64(seed + position * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Skip ahead a number of values in constant time.
+     *
+     * @param steps number of values to skip
+     */
+    public void jump(long steps) {
+        this.state += steps * GOLDEN_GAMMA;
+    }
+
+    /**
+     * Split off a new generator with a seed drawn from this generator.
+     *
+     * @return a new generator
+     */
+    public SplitMixRandom split() {
+        return new SplitMixRandom(nextLong());
+    }
+
+    @Override
+    public long nextLong() {
+        return mix64(state += GOLDEN_GAMMA);
+    }
+
+    @Override
+    public int nextInt() {
+        return (int) (nextLong() >>> 32);
+    }
+}
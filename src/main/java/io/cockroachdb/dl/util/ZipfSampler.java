@@ -0,0 +1,104 @@
+package io.cockroachdb.dl.util;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Samples ranks from a Zipf distribution over {@code 1..n} with a given exponent,
+ * where rank 1 is the most frequent. Uses the rejection-inversion method by
+ * Hörmann and Derflinger, which takes constant time per sample with a handful of
+ * precomputed constants and no tables, regardless of the number of elements.
+ * Instances are immutable and thread safe.
+ */
+public final class ZipfSampler {
+    private static double helper1(double x) {
+        // log(1+x)/x accurate near zero
+        return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3.0 - 0.25 * x));
+    }
+
+    private static double helper2(double x) {
+        // (exp(x)-1)/x accurate near zero
+        return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x * (1.0 / 3.0) * (1 + 0.25 * x));
+    }
+
+    private final long n;
+
+    private final double exponent;
+
+    private final double hIntegralX1;
+
+    private final double hIntegralN;
+
+    private final double threshold;
+
+    /**
+     * @param n        number of elements, must be > 0
+     * @param exponent the exponent, must be > 0 where larger values give more skew
+     */
+    public ZipfSampler(long n, double exponent) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Number of elements must be > 0: " + n);
+        }
+        if (!(exponent > 0) || Double.isInfinite(exponent)) {
+            throw new IllegalArgumentException("Exponent must be > 0: " + exponent);
+        }
+        this.n = n;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1;
+        this.hIntegralN = hIntegral(n + 0.5);
+        this.threshold = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    public long getNumberOfElements() {
+        return n;
+    }
+
+    public double getExponent() {
+        return exponent;
+    }
+
+    /**
+     * @param random the random generator to use
+     * @return a rank in {@code 1..n}
+     */
+    public long sample(RandomGenerator random) {
+        while (true) {
+            double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+            double x = hIntegralInverse(u);
+
+            long k = (long) (x + 0.5);
+            if (k < 1) {
+                k = 1;
+            } else if (k > n) {
+                k = n;
+            }
+
+            if (k - x <= threshold || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+    /**
+     * @return a rank in {@code 1..n} using the current random source
+     */
+    public long sample() {
+        return sample(RandomSource.current());
+    }
+
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return helper2((1 - exponent) * logX) * logX;
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = x * (1 - exponent);
+        if (t < -1) {
+            t = -1;
+        }
+        return Math.exp(helper1(t) * x);
+    }
+}
@@ -5,8 +5,8 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingDeque;
 
-public class BlockingFifoQueue<K, V> implements FifoQueue<K, V> {
-    private final Map<String, BlockingQueue<Map<K, V>>> blockingQueues
+public class BlockingFifoQueue<E> implements FifoQueue<E> {
+    private final Map<String, BlockingQueue<E>> blockingQueues
             = new ConcurrentHashMap<>();
 
     private final int bufferCapacity;
@@ -18,19 +18,17 @@ public class BlockingFifoQueue<K, V> implements FifoQueue<K, V> {
         this.bufferCapacity = bufferCapacity;
     }
 
-    private BlockingQueue<Map<K, V>> queueFor(String key) {
-        blockingQueues.putIfAbsent(key, new LinkedBlockingDeque<>(bufferCapacity));
-        return blockingQueues.get(key);
+    private BlockingQueue<E> queueFor(String key) {
+        return blockingQueues.computeIfAbsent(key, k -> new LinkedBlockingDeque<>(bufferCapacity));
     }
 
     @Override
-    public Map<K, V> take(String key) throws InterruptedException {
+    public E take(String key) throws InterruptedException {
         return queueFor(key).take();
     }
 
     @Override
-    public void put(String key, Map<K, V> values) throws InterruptedException {
-        queueFor(key).put(ConcurrencyUtils.immutableCopyOf(values));
+    public void put(String key, E value) throws InterruptedException {
+        queueFor(key).put(value);
     }
 }
-
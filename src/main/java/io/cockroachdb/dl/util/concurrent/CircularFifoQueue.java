@@ -2,10 +2,18 @@ package io.cockroachdb.dl.util.concurrent;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
 
-public class CircularFifoQueue<K, V> implements FifoQueue<K, V> {
-    private final Map<String, RingBuffer<Map<K, V>>> ringBuffers
+import io.cockroachdb.dl.util.IndexSampler;
+
+/**
+ * A FIFO queue of bounded ring buffers by key, where take returns a random
+ * sample of the most recently put items rather than removing the head.
+ * Takers block until the first item is put for a given key.
+ *
+ * @param <E> the item type
+ */
+public class CircularFifoQueue<E> implements FifoQueue<E> {
+    private final Map<String, RingBuffer<E>> ringBuffers
             = new ConcurrentHashMap<>();
 
     private final int bufferCapacity;
@@ -17,24 +25,29 @@ public class CircularFifoQueue<K, V> implements FifoQueue<K, V> {
         this.bufferCapacity = bufferCapacity;
     }
 
-    private RingBuffer<Map<K, V>> ringBufferFor(String key) {
-        ringBuffers.putIfAbsent(key, new RingBuffer<>(bufferCapacity));
-        return ringBuffers.get(key);
+    private RingBuffer<E> ringBufferFor(String key) {
+        return ringBuffers.computeIfAbsent(key, k -> new RingBuffer<>(bufferCapacity));
     }
 
     @Override
-    public Map<K, V> take(String key) throws InterruptedException {
-        RingBuffer<Map<K, V>> ringBuffer = ringBufferFor(key);
-        Map<K, V> values = ringBuffer.getRandom();
-        while (values == null) {
-            TimeUnit.MILLISECONDS.sleep(500);
-            values = ringBuffer.getRandom();
-        }
-        return values;
+    public E take(String key) throws InterruptedException {
+        return ringBufferFor(key).takeRandom();
+    }
+
+    /**
+     * Take a sample of the most recently put items for a key, picked by given sampler.
+     *
+     * @param key     the key
+     * @param sampler the sampler, where position 0 is the oldest item
+     * @return the item
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public E take(String key, IndexSampler sampler) throws InterruptedException {
+        return ringBufferFor(key).take(sampler);
     }
 
     @Override
-    public void put(String key, Map<K, V> values) {
-        ringBufferFor(key).add(ConcurrencyUtils.immutableCopyOf(values));
+    public void put(String key, E value) {
+        ringBufferFor(key).add(value);
     }
 }
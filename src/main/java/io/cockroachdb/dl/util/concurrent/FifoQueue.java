@@ -1,9 +1,7 @@
 package io.cockroachdb.dl.util.concurrent;
 
-import java.util.Map;
+public interface FifoQueue<E> {
+    void put(String key, E value) throws InterruptedException;
 
-public interface FifoQueue<K, V> {
-    void put(String key, Map<K, V> values) throws InterruptedException;
-
-    Map<K, V> take(String key) throws InterruptedException;
+    E take(String key) throws InterruptedException;
 }
@@ -1,39 +1,134 @@
 package io.cockroachdb.dl.util.concurrent;
 
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
-@NotThreadSafe
-public class RingBuffer<T> {
-    private int index;
+import io.cockroachdb.dl.util.IndexSampler;
 
+/**
+ * A fixed size, thread safe reservoir of the most recently added items where
+ * the oldest items are overwritten when full. Adding and sampling items is
+ * lock-free, except for waking up threads blocked on an initially empty buffer.
+ *
+ * @param <T> the item type
+ */
+public class RingBuffer<T> {
     private final int size;
 
-    private final T[] buffer;
+    private final AtomicReferenceArray<T> buffer;
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
 
     public RingBuffer(int size) {
         if (size <= 0) {
             throw new IllegalArgumentException("Size must be > 0");
         }
         this.size = size;
-        //noinspection unchecked
-        this.buffer = (T[]) new Object[this.size];
+        this.buffer = new AtomicReferenceArray<>(size);
     }
 
     public void add(T item) {
-        this.buffer[this.index] = item;
-        this.index = (this.index + 1) % this.size;
+        if (item == null) {
+            throw new NullPointerException("item is null");
+        }
+
+        long n = count.getAndIncrement();
+        buffer.set((int) (n % size), item);
+
+        if (n == 0) {
+            lock.lock();
+            try {
+                notEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
     }
 
     public T get(int i) {
         if (i < 0) {
             throw new IllegalArgumentException("Index must be >= 0");
         }
-        return this.buffer[i % this.size];
+        return buffer.get(i % size);
+    }
+
+    /**
+     * @return the number of items in the buffer, at most the buffer size
+     */
+    public int size() {
+        return (int) Math.min(size, count.get());
     }
 
+    /**
+     * @return a random item or null if the buffer is empty
+     */
     public T getRandom() {
-        ThreadLocalRandom random = ThreadLocalRandom.current();
-        int bound = Math.min(size, index);
-        return bound > 0 ? buffer[random.nextInt(bound)] : null;
+        return get(IndexSampler.UNIFORM);
+    }
+
+    /**
+     * Get an item picked by a sampler, where the sampler position 0 is the oldest
+     * and the position {@code size()-1} the most recently added item.
+     *
+     * @param sampler the sampler
+     * @return the item or null if the buffer is empty
+     */
+    public T get(IndexSampler sampler) {
+        while (true) {
+            long n = count.get();
+            int bound = (int) Math.min(size, n);
+            if (bound == 0) {
+                return null;
+            }
+            long seq = n - bound + sampler.nextIndex(bound);
+            T item = buffer.get((int) (seq % size));
+            // Only null if the slot is claimed but not yet written during the first lap
+            if (item != null) {
+                return item;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Get a random item, waiting if necessary until an item becomes available.
+     *
+     * @return a random item
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public T takeRandom() throws InterruptedException {
+        return take(IndexSampler.UNIFORM);
+    }
+
+    /**
+     * Get an item picked by a sampler, waiting if necessary until an item becomes available.
+     *
+     * @param sampler the sampler
+     * @return the item
+     * @throws InterruptedException if interrupted while waiting
+     * @see #get(IndexSampler)
+     */
+    public T take(IndexSampler sampler) throws InterruptedException {
+        T item = get(sampler);
+        if (item != null) {
+            return item;
+        }
+
+        lock.lockInterruptibly();
+        try {
+            while (count.get() == 0) {
+                notEmpty.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return get(sampler);
     }
-}
\ No newline at end of file
+}
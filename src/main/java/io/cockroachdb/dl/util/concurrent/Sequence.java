@@ -0,0 +1,59 @@
+package io.cockroachdb.dl.util.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A monotonically increasing sequence counter padded on both sides to avoid
+ * false sharing with neighbouring fields of other sequences when updated
+ * from different threads. Writes use release semantics and reads use acquire
+ * semantics, which is sufficient for single-writer cursors.
+ */
+public class Sequence {
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Sequence.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private long p1, p2, p3, p4, p5, p6, p7;
+
+    private volatile long value;
+
+    @SuppressWarnings("unused")
+    private long p9, p10, p11, p12, p13, p14, p15;
+
+    public Sequence(long initialValue) {
+        VALUE.setRelease(this, initialValue);
+    }
+
+    public long get() {
+        return (long) VALUE.getAcquire(this);
+    }
+
+    public void set(long value) {
+        VALUE.setRelease(this, value);
+    }
+
+    /**
+     * @param sequences the sequences
+     * @param minimum   the value to return if there are no sequences
+     * @return the minimum value of all sequences
+     */
+    public static long minimumOf(Sequence[] sequences, long minimum) {
+        for (Sequence sequence : sequences) {
+            minimum = Math.min(minimum, sequence.get());
+        }
+        return minimum;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(get());
+    }
+}
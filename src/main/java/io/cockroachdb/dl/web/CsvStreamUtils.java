@@ -1,12 +1,8 @@
 package io.cockroachdb.dl.web;
 
-import java.io.BufferedWriter;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.nio.channels.Channels;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -14,29 +10,33 @@ import java.util.zip.GZIPOutputStream;
 
 import javax.sql.DataSource;
 
-import org.springframework.batch.item.Chunk;
-import org.springframework.batch.item.ExecutionContext;
-
+import io.cockroachdb.dl.core.Row;
 import io.cockroachdb.dl.core.generator.ValueGenerator;
 import io.cockroachdb.dl.core.generator.ValueGenerators;
 import io.cockroachdb.dl.core.model.Column;
+import io.cockroachdb.dl.core.model.ColumnLayout;
 import io.cockroachdb.dl.core.model.Table;
 import io.cockroachdb.dl.core.stream.CsvStreamWriter;
 import io.cockroachdb.dl.core.stream.CsvStreamWriterBuilder;
 import io.cockroachdb.dl.expression.ExpressionRegistry;
-import io.cockroachdb.dl.expression.ExpressionRegistryBuilder;
 import io.cockroachdb.dl.expression.FunctionDef;
+import io.cockroachdb.dl.expression.OverlayExpressionRegistry;
+import io.cockroachdb.dl.util.RandomSource;
+import io.cockroachdb.dl.util.SplitMixRandom;
 import io.cockroachdb.dl.web.model.TableModel;
 
 public abstract class CsvStreamUtils {
     private CsvStreamUtils() {
     }
 
+    private static final int STREAM_BUFFER_SIZE = 65_536;
+
     private static final Predicate<Column> COLUMN_INCLUDE_PREDICATE
             = column -> (column.isHidden() == null || !column.isHidden())
                         && column.getEach() == null && column.getRef() == null;
 
     public static void writeCsvStream(DataSource dataSource,
+                                      ExpressionRegistry sharedRegistry,
                                       TableModel tableModel,
                                       OutputStream outputStream) {
         Table table = new Table();
@@ -55,8 +55,11 @@ public abstract class CsvStreamUtils {
 
         final AtomicInteger currentRow = new AtomicInteger();
 
-        final Map<Column, ValueGenerator<?>> columnGenerators
-                = createColumnGenerators(dataSource, table, List.of(FunctionDef.builder()
+        final List<Column> columns = table.filterColumns(COLUMN_INCLUDE_PREDICATE);
+        final ColumnLayout layout = ColumnLayout.of(columns, column -> true);
+
+        final ValueGenerator<?>[] columnGenerators
+                = createColumnGenerators(dataSource, sharedRegistry, columns, List.of(FunctionDef.builder()
                 .withCategory("other")
                 .withId("rowNumber")
                 .withDescription("Returns current row number.")
@@ -64,53 +67,58 @@ public abstract class CsvStreamUtils {
                 .withFunction(args -> currentRow.get())
                 .build()));
 
-        try (CsvStreamWriter<Map<String, Object>> writer = new CsvStreamWriterBuilder<Map<String, Object>>()
+        try (CsvStreamWriter writer = new CsvStreamWriterBuilder()
                 .withDelimiter(tableModel.getDelimiter())
                 .withQuoteCharacter(tableModel.getQuoteCharacter())
                 .withIncludeHeader(tableModel.isIncludeHeader())
-                .withColumnNames(table
-                        .filterColumns(COLUMN_INCLUDE_PREDICATE)
-                        .stream()
-                        .map(Column::getName)
-                        .toList())
+                .withColumnLayout(layout)
+                .withBufferSize(STREAM_BUFFER_SIZE)
+                .withChannel(Channels.newChannel(tableModel.isGzip()
+                        ? new GZIPOutputStream(outputStream, true)
+                        : outputStream))
                 .build()) {
 
-            if (tableModel.isGzip()) {
-                writer.setWriter(new BufferedWriter(
-                        new OutputStreamWriter(new GZIPOutputStream(outputStream, true))));
-            } else {
-                writer.setWriter(new BufferedWriter(
-                        new OutputStreamWriter(outputStream)));
-            }
+            writer.open();
 
-            writer.open(new ExecutionContext());
+            final Row row = new Row(layout);
+
+            final SplitMixRandom random = tableModel.getSeed() != null
+                    ? new SplitMixRandom(tableModel.getSeed())
+                    : null;
+            if (random != null) {
+                RandomSource.install(random);
+            }
 
             for (int i = 0; i < table.getFinalCount(); i++) {
-                Map<String, Object> orderedTuples = new LinkedHashMap<>();
-                for (Column col : table.filterColumns(COLUMN_INCLUDE_PREDICATE)) {
-                    orderedTuples.put(col.getName(), columnGenerators.get(col).nextValue());
+                if (random != null) {
+                    random.setPosition(currentRow.get());
+                }
+                for (int c = 0; c < columnGenerators.length; c++) {
+                    row.set(c, columnGenerators[c].nextValue());
                 }
-                writer.write(Chunk.of(orderedTuples));
+                writer.write(row);
                 currentRow.incrementAndGet();
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            RandomSource.uninstall();
         }
     }
 
-    private static Map<Column, ValueGenerator<?>> createColumnGenerators(DataSource dataSource,
-                                                                         Table table,
-                                                                         List<FunctionDef> functionDefs) {
-        ExpressionRegistry registry = ExpressionRegistryBuilder.build(dataSource);
+    private static ValueGenerator<?>[] createColumnGenerators(DataSource dataSource,
+                                                             ExpressionRegistry sharedRegistry,
+                                                             List<Column> columns,
+                                                             List<FunctionDef> functionDefs) {
+        ExpressionRegistry registry = new OverlayExpressionRegistry(sharedRegistry);
         functionDefs.forEach(registry::addFunction);
 
-        Map<Column, ValueGenerator<?>> generatorMap = new HashMap<>();
-
-        // Get generator for all non-ref columns
-        table.filterColumns(Table.WITH_REF.or(Table.WITH_EACH).negate())
-                .forEach(column -> generatorMap.put(column,
-                        ValueGenerators.createValueGenerator(column, dataSource, registry)));
+        // Get generator for all non-ref columns by ordinal
+        ValueGenerator<?>[] generators = new ValueGenerator<?>[columns.size()];
+        for (int i = 0; i < generators.length; i++) {
+            generators[i] = ValueGenerators.createValueGenerator(columns.get(i), dataSource, registry);
+        }
 
-        return generatorMap;
+        return generators;
     }
 }
@@ -29,6 +29,7 @@ import io.cockroachdb.dl.config.ProfileNames;
 import io.cockroachdb.dl.core.model.Column;
 import io.cockroachdb.dl.core.model.Gen;
 import io.cockroachdb.dl.core.model.Table;
+import io.cockroachdb.dl.expression.ExpressionRegistry;
 import io.cockroachdb.dl.schema.MetaDataUtils;
 import io.cockroachdb.dl.schema.ModelExporter;
 import io.cockroachdb.dl.web.model.MessageModel;
@@ -47,6 +48,9 @@ public class TableController {
     @Autowired
     private DataSource dataSource;
 
+    @Autowired
+    private ExpressionRegistry expressionRegistry;
+
     @GetMapping(value = "/table")
     public ResponseEntity<MessageModel> index() {
         MessageModel index = MessageModel.from("Table index");
@@ -140,7 +144,7 @@ public class TableController {
         if (tableModel.isGzip()) {
             bb.header(HttpHeaders.CONTENT_ENCODING, "gzip");
         }
-        return bb.body(outputStream -> CsvStreamUtils.writeCsvStream(dataSource, tableModel, outputStream));
+        return bb.body(outputStream -> CsvStreamUtils.writeCsvStream(dataSource, expressionRegistry, tableModel, outputStream));
     }
 
     @GetMapping(value = "/table/schema/{table}",
@@ -176,6 +180,6 @@ public class TableController {
             bb.header(HttpHeaders.CONTENT_ENCODING, "gzip");
         }
 
-        return bb.body(outputStream -> CsvStreamUtils.writeCsvStream(dataSource, tableModel, outputStream));
+        return bb.body(outputStream -> CsvStreamUtils.writeCsvStream(dataSource, expressionRegistry, tableModel, outputStream));
     }
 }
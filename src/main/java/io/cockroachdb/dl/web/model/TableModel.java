@@ -40,6 +40,16 @@ public class TableModel extends RepresentationModel<TableModel> {
 
     private String quoteCharacter = "";
 
+    private Long seed;
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
     public String getImportInto() {
         return importInto;
     }
@@ -0,0 +1,81 @@
+package io.cockroachdb.dl.core;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.cockroachdb.dl.core.model.Column;
+import io.cockroachdb.dl.core.model.Ref;
+import io.cockroachdb.dl.core.model.Table;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag("unit-test")
+public class ChunkProducersTest {
+    private static Table createTable(String name, int partitions, Column... columns) {
+        Table table = new Table();
+        table.setName(name);
+        table.setCount("100");
+        table.setPartitions(partitions);
+        table.setColumns(List.of(columns));
+        return table;
+    }
+
+    private static Column refColumn(String name, String table) {
+        Ref ref = new Ref();
+        ref.setName(table);
+        ref.setColumn("id");
+
+        Column column = Column.of(name);
+        column.setRef(ref);
+        return column;
+    }
+
+    /**
+     * Two upstream tables plus a table in 3 partitions referencing both, where each
+     * partition subscribes once per referenced table: 5 producers and 6 subscribers.
+     */
+    private static Map<Table, List<Slice>> createModel() {
+        Table customer = createTable("customer", 1, Column.of("id"));
+        Table product = createTable("product", 1, Column.of("id"));
+        Table orders = createTable("orders", 3,
+                Column.of("id"),
+                refColumn("customer_id", "customer"),
+                refColumn("billing_customer_id", "customer"),
+                refColumn("product_id", "product"));
+
+        Map<Table, List<Slice>> tableSlices = new LinkedHashMap<>();
+        List.of(customer, product, orders).forEach(table -> tableSlices.put(table,
+                table.getFinalPartitions() > 1
+                        ? Slice.partition(table.getFinalCount(), table.getFinalPartitions())
+                        : List.of(Slice.whole(table.getFinalCount()))));
+        return tableSlices;
+    }
+
+    @Test
+    public void whenCountingSubscriptions_thenCountDistinctTables() {
+        Map<Table, List<Slice>> tableSlices = createModel();
+
+        assertEquals(List.of(0, 0, 2), tableSlices.keySet()
+                .stream()
+                .map(ChunkProducers::subscriptionCount)
+                .toList());
+    }
+
+    @Test
+    public void whenSubscribersExceedPoolSize_thenRefuse() {
+        Map<Table, List<Slice>> tableSlices = createModel();
+
+        // Producers alone fit in the pool but the topic drains do not
+        assertThrows(ConfigurationException.class,
+                () -> ChunkProducers.validateThreadPoolSize(tableSlices, 6));
+        assertThrows(ConfigurationException.class,
+                () -> ChunkProducers.validateThreadPoolSize(tableSlices, 11));
+        assertDoesNotThrow(() -> ChunkProducers.validateThreadPoolSize(tableSlices, 12));
+    }
+}
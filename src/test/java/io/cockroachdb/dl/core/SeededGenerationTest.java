@@ -0,0 +1,115 @@
+package io.cockroachdb.dl.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import io.cockroachdb.dl.core.model.Column;
+import io.cockroachdb.dl.core.model.Table;
+import io.cockroachdb.dl.core.model.ValueSet;
+import io.cockroachdb.dl.expression.ExpressionRegistry;
+import io.cockroachdb.dl.expression.ExpressionRegistryBuilder;
+import io.cockroachdb.dl.pubsub.Publisher;
+import io.cockroachdb.dl.util.RandomSource;
+import io.cockroachdb.dl.util.SplitMixRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+@Tag("unit-test")
+public class SeededGenerationTest {
+    private static final ExpressionRegistry REGISTRY = ExpressionRegistryBuilder.buildImmutable(null);
+
+    private static Table createTable() {
+        List<Column> columns = new ArrayList<>();
+        columns.add(Column.of("id"));
+        columns.get(0).setExpression("rowNumber()");
+        columns.add(Column.of("name"));
+        columns.get(1).setExpression("randomString(12)");
+        columns.add(Column.of("amount"));
+        columns.get(2).setExpression("randomInt(1, 1000) * 10");
+        columns.add(Column.of("uid"));
+        columns.get(3).setExpression("randomUUID()");
+        columns.add(Column.of("pick"));
+        columns.get(4).setExpression("selectRandom('a', 'b', 'c')");
+
+        ValueSet<String> set = new ValueSet<>();
+        set.setValues(List.of("x", "y", "z"));
+        set.setWeights(List.of(0.2, 0.3, 0.5));
+        columns.add(Column.of("weighted"));
+        columns.get(5).setSet(set);
+
+        Table table = new Table();
+        table.setName("test");
+        table.setCount("100");
+        table.setColumns(columns);
+        return table;
+    }
+
+    private static List<String> produce(Table table, Slice slice, Long seed) throws Exception {
+        UpstreamChunkProducer producer = new UpstreamChunkProducer();
+        producer.initialize(new SimpleDriverDataSource(), REGISTRY, new Publisher(), table, slice, seed);
+
+        List<String> rows = new ArrayList<>();
+        producer.produceChunks((batch, rowEstimate) -> {
+            for (int i = 0; i < batch.size(); i++) {
+                rows.add(batch.get(i).toString());
+            }
+            return true;
+        });
+        return rows;
+    }
+
+    @Test
+    public void whenSeeded_thenGenerateSameRows() throws Exception {
+        Table table = createTable();
+
+        List<String> first = produce(table, Slice.whole(100), 42L);
+        List<String> second = produce(table, Slice.whole(100), 42L);
+
+        assertEquals(100, first.size());
+        assertEquals(first, second);
+        assertNotEquals(first, produce(table, Slice.whole(100), 43L));
+        assertNotEquals(first, produce(table, Slice.whole(100), null));
+        assertFalse(RandomSource.isSeeded());
+    }
+
+    @Test
+    public void whenSeededSlices_thenGenerateSameRowsAsWhole() throws Exception {
+        Table table = createTable();
+
+        List<String> whole = produce(table, Slice.whole(100), 7L);
+
+        List<String> sliced = new ArrayList<>();
+        for (Slice slice : Slice.partition(100, 3)) {
+            sliced.addAll(produce(table, slice, 7L));
+        }
+
+        assertEquals(whole, sliced);
+    }
+
+    @Test
+    public void whenJumpingAhead_thenSkipValues() {
+        SplitMixRandom random = new SplitMixRandom(1);
+        random.setPosition(10);
+        random.nextLong();
+        random.nextLong();
+        long third = random.nextLong();
+
+        random.setPosition(10);
+        random.jump(2);
+        assertEquals(third, random.nextLong());
+
+        SplitMixRandom other = new SplitMixRandom(1);
+        other.nextLong();
+        other.setPosition(10);
+        other.jump(2);
+        assertEquals(third, other.nextLong());
+
+        assertNotEquals(SplitMixRandom.deriveSeed(1, "a"), SplitMixRandom.deriveSeed(1, "b"));
+    }
+}
@@ -0,0 +1,52 @@
+package io.cockroachdb.dl.core;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.cockroachdb.dl.core.generator.SequenceGenerator;
+import io.cockroachdb.dl.core.model.Gen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unit-test")
+public class SliceTest {
+    @Test
+    public void whenPartitioningRows_thenCoverAllRowsInOrder() {
+        List<Slice> slices = Slice.partition(10, 3);
+
+        assertEquals(3, slices.size());
+        assertEquals(4, slices.get(0).getRows());
+        assertEquals(3, slices.get(1).getRows());
+        assertEquals(3, slices.get(2).getRows());
+
+        assertEquals(0, slices.get(0).getOffset());
+        assertEquals(4, slices.get(1).getOffset());
+        assertEquals(7, slices.get(2).getOffset());
+
+        slices.forEach(slice -> assertTrue(slice.isPartial()));
+    }
+
+    @Test
+    public void whenPartitioningFewRows_thenLimitSlices() {
+        assertEquals(2, Slice.partition(2, 8).size());
+        assertEquals(1, Slice.partition(0, 8).size());
+        assertFalse(Slice.whole(10).isPartial());
+    }
+
+    @Test
+    public void whenSequenceStartsAtOffset_thenContinueFromSlice() {
+        Gen gen = new Gen();
+        gen.setFrom("10");
+        gen.setTo("20");
+        gen.setStep(5);
+
+        // Values cycle 10, 15, 20
+        assertEquals(10L, new SequenceGenerator(gen, 0).nextValue());
+        assertEquals(20L, new SequenceGenerator(gen, 2).nextValue());
+        assertEquals(15L, new SequenceGenerator(gen, 4).nextValue());
+    }
+}
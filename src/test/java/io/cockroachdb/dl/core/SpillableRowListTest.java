@@ -0,0 +1,108 @@
+package io.cockroachdb.dl.core;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.cockroachdb.dl.core.model.ColumnLayout;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unit-test")
+public class SpillableRowListTest {
+    @TempDir
+    Path directory;
+
+    private static final ColumnLayout UPSTREAM
+            = ColumnLayout.ofNames(List.of("id", "name", "uuid", "amount", "day", "other"));
+
+    private static Row upstreamRow(int i) {
+        Row row = new Row(UPSTREAM);
+        row.set(0, (long) i);
+        row.set(1, "name-" + i + "-åäö");
+        row.set(2, new UUID(i, -i));
+        row.set(3, new BigDecimal(i).movePointLeft(2));
+        row.set(4, LocalDate.ofEpochDay(i));
+        row.set(5, i % 2 == 0 ? null : Boolean.TRUE);
+        return row;
+    }
+
+    private void assertRoundTrip(long memoryBudget, boolean expectSpill) {
+        ColumnLayout projection = ColumnLayout.ofNames(List.of("day", "id", "uuid", "amount", "name", "other"));
+
+        try (SpillableRowList list = new SpillableRowList(projection, memoryBudget, directory)) {
+            for (int i = 0; i < 10_000; i++) {
+                list.add(upstreamRow(i));
+            }
+            list.seal();
+
+            assertEquals(expectSpill, list.isSpilled());
+            assertEquals(10_000, list.size());
+
+            for (int i = 9_999; i >= 0; i -= 7) {
+                Row row = list.get(i);
+                assertEquals(LocalDate.ofEpochDay(i), row.get("day"));
+                assertEquals((long) i, row.get("id"));
+                assertEquals(new UUID(i, -i), row.get("uuid"));
+                assertEquals(new BigDecimal(i).movePointLeft(2), row.get("amount"));
+                assertEquals("name-" + i + "-åäö", row.get("name"));
+                if (i % 2 == 0) {
+                    assertNull(row.get("other"));
+                } else {
+                    assertEquals(Boolean.TRUE, row.get("other"));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void whenWithinBudget_thenKeepInMemory() {
+        assertRoundTrip(64 * 1024 * 1024, false);
+    }
+
+    @Test
+    public void whenWithinBudget_thenReturnHeapRows() {
+        try (SpillableRowList list = new SpillableRowList(ColumnLayout.ofNames(List.of("id")), 1024 * 1024, directory)) {
+            list.add(upstreamRow(1));
+            list.add(upstreamRow(2));
+            list.seal();
+
+            // Each row is its own heap instance rather than decoded into a shared row
+            Row first = list.get(0);
+            Row second = list.get(1);
+            assertNotSame(first, second);
+            assertEquals(1L, first.get(0));
+            assertEquals(2L, second.get(0));
+        }
+    }
+
+    @Test
+    public void whenExceedingBudget_thenSpillToDisk() {
+        assertRoundTrip(16 * 1024, true);
+    }
+
+    @Test
+    public void whenClosed_thenDeleteFiles() throws Exception {
+        SpillableRowList list = new SpillableRowList(ColumnLayout.ofNames(List.of("id")), 16, directory);
+        for (int i = 0; i < 100; i++) {
+            list.add(upstreamRow(i));
+        }
+        list.seal();
+        assertTrue(list.isSpilled());
+        list.close();
+
+        try (var files = java.nio.file.Files.list(directory)) {
+            assertFalse(files.findAny().isPresent());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package io.cockroachdb.dl.core.generator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit-test")
+public class LocalRowIdGeneratorTest {
+    @Test
+    public void whenGeneratingOrdered_thenIncreaseWithTimestampLayout() {
+        long before = System.currentTimeMillis() * 100 - LocalRowIdGenerator.EPOCH;
+
+        long previous = 0;
+        for (int i = 0; i < 100_000; i++) {
+            long id = LocalRowIdGenerator.nextOrdered();
+            Assertions.assertTrue(id > previous);
+            previous = id;
+        }
+
+        long first = LocalRowIdGenerator.nextOrdered() >>> LocalRowIdGenerator.NODE_ID_BITS;
+        Assertions.assertTrue(first >= before - 100, first + " < " + before);
+        // Timestamp drifts at most one interval per id ahead of the clock
+        Assertions.assertTrue(first <= System.currentTimeMillis() * 100 - LocalRowIdGenerator.EPOCH + 100_001);
+    }
+
+    @Test
+    public void whenMappingToUnordered_thenReverseTimestampBits() {
+        long timestamp = 0b1011L;
+        long nodeId = 42;
+        long ordered = (timestamp << LocalRowIdGenerator.NODE_ID_BITS) | nodeId;
+
+        long unordered = LocalRowIdGenerator.toUnordered(ordered);
+
+        Assertions.assertTrue(unordered > 0);
+        Assertions.assertEquals(nodeId, unordered & LocalRowIdGenerator.NODE_ID_MASK);
+        Assertions.assertEquals(0b1101L << 59, unordered & ~LocalRowIdGenerator.NODE_ID_MASK);
+
+        // Sequential ids are spread across the key space
+        long a = LocalRowIdGenerator.toUnordered(1L << LocalRowIdGenerator.NODE_ID_BITS);
+        long b = LocalRowIdGenerator.toUnordered(2L << LocalRowIdGenerator.NODE_ID_BITS);
+        Assertions.assertEquals(1L << 62, a);
+        Assertions.assertEquals(1L << 61, b);
+    }
+
+    @Test
+    public void whenGeneratingConcurrently_thenUnique() {
+        List<CompletableFuture<List<Long>>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final boolean ordered = t % 2 == 0;
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                LocalRowIdGenerator generator = new LocalRowIdGenerator(ordered);
+                List<Long> ids = new ArrayList<>();
+                for (int i = 0; i < 50_000; i++) {
+                    ids.add(generator.nextValue());
+                }
+                return ids;
+            }));
+        }
+
+        Set<Long> unique = new HashSet<>();
+        futures.forEach(future -> future.join().forEach(id -> {
+            Assertions.assertTrue(id > 0);
+            Assertions.assertTrue(unique.add(id), "Duplicate " + id);
+        }));
+        Assertions.assertEquals(8 * 50_000, unique.size());
+    }
+}
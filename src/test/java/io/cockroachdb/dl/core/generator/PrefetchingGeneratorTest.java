@@ -0,0 +1,102 @@
+package io.cockroachdb.dl.core.generator;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit-test")
+public class PrefetchingGeneratorTest {
+    private static class CountingGenerator extends PrefetchingGenerator {
+        final AtomicInteger fetches = new AtomicInteger();
+
+        long next = 1;
+
+        long delayMillis;
+
+        CountingGenerator(int blockSize) {
+            super(blockSize);
+        }
+
+        @Override
+        protected Block fetch(long[] target, int size) {
+            fetches.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            long[] values = target != null && target.length >= size ? target : new long[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = next++;
+            }
+            return new Block(values, size);
+        }
+    }
+
+    @Test
+    public void whenConsuming_thenReturnValuesInFetchOrder() {
+        CountingGenerator generator = new CountingGenerator(16);
+
+        for (long i = 1; i <= 1000; i++) {
+            Assertions.assertEquals(i, generator.nextValue());
+        }
+        Assertions.assertTrue(generator.fetches.get() >= 1000 / generator.getBlockSize());
+    }
+
+    @Test
+    public void whenFetchedAhead_thenDoNotWait() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        CountingGenerator generator = new CountingGenerator(8) {
+            @Override
+            protected Block fetch(long[] target, int size) {
+                Block block = super.fetch(target, size);
+                if (fetches.get() == 2) {
+                    latch.countDown();
+                }
+                return block;
+            }
+        };
+
+        for (long i = 1; i <= 4; i++) {
+            Assertions.assertEquals(i, generator.nextValue());
+        }
+        Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS), "Expected prefetch at low-water mark");
+        // Let the prefetch future complete
+        Thread.sleep(100);
+        Assertions.assertEquals(8, generator.getBlockSize());
+
+        for (long i = 5; i <= 16; i++) {
+            Assertions.assertEquals(i, generator.nextValue());
+        }
+        Assertions.assertEquals(8, generator.getBlockSize());
+    }
+
+    @Test
+    public void whenStalled_thenGrowBlockSize() {
+        CountingGenerator generator = new CountingGenerator(4);
+        generator.delayMillis = 20;
+
+        for (long i = 1; i <= 64; i++) {
+            Assertions.assertEquals(i, generator.nextValue());
+        }
+        Assertions.assertTrue(generator.getBlockSize() > 4, "" + generator.getBlockSize());
+        Assertions.assertTrue(generator.getBlockSize() <= PrefetchingGenerator.MAX_BLOCK_SIZE);
+    }
+
+    @Test
+    public void whenFetchFails_thenThrow() {
+        PrefetchingGenerator generator = new PrefetchingGenerator(4) {
+            @Override
+            protected Block fetch(long[] target, int size) {
+                throw new IllegalStateException("Disconnected");
+            }
+        };
+
+        IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, generator::nextValue);
+        Assertions.assertEquals("Disconnected", e.getMessage());
+    }
+}
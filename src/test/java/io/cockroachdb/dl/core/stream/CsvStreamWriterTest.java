@@ -0,0 +1,95 @@
+package io.cockroachdb.dl.core.stream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.cockroachdb.dl.core.Row;
+import io.cockroachdb.dl.core.model.Column;
+import io.cockroachdb.dl.core.model.ColumnLayout;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Tag("unit-test")
+public class CsvStreamWriterTest {
+    private static ColumnLayout layout(String... names) {
+        return ColumnLayout.of(List.of(names).stream().map(name -> {
+            Column column = new Column();
+            column.setName(name);
+            return column;
+        }).toList(), column -> !column.getName().startsWith("_"));
+    }
+
+    private static String write(CsvStreamWriterBuilder builder, ColumnLayout layout, Object[]... rows)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CsvStreamWriter writer = builder
+                .withColumnLayout(layout)
+                .withLineSeparator("\n")
+                .withChannel(Channels.newChannel(out))
+                .build()) {
+            writer.open();
+            for (Object[] values : rows) {
+                Row row = new Row(layout);
+                for (int i = 0; i < values.length; i++) {
+                    row.set(i, values[i]);
+                }
+                writer.write(row);
+            }
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void whenWritingTypedValues_thenEncodeAsText() throws IOException {
+        UUID uuid = UUID.fromString("0a1b2c3d-4e5f-6071-8293-a4b5c6d7e8f9");
+
+        String csv = write(new CsvStreamWriterBuilder().withIncludeHeader(true),
+                layout("a", "b", "_hidden", "c", "d", "e", "f", "g"),
+                new Object[] {-1234567890123L, 42, "x", new BigDecimal("12.50"), uuid,
+                        LocalDate.of(2024, 2, 9), null, "åäö€😀"});
+
+        assertEquals("a,b,c,d,e,f,g\n"
+                + "-1234567890123,42,12.50,0a1b2c3d-4e5f-6071-8293-a4b5c6d7e8f9,2024-02-09,,åäö€😀\n",
+                csv);
+    }
+
+    @Test
+    public void whenQuoting_thenEscapeQuotes() throws IOException {
+        ColumnLayout layout = layout("a", "b");
+
+        assertEquals("\"say \"\"hi\"\"\",\"\"\n",
+                write(new CsvStreamWriterBuilder().withQuoteCharacter("\""), layout,
+                        new Object[] {"say \"hi\"", null}));
+
+        assertEquals("\"say \\\"hi\\\" \\\\\";\"1\"\n",
+                write(new CsvStreamWriterBuilder().withQuoteCharacter("\"").withEscapeCharacter("\\")
+                                .withDelimiter(";"), layout,
+                        new Object[] {"say \"hi\" \\", 1}));
+    }
+
+    @Test
+    public void whenAsciiPrefix_thenEncodeRemainderAsUtf8() throws IOException {
+        assertEquals("\"abc€d\"\"e\",\"x\"\n",
+                write(new CsvStreamWriterBuilder().withQuoteCharacter("\""), layout("a", "b"),
+                        new Object[] {"abc€d\"e", "x"}));
+    }
+
+    @Test
+    public void whenExceedingBuffer_thenDrainToChannel() throws IOException {
+        String value = "x".repeat(10_000);
+
+        String csv = write(new CsvStreamWriterBuilder().withBufferSize(1), layout("a"),
+                new Object[] {value}, new Object[] {value});
+
+        assertEquals(value + "\n" + value + "\n", csv);
+    }
+}
@@ -0,0 +1,186 @@
+package io.cockroachdb.dl.expression;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@Tag("unit-test")
+public class BytecodeCompilerTest {
+    private static DefaultExpressionRegistry createRegistry(AtomicInteger counter) {
+        DefaultExpressionRegistry registry = new DefaultExpressionRegistry();
+        registry.addVariable("x", new BigDecimal("5"));
+        registry.addVariable("y", new BigDecimal("10.5"));
+        registry.addVariable("name", "Alice");
+        registry.addVariable("names", List.of("Alice", "Bob"));
+        registry.addFunction("rowNumber", args -> counter.incrementAndGet());
+        registry.addFunction("fail", args -> {
+            throw new IllegalStateException("Failed");
+        });
+        registry.addFunction(FunctionDef.builder()
+                .withId("add")
+                .withArgs(List.of("arg1", "arg2"))
+                .withFunction(args -> ((BigDecimal) args[0]).add((BigDecimal) args[1]))
+                .build());
+        registry.addFunction(FunctionDef.builder()
+                .withId("upper")
+                .withArgs(List.of("arg1"))
+                .withFunction(args -> ((String) args[0]).toUpperCase())
+                .build());
+        return registry;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "1+2*3",
+            "2^10",
+            "10/4",
+            "7 % 3",
+            "x min y",
+            "x max y",
+            "-x + y",
+            "+x",
+            "x * (y - 3.5)",
+            "'a' + 'b' + name",
+            "upper(name) + '!'",
+            "add(add(x, 1), add(y, rowNumber()))",
+            "if x > y then 'gt' else 'le'",
+            "if x <= y and y != 10 then 1 else 0",
+            "if x == 5 or fail() then 1 else 0",
+            "if !(x >= y) then x else y",
+            "if 'b' < 'a' then 1 else 2",
+            "if {d '2016-01-02'} > {d '2016-01-01'} then 'yes' else 'no'",
+            "if {t '12:00:00'} == {t '12:00:00'} then 'yes' else 'no'",
+            "if 'Bob' in ('Alice','Bob') then 1 else 0",
+            "if 'Carl' in names then 1 else 0",
+            "if rowNumber() > rowNumber() then 'first' else 'second'",
+            "true",
+            "{dt '2021-01-01 12:00:05'}"
+    })
+    public void whenCompiledToBytecode_thenEvaluateSameAsInterpreted(String expression) {
+        CompiledExpression interpreted = Expression.compile(expression, createRegistry(new AtomicInteger()));
+        CompiledExpression compiled = Expression.compileToBytecode(expression, createRegistry(new AtomicInteger()));
+
+        Assertions.assertFalse(compiled instanceof ExpressionNode, expression);
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(interpreted.evaluate(), compiled.evaluate(), expression);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "a() + b()",
+            "a() - b()",
+            "a() * b()",
+            "a() / b()",
+            "a() % b()",
+            "a() min b()",
+            "a() max b()",
+            "-a() * (b() + 1)",
+            "+a() - -b()",
+            "a() ^ 2 + b() ^ 3",
+            "if a() > b() then 1 else 0",
+            "if a() >= b() then 1 else 0",
+            "if a() < b() then 1 else 0",
+            "if a() <= b() then 1 else 0",
+            "if a() == b() then 1 else 0",
+            "if a() != b() then 1 else 0",
+            "if a() % 2 == 0 then a() else b()"
+    })
+    public void whenIntegralOperands_thenEvaluateSameAsInterpreted(String expression) {
+        final AtomicReference<Object> a = new AtomicReference<>();
+        final AtomicReference<Object> b = new AtomicReference<>();
+
+        DefaultExpressionRegistry registry = new DefaultExpressionRegistry();
+        registry.addFunction(FunctionDef.builder()
+                .withId("a")
+                .withReturnValue(Long.class)
+                .withFunction(args -> a.get())
+                .build());
+        registry.addFunction("b", args -> b.get());
+
+        CompiledExpression interpreted = Expression.compile(expression, registry);
+        CompiledExpression compiled = Expression.compileToBytecode(expression, registry);
+
+        List<Object> values = List.of(0L, 1L, -1L, 2, -2, 3L, -7L, (short) 10, 1000L, 3.5,
+                new BigDecimal("4"), new BigDecimal("4.50"), new BigDecimal("12345678901234567890"),
+                Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE / 2 + 1);
+
+        for (Object x : values) {
+            for (Object y : values) {
+                a.set(x);
+                b.set(y);
+
+                String message = expression + " for a=" + x + ", b=" + y;
+                try {
+                    Object expected = interpreted.evaluate();
+                    Object actual = compiled.evaluate();
+                    Assertions.assertEquals(expected, actual, message);
+                    Assertions.assertEquals(expected.toString(), actual.toString(), message);
+                } catch (ArithmeticException e) {
+                    Exception actual = Assertions.assertThrows(ArithmeticException.class, compiled::evaluate);
+                    Assertions.assertEquals(e.getMessage(), actual.getMessage(), message);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void whenDividingIntegrals_thenRoundHalfEven() {
+        for (long x = -25; x <= 25; x++) {
+            for (long y = -7; y <= 7; y++) {
+                if (y == 0) {
+                    continue;
+                }
+                BigDecimal expected = BigDecimal.valueOf(x).divide(BigDecimal.valueOf(y), RoundingMode.HALF_EVEN);
+                Assertions.assertEquals(expected.longValueExact(), ExpressionNode.divideExact(x, y), x + "/" + y);
+            }
+        }
+        Assertions.assertThrows(ArithmeticException.class, () -> ExpressionNode.divideExact(1, 0));
+        Assertions.assertThrows(ArithmeticException.class, () -> ExpressionNode.divideExact(Long.MIN_VALUE, -1));
+        Assertions.assertThrows(ArithmeticException.class, () -> ExpressionNode.powExact(2, 64));
+        Assertions.assertEquals(1L << 62, ExpressionNode.powExact(2, 62));
+        Assertions.assertEquals(1, ExpressionNode.powExact(0, 0));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "fail()",
+            "add(1, fail())",
+            "upper(fail())",
+            "-name",
+            "1/0",
+            "if name then 1 else 0"
+    })
+    public void whenEvaluationFails_thenThrowSameAsInterpreted(String expression) {
+        CompiledExpression interpreted = Expression.compile(expression, createRegistry(new AtomicInteger()));
+        CompiledExpression compiled = Expression.compileToBytecode(expression, createRegistry(new AtomicInteger()));
+
+        Exception expected = Assertions.assertThrows(RuntimeException.class, interpreted::evaluate);
+        Exception actual = Assertions.assertThrows(RuntimeException.class, compiled::evaluate);
+
+        Assertions.assertEquals(expected.getClass(), actual.getClass(), expression);
+        Assertions.assertEquals(expected.getMessage(), actual.getMessage(), expression);
+    }
+
+    @Test
+    public void whenCompiledToBytecode_thenBindFunctionsOnce() {
+        final AtomicInteger counter = new AtomicInteger();
+
+        CompiledExpression expression = Expression.compileToBytecode(
+                "if rowNumber() % 2 == 0 then 'even' else 'odd'", createRegistry(counter));
+
+        for (int i = 1; i <= 10; i++) {
+            Assertions.assertEquals(i % 2 == 0 ? "even" : "odd", expression.evaluate(String.class));
+        }
+        Assertions.assertEquals(10, counter.get());
+    }
+}
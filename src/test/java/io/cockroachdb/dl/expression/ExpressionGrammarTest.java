@@ -71,6 +71,97 @@ public class ExpressionGrammarTest {
         });
     }
 
+    @Test
+    void testCompiledExpression() {
+        final AtomicInteger rowNumber = new AtomicInteger();
+
+        DefaultExpressionRegistry registry = new DefaultExpressionRegistry();
+        registry.addFunction("rowNumber", args -> rowNumber.incrementAndGet());
+
+        CompiledExpression expression = Expression.compile(
+                "if rowNumber() % 2 == 0 then 'even' else 'odd'", registry);
+
+        IntStream.rangeClosed(1, 10).forEach(value -> {
+            String result = expression.evaluate(String.class);
+            Assertions.assertEquals(value % 2 == 0 ? "even" : "odd", result);
+        });
+
+        Assertions.assertThrows(ExpressionException.class,
+                () -> Expression.compile("noSuchFunction(1)", registry));
+    }
+
+    @Test
+    void testConstantFolding() {
+        final AtomicInteger pureCalls = new AtomicInteger();
+        final AtomicInteger rowNumber = new AtomicInteger();
+
+        DefaultExpressionRegistry registry = new DefaultExpressionRegistry();
+        registry.addFunction("rowNumber", args -> rowNumber.incrementAndGet());
+        registry.addFunction(FunctionDef.builder()
+                .withId("upper")
+                .withPure(true)
+                .withFunction(args -> {
+                    pureCalls.incrementAndGet();
+                    return String.valueOf(args[0]).toUpperCase();
+                }).build());
+        registry.addFunction(FunctionDef.builder()
+                .withId("fail")
+                .withPure(true)
+                .withFunction(args -> {
+                    throw new IllegalStateException("Failed");
+                }).build());
+
+        CompiledExpression expression = Expression.compile(
+                "if 2 * 3 > 5 then upper('row') + ' #' else 'never'", registry);
+        Assertions.assertEquals(1, pureCalls.get());
+
+        IntStream.rangeClosed(1, 10).forEach(value ->
+                Assertions.assertEquals("ROW #", expression.evaluate(String.class)));
+        Assertions.assertEquals(1, pureCalls.get());
+
+        CompiledExpression perRow = Expression.compile("upper('a') + ' ' + upper(rowNumber())", registry);
+        Assertions.assertEquals(2, pureCalls.get());
+        IntStream.rangeClosed(1, 10).forEach(value ->
+                Assertions.assertEquals("A " + value, perRow.evaluate()));
+        Assertions.assertEquals(12, pureCalls.get());
+        Assertions.assertEquals(10, rowNumber.get());
+
+        CompiledExpression failing = Expression.compile("fail(1)", registry);
+        Assertions.assertThrows(ExpressionException.class, failing::evaluate);
+    }
+
+    @Test
+    void testConstantArgumentBinding() {
+        final AtomicInteger binds = new AtomicInteger();
+        final AtomicInteger calls = new AtomicInteger();
+
+        DefaultExpressionRegistry registry = new DefaultExpressionRegistry();
+        registry.addVariable("x", 3);
+        registry.addFunction(FunctionDef.builder()
+                .withId("first")
+                .withFunction(args -> {
+                    calls.incrementAndGet();
+                    return args[0];
+                })
+                .withBinder(args -> {
+                    binds.incrementAndGet();
+                    Object first = args[0];
+                    return ignored -> first;
+                }).build());
+
+        CompiledExpression bound = Expression.compileToBytecode("first('a', x, 2 * 3)", registry);
+        Assertions.assertEquals(1, binds.get());
+        IntStream.rangeClosed(1, 10).forEach(value ->
+                Assertions.assertEquals("a", bound.evaluate()));
+        Assertions.assertEquals(0, calls.get());
+
+        registry.addFunction("rowNumber", args -> 1);
+        CompiledExpression unbound = Expression.compile("first(rowNumber(), 'a')", registry);
+        Assertions.assertEquals(1, binds.get());
+        Assertions.assertEquals(BigDecimal.ONE, unbound.evaluate());
+        Assertions.assertEquals(1, calls.get());
+    }
+
     public static Stream<Arguments> arithmetics = Stream.of(
             Arguments.of(2, "1+1"),
             Arguments.of(-1, "1-2"),
@@ -0,0 +1,76 @@
+package io.cockroachdb.dl.expression;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit-test")
+public class ExpressionRegistryTest {
+    private static <T> List<T> toList(Iterable<T> iterable) {
+        List<T> list = new ArrayList<>();
+        iterable.forEach(list::add);
+        return list;
+    }
+
+    @Test
+    public void whenBuildingImmutableRegistry_thenContainAllBuiltIns() {
+        ExpressionRegistry registry = ExpressionRegistryBuilder.buildImmutable(null);
+
+        Assertions.assertInstanceOf(ImmutableExpressionRegistry.class, registry);
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> registry.addVariable("x", 1));
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> registry.addFunction("f", args -> 1));
+
+        ExpressionRegistry expected = ExpressionRegistryBuilder.build(null);
+
+        Assertions.assertEquals(toList(expected.functionDefinitions()).size(),
+                toList(registry.functionDefinitions()).size());
+        expected.functionDefinitions().forEach(functionDef -> {
+            for (String id : functionDef.getId().split(";")) {
+                Assertions.assertTrue(registry.findFunction(id).isPresent(), id);
+            }
+        });
+        expected.functionCategories().forEach(category -> Assertions.assertEquals(
+                toList(expected.functionDefinitions(category)).size(),
+                toList(registry.functionDefinitions(category)).size(), category));
+        Assertions.assertEquals(Math.PI, registry.findVariable("pi").orElseThrow());
+    }
+
+    @Test
+    public void whenUsingOverlay_thenKeepAdditionsLocal() {
+        final AtomicInteger rowNumber = new AtomicInteger();
+
+        ExpressionRegistry shared = ExpressionRegistryBuilder.buildImmutable(null);
+        ExpressionRegistry first = new OverlayExpressionRegistry(shared)
+                .addVariable("x", 10)
+                .addVariable("pi", 3)
+                .addFunction(FunctionDef.builder()
+                        .withCategory("other")
+                        .withId("rowNumber")
+                        .withFunction(args -> rowNumber.incrementAndGet())
+                        .build());
+        ExpressionRegistry second = new OverlayExpressionRegistry(shared)
+                .addFunction("rowNumber", args -> -1);
+
+        Assertions.assertEquals(Math.PI, first.findVariable("pi").orElseThrow());
+        Assertions.assertEquals(10, first.findVariable("x").orElseThrow());
+        Assertions.assertTrue(second.findVariable("x").isEmpty());
+        Assertions.assertTrue(shared.findFunction("rowNumber").isEmpty());
+
+        CompiledExpression expression = Expression.compile("rowNumber() * 2", first);
+        Assertions.assertEquals(2, expression.evaluate(Number.class).intValue());
+        Assertions.assertEquals(4, expression.evaluate(Number.class).intValue());
+        Assertions.assertEquals(-1, Expression.evaluate("rowNumber()", Number.class, second).intValue());
+        Assertions.assertEquals("ABC", Expression.evaluate("upperCase('abc')", String.class, first));
+
+        Assertions.assertTrue(toList(first.variableNames()).containsAll(List.of("x", "pi", "e")));
+        Assertions.assertTrue(toList(first.functionCategories()).contains("other"));
+        Assertions.assertEquals(toList(shared.functionDefinitions()).size() + 1,
+                toList(first.functionDefinitions()).size());
+    }
+}
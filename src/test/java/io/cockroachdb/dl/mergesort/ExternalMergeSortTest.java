@@ -0,0 +1,162 @@
+package io.cockroachdb.dl.mergesort;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Tag("unit-test")
+public class ExternalMergeSortTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void whenSorting_thenKeepHeaderAndAllLines() throws IOException {
+        Random random = new Random(1);
+
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 1003; i++) {
+            lines.add("%08d,name-%d".formatted(random.nextInt(1_000_000), i));
+        }
+
+        Path input = tempDir.resolve("input.csv");
+        Path output = tempDir.resolve("output.csv");
+        Files.writeString(input, "id,name\n" + String.join("\n", lines) + "\n", StandardCharsets.UTF_8);
+
+        ExternalMergeSort.builder()
+                .withInputFile(input)
+                .withOutputFile(output)
+                .withChunks(7)
+                .withLinesToSkip(1)
+                .withOrderByColumns(List.of())
+                .build()
+                .sort();
+
+        Collections.sort(lines);
+        lines.add(0, "id,name");
+
+        Assertions.assertEquals(lines, Files.readAllLines(output));
+        Assertions.assertFalse(Files.exists(tempDir.resolve("input-part-001.csv")));
+    }
+
+    @Test
+    public void whenSortingByColumns_thenOrderByUnquotedFields() throws IOException {
+        Path input = tempDir.resolve("columns.csv");
+        Path output = tempDir.resolve("columns-sorted.csv");
+        Files.writeString(input, String.join("\n",
+                "1,\"b\",x",
+                "2,\"a,\"\"quoted\"\"\nline\",y",
+                "3,a,x",
+                "4,\"b\",a",
+                "5,ab,z",
+                "6") + "\n", StandardCharsets.UTF_8);
+
+        ExternalMergeSort.builder()
+                .withInputFile(input)
+                .withChunks(3)
+                .withOrderByColumns(List.of(3, 2))
+                .build()
+                .sort();
+
+        Assertions.assertEquals(String.join("\n",
+                "6",
+                "4,\"b\",a",
+                "3,a,x",
+                "1,\"b\",x",
+                "2,\"a,\"\"quoted\"\"\nline\",y",
+                "5,ab,z") + "\n", Files.readString(output, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void whenSortingByTypedColumns_thenOrderByValue() throws IOException {
+        Path input = tempDir.resolve("typed.csv");
+        Path output = tempDir.resolve("typed-sorted.csv");
+        Files.writeString(input, "id,amount\n10,1.5\n2,\n100,-3\n2,10\n10,1.25\n", StandardCharsets.UTF_8);
+
+        ExternalMergeSort.builder()
+                .withInputFile(input)
+                .withChunks(2)
+                .withLinesToSkip(1)
+                .withOrderBy(List.of(SortColumn.parse("1:int"), SortColumn.parse("2:decimal:desc")))
+                .build()
+                .sort();
+
+        Assertions.assertEquals("id,amount\n2,10\n2,\n10,1.5\n10,1.25\n100,-3\n",
+                Files.readString(output, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void whenExceedingMemory_thenSortInMultipleRuns() throws IOException {
+        Random random = new Random(2);
+
+        List<String> lines = new ArrayList<>();
+        long size = 0;
+        while (size < 3 * 1024 * 1024) {
+            String line = "\"%d\",\"%s\"".formatted(random.nextLong(), i18n(random));
+            lines.add(line);
+            size += line.getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+
+        Path input = tempDir.resolve("big.csv");
+        Path output = tempDir.resolve("big-sorted.csv");
+        Files.writeString(input, String.join("\n", lines) + "\n", StandardCharsets.UTF_8);
+
+        ExternalMergeSort.builder()
+                .withInputFile(input)
+                .withChunks(2)
+                .withMemory(1)
+                .withOrderByColumns(List.of())
+                .build()
+                .sort();
+
+        lines.sort(Comparator.naturalOrder());
+
+        // Compare as a whole since quoted fields span lines
+        Assertions.assertEquals(String.join("\n", lines) + "\n", Files.readString(output, StandardCharsets.UTF_8));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            Assertions.assertEquals(List.of("big-sorted.csv", "big.csv"),
+                    files.map(path -> path.getFileName().toString()).sorted().toList());
+        }
+    }
+
+    private static String i18n(Random random) {
+        return random.nextBoolean() ? "ascii" : "åäö\nline";
+    }
+
+    @Test
+    public void whenSplitting_thenPartsConcatenateToInput() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 997; i++) {
+            sb.append("\"").append(i).append("\",\"x\ny\"\n");
+        }
+
+        Path input = tempDir.resolve("data.csv");
+        Files.writeString(input, sb.toString(), StandardCharsets.UTF_8);
+
+        ExternalSplit.builder()
+                .withInputFile(input)
+                .withChunks(5)
+                .build()
+                .split();
+
+        StringBuilder actual = new StringBuilder();
+        for (int i = 1; i <= 5; i++) {
+            String part = Files.readString(tempDir.resolve("data-%03d.csv".formatted(i)));
+            Assertions.assertTrue(part.startsWith("\"") && part.endsWith("\"\n"), part);
+            actual.append(part);
+        }
+        Assertions.assertEquals(sb.toString(), actual.toString());
+        Assertions.assertTrue(Files.exists(input));
+    }
+}
@@ -0,0 +1,75 @@
+package io.cockroachdb.dl.mergesort;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit-test")
+public class LineArenaTest {
+    private static String sortedOutput(LineArena arena) throws IOException {
+        arena.sort();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        arena.writeTo(Channels.newChannel(bos), ByteBuffer.allocate(64));
+        return bos.toString(StandardCharsets.UTF_8);
+    }
+
+    private static boolean add(LineArena arena, String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return arena.add(bytes, 0, bytes.length);
+    }
+
+    @Test
+    public void whenSortingWholeLines_thenSameAsCodePointOrder() throws IOException {
+        Random random = new Random(7);
+        LineArena arena = new LineArena(1024 * 1024, new SortKeyEncoder((byte) ',', (byte) '"', List.of()));
+
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            // Many duplicates, shared prefixes, non-ASCII and lines longer than the write buffer
+            String line = "k" + random.nextInt(500) + (i % 7 == 0 ? "ä" : "") + (i % 101 == 0 ? "x".repeat(200) : "");
+            lines.add(line);
+            Assertions.assertTrue(add(arena, line));
+        }
+
+        lines.sort(Comparator.naturalOrder());
+
+        Assertions.assertEquals(String.join("\n", lines) + "\n", sortedOutput(arena));
+    }
+
+    @Test
+    public void whenSortingByColumns_thenCompareKeysBeyondPrefix() throws IOException {
+        LineArena arena = new LineArena(4096, new SortKeyEncoder((byte) ',', (byte) '"',
+                List.of(SortColumn.of(2), SortColumn.of(1))));
+        for (String line : List.of("b,prefix-3", "a,prefix-1", "c,prefix-2", "a,prefix-2", "a,prefix")) {
+            Assertions.assertTrue(add(arena, line));
+        }
+
+        Assertions.assertEquals("a,prefix\na,prefix-1\na,prefix-2\nc,prefix-2\nb,prefix-3\n", sortedOutput(arena));
+    }
+
+    @Test
+    public void whenFull_thenRejectLines() {
+        LineArena arena = new LineArena(96, new SortKeyEncoder((byte) ',', (byte) '"', List.of()));
+        String line = "x".repeat(30);
+
+        // Each line takes 30 bytes of data and 16 bytes for its entry
+        Assertions.assertTrue(add(arena, line));
+        Assertions.assertTrue(add(arena, line));
+        Assertions.assertFalse(add(arena, line));
+        Assertions.assertEquals(2, arena.size());
+
+        arena.clear();
+        Assertions.assertEquals(0, arena.size());
+        Assertions.assertTrue(add(arena, line));
+    }
+}
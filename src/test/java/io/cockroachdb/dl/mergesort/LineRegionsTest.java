@@ -0,0 +1,100 @@
+package io.cockroachdb.dl.mergesort;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Tag("unit-test")
+public class LineRegionsTest {
+    @TempDir
+    Path tempDir;
+
+    private Path write(String content) throws IOException {
+        Path path = tempDir.resolve("input.csv");
+        Files.writeString(path, content, StandardCharsets.UTF_8);
+        return path;
+    }
+
+    private static List<String> readLines(FileChannel channel, List<LineRegions.Region> regions) throws IOException {
+        List<String> lines = new ArrayList<>();
+        long expectedStart = regions.get(0).start();
+        for (LineRegions.Region region : regions) {
+            Assertions.assertEquals(expectedStart, region.start());
+            expectedStart = region.end();
+
+            LineReader reader = new LineReader(channel, region.start(), region.end(), 16, (byte) '"');
+            while (reader.next()) {
+                lines.add(reader.line());
+            }
+        }
+        Assertions.assertEquals(channel.size(), expectedStart);
+        return lines;
+    }
+
+    @Test
+    public void whenSplittingQuotedLines_thenKeepEmbeddedLineBreaks() throws IOException {
+        List<String> expected = new ArrayList<>();
+        expected.add("\"id\",\"text\"");
+        for (int i = 0; i < 500; i++) {
+            expected.add(i % 3 == 0
+                    ? "\"%d\",\"line %d\nwith, a \"\"break\"\"\r\nand more\"".formatted(i, i)
+                    : "\"%d\",\"plain %d\"".formatted(i, i));
+        }
+
+        Path path = write(String.join("\n", expected) + "\n");
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long start = LineRegions.skipLines(channel, 1, (byte) '"');
+            Assertions.assertEquals(expected.get(0).length() + 1, start);
+
+            for (int chunks : new int[] {1, 2, 7, 64, 1000}) {
+                List<LineRegions.Region> regions = LineRegions.split(channel, start, chunks, (byte) ',', (byte) '"');
+                Assertions.assertTrue(regions.size() <= chunks);
+                Assertions.assertEquals(expected.subList(1, expected.size()), readLines(channel, regions),
+                        "chunks " + chunks);
+            }
+        }
+    }
+
+    @Test
+    public void whenSplittingUnevenLines_thenIncludeRemainder() throws IOException {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1001; i++) {
+            expected.add("a".repeat(i % 17) + "," + i);
+        }
+
+        // No trailing line separator and CRLF line endings
+        Path path = write(String.join("\r\n", expected));
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            List<LineRegions.Region> regions = LineRegions.split(channel, 0, 8, (byte) ',', (byte) 0);
+            Assertions.assertEquals(8, regions.size());
+            Assertions.assertEquals(expected, readLines(channel, regions));
+        }
+    }
+
+    @Test
+    public void whenAligningInsideQuotes_thenSkipToRecordEnd() throws IOException {
+        String first = "\"1\",\"a\nb\nc\"\n";
+        Path path = write(first + "\"2\",\"d\"\n");
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Offset right after the first embedded line break
+            long offset = first.indexOf('\n') + 1;
+            Assertions.assertEquals(first.length(), LineRegions.alignToLine(channel, offset, (byte) ',', (byte) '"'));
+            Assertions.assertEquals(first.length(), LineRegions.alignToLine(channel, 1, (byte) ',', (byte) '"'));
+            Assertions.assertEquals(first.length(), LineRegions.alignToLine(channel, first.length(), (byte) ',',
+                    (byte) '"'));
+        }
+    }
+}
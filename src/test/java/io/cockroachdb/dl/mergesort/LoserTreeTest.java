@@ -0,0 +1,75 @@
+package io.cockroachdb.dl.mergesort;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit-test")
+public class LoserTreeTest {
+    private static class Source {
+        final int index;
+
+        final List<Integer> values;
+
+        int position;
+
+        Source(int index, List<Integer> values) {
+            this.index = index;
+            this.values = values;
+        }
+
+        boolean isExhausted() {
+            return position == values.size();
+        }
+
+        int current() {
+            return values.get(position);
+        }
+    }
+
+    private static List<int[]> merge(List<Source> sources) {
+        LoserTree<Source> tree = new LoserTree<>(sources,
+                Comparator.comparingInt(Source::current), Source::isExhausted);
+
+        List<int[]> merged = new ArrayList<>();
+        Source winner;
+        while ((winner = tree.winner()) != null) {
+            merged.add(new int[] {winner.current(), winner.index});
+            winner.position++;
+            tree.advance();
+        }
+        return merged;
+    }
+
+    @Test
+    public void whenMergingAnyNumberOfSources_thenSortedAndStable() {
+        Random random = new Random(3);
+
+        for (int k = 0; k <= 17; k++) {
+            List<Source> sources = new ArrayList<>();
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < k; i++) {
+                // Some empty sources and plenty of duplicates across sources
+                List<Integer> values = random.ints(random.nextInt(4) == 0 ? 0 : random.nextInt(50), 0, 20)
+                        .sorted().boxed().toList();
+                sources.add(new Source(i, values));
+                expected.addAll(values);
+            }
+            expected.sort(Comparator.naturalOrder());
+
+            List<int[]> merged = merge(sources);
+
+            Assertions.assertEquals(expected, merged.stream().map(e -> e[0]).toList(), "k=" + k);
+            for (int i = 1; i < merged.size(); i++) {
+                if (merged.get(i)[0] == merged.get(i - 1)[0]) {
+                    Assertions.assertTrue(merged.get(i)[1] >= merged.get(i - 1)[1], "Unstable at k=" + k);
+                }
+            }
+        }
+    }
+}
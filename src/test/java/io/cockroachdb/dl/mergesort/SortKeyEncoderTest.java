@@ -0,0 +1,167 @@
+package io.cockroachdb.dl.mergesort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit-test")
+public class SortKeyEncoderTest {
+    private static SortKeyEncoder encoder(char delimiter, String... columns) {
+        return new SortKeyEncoder((byte) delimiter, (byte) '"', Arrays.stream(columns).map(SortColumn::parse).toList());
+    }
+
+    private static int compare(SortKeyEncoder encoder, String left, String right) {
+        byte[] l = encode(encoder, left);
+        byte[] r = encode(encoder, right);
+        return Integer.signum(SortKeyEncoder.compare(l, 0, l.length, r, 0, r.length));
+    }
+
+    private static byte[] encode(SortKeyEncoder encoder, String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        int length = encoder.encode(bytes, 0, bytes.length);
+        return Arrays.copyOf(encoder.key(), length);
+    }
+
+    private static List<String> sorted(SortKeyEncoder encoder, List<String> lines) {
+        List<String> copy = new ArrayList<>(lines);
+        Collections.shuffle(copy, new Random(1));
+        copy.sort((a, b) -> compare(encoder, a, b));
+        return copy;
+    }
+
+    @Test
+    public void whenQuoted_thenEncodeUnquotedField() {
+        SortKeyEncoder encoder = encoder(',', "2");
+
+        Assertions.assertArrayEquals(encode(encoder, "1,a\"b,2"), encode(encoder, "9,\"a\"\"b\",3"));
+        Assertions.assertArrayEquals(encode(encoder, "1,\"a,b\nc\""), encode(encoder, "2,\"a,b\nc\",x"));
+        Assertions.assertArrayEquals(encode(encoder, "1,"), encode(encoder, "1,\"\""));
+    }
+
+    @Test
+    public void whenComparingComposite_thenOrderColumnByColumn() {
+        SortKeyEncoder encoder = encoder(';', "3", "1");
+
+        // Shorter field first, regardless of the following columns
+        Assertions.assertEquals(-1, compare(encoder, "z;;a", "a;;ab"));
+        Assertions.assertEquals(-1, compare(encoder, "a;;b", "b;;b"));
+        Assertions.assertEquals(0, compare(encoder, "a;1;b", "a;2;b"));
+        // Zero bytes are escaped to sort within the field
+        Assertions.assertEquals(1, compare(encoder, "z;;a\0", "a;;a"));
+        Assertions.assertEquals(-1, compare(encoder, "z;;a\0", "a;;a\1"));
+        // Missing fields compare as empty
+        Assertions.assertEquals(0, compare(encoder, "a", "a;;"));
+        Assertions.assertEquals(-1, compare(encoder, "b", "a;;a"));
+    }
+
+    @Test
+    public void whenNoColumns_thenWholeLine() {
+        Assertions.assertTrue(encoder(',').isWholeLine());
+        Assertions.assertFalse(encoder(',', "1").isWholeLine());
+    }
+
+    @Test
+    public void whenInteger_thenNumericOrderWithNullsFirst() {
+        List<String> lines = List.of("", "-9223372036854775808", "-10", "-2", "0", "+2", "10", "\" 100 \"",
+                "9223372036854775807");
+
+        Assertions.assertEquals(lines, sorted(encoder(',', "1:int"), lines));
+
+        List<String> descending = new ArrayList<>(lines);
+        Collections.reverse(descending);
+        Assertions.assertEquals(descending, sorted(encoder(',', "1:integer:desc"), lines));
+    }
+
+    @Test
+    public void whenDecimal_thenNumericOrderRegardlessOfScale() {
+        List<String> lines = List.of("", "-1e3", "-100.5", "-100", "-99.99", "-0.001", "0", "0.0001", "0.01",
+                "0.1", "0.5", "0.51", "1", "1.5", "9.99", "10", "10.01", "99", "1E3", "12345678901234567890.5");
+
+        Assertions.assertEquals(lines, sorted(encoder(',', "1:decimal"), lines));
+
+        SortKeyEncoder encoder = encoder(',', "1:decimal");
+        Assertions.assertEquals(0, compare(encoder, "1.50", "01.5"));
+        Assertions.assertEquals(0, compare(encoder, "-0.0", "0"));
+        Assertions.assertEquals(0, compare(encoder, "1e2", "100.000"));
+    }
+
+    @Test
+    public void whenUuid_thenByteOrderIgnoringCase() {
+        List<String> lines = List.of(
+                "00000000-0000-0000-0000-000000000000",
+                "0000000000000000000000000000000f",
+                "7FFFFFFF-0000-0000-0000-000000000000",
+                "80000000-0000-0000-0000-000000000000",
+                "ffffffff-ffff-ffff-ffff-ffffffffffff");
+
+        Assertions.assertEquals(lines, sorted(encoder(',', "1:uuid"), lines));
+    }
+
+    @Test
+    public void whenTemporal_thenChronologicalOrder() {
+        Assertions.assertEquals(List.of("1969-12-31", "1970-01-01", "2024-02-29", "10000-01-01"),
+                sorted(encoder(',', "1:date"), List.of("1969-12-31", "1970-01-01", "2024-02-29", "+10000-01-01"))
+                        .stream().map(s -> s.replace("+", "")).toList());
+
+        List<String> timestamps = List.of(
+                "1969-12-31 23:59:59.999999",
+                "2024-01-01T10:00:00+02:00",
+                "2024-01-01 09:00:00.000001",
+                "2024-01-01 09:00:00.1Z",
+                "2024-01-01 10:00:00+00");
+
+        Assertions.assertEquals(timestamps, sorted(encoder(',', "1:timestamp"), timestamps));
+    }
+
+    @Test
+    public void whenMixedTypesAndDirections_thenOrderColumnByColumn() {
+        List<String> lines = List.of(
+                "b,3,2024-01-02",
+                "a,3,2024-01-01",
+                "c,2,",
+                "a,2,2024-01-03",
+                "b,2,2024-01-03",
+                "a,10,2024-01-01");
+
+        Assertions.assertEquals(List.of(
+                "a,10,2024-01-01",
+                "b,3,2024-01-02",
+                "a,3,2024-01-01",
+                "a,2,2024-01-03",
+                "b,2,2024-01-03",
+                "c,2,"), sorted(encoder(',', "2:int:desc", "3:date:desc", "1"), lines));
+    }
+
+    @Test
+    public void whenInvalidValue_thenFail() {
+        IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> encode(encoder(',', "2:int"), "a,12x"));
+        Assertions.assertEquals("Invalid integer value in column 2: '12x'", e.getMessage());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> encode(encoder(',', "1:int"), "9223372036854775808"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> encode(encoder(',', "1:decimal"), "1.2.3"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> encode(encoder(',', "1:uuid"), "0000"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> encode(encoder(',', "1:date"), "2024-13-01"));
+    }
+
+    @Test
+    public void whenParsingColumns_thenApplyDefaults() {
+        Assertions.assertEquals(new SortColumn(3, SortKeyType.string, false), SortColumn.parse("3"));
+        Assertions.assertEquals(new SortColumn(1, SortKeyType.integer, true), SortColumn.parse(" 1:INT:desc "));
+        Assertions.assertEquals(new SortColumn(2, SortKeyType.string, true), SortColumn.parse("2:desc"));
+        Assertions.assertEquals(new SortColumn(2, SortKeyType.timestamp, false), SortColumn.parse("2:timestamp:asc"));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SortColumn.parse("0"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SortColumn.parse("x"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SortColumn.parse("1:float"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SortColumn.parse("1:int:up"));
+    }
+}
@@ -6,6 +6,7 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 public class CartesianTest {
@@ -29,6 +30,30 @@ public class CartesianTest {
 
     }
 
+    @Test
+    public void testOdometer() {
+        List<List<?>> cols = new ArrayList<>();
+
+        cols.add(createInts(20));
+        cols.add(createStrings(5));
+        cols.add(List.of('X', 'Y', 'Z'));
+
+        List<List<?>> expected = getCartesianProduct(cols);
+
+        List<List<Object>> sets = cols.stream()
+                .<List<Object>>map(ArrayList::new)
+                .toList();
+
+        Cartesian.Odometer<Object> odometer = Cartesian.cartesianProductIterator(sets);
+        Assertions.assertEquals(expected.size(), odometer.size());
+
+        List<List<?>> actual = new ArrayList<>();
+        odometer.forEachRemaining(objects -> actual.add(new ArrayList<>(objects)));
+
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertFalse(Cartesian.cartesianProductIterator(List.of(List.of(1), List.of())).hasNext());
+    }
+
     private static List<Integer> createInts(int size) {
         List<Integer> list = new ArrayList<>();
         IntStream.rangeClosed(1,size).forEach(value ->  {
@@ -0,0 +1,119 @@
+package io.cockroachdb.dl.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.cockroachdb.dl.expression.Expression;
+import io.cockroachdb.dl.expression.ExpressionRegistryBuilder;
+
+@Tag("unit-test")
+public class DistributionTest {
+    @Test
+    public void whenSamplingZipf_thenFollowPowerLaw() {
+        final int n = 10;
+        final double s = 1.2;
+
+        ZipfSampler sampler = new ZipfSampler(n, s);
+        SplitMixRandom random = new SplitMixRandom(42);
+
+        int[] counts = new int[n + 1];
+        int samples = 200_000;
+        for (int i = 0; i < samples; i++) {
+            counts[(int) sampler.sample(random)]++;
+        }
+
+        double norm = 0;
+        for (int k = 1; k <= n; k++) {
+            norm += Math.pow(k, -s);
+        }
+        Assertions.assertEquals(0, counts[0]);
+        for (int k = 1; k <= n; k++) {
+            double expected = Math.pow(k, -s) / norm;
+            Assertions.assertEquals(expected, counts[k] / (double) samples, 0.005, "rank " + k);
+        }
+    }
+
+    @Test
+    public void whenSamplingZipfOfLargeDomain_thenStayInRange() {
+        ZipfSampler sampler = new ZipfSampler(Long.MAX_VALUE / 2, 0.5);
+        SplitMixRandom random = new SplitMixRandom(7);
+        for (int i = 0; i < 10_000; i++) {
+            long k = sampler.sample(random);
+            Assertions.assertTrue(k >= 1 && k <= Long.MAX_VALUE / 2, "" + k);
+        }
+        Assertions.assertEquals(1, new ZipfSampler(1, 2).sample(random));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ZipfSampler(0, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ZipfSampler(10, 0));
+    }
+
+    @Test
+    public void whenSamplingHotspot_thenFavorHotRange() {
+        SplitMixRandom random = new SplitMixRandom(1);
+        int hot = 0;
+        int samples = 100_000;
+        for (int i = 0; i < samples; i++) {
+            long v = RandomData.randomHotspot(100, 0.1, 0.9, random);
+            Assertions.assertTrue(v >= 1 && v <= 100, "" + v);
+            if (v <= 10) {
+                hot++;
+            }
+        }
+        Assertions.assertEquals(0.9, hot / (double) samples, 0.01);
+        Assertions.assertTrue(RandomData.randomHotspot(5, 1.0, 0.0, random) <= 5);
+        Assertions.assertTrue(RandomData.randomHotspot(5, 0.0, 1.0, random) >= 1);
+    }
+
+    @Test
+    public void whenSamplingIndexes_thenStayInBoundAndSkew() {
+        RandomSource.install(new SplitMixRandom(3));
+        try {
+            IndexSampler zipf = IndexSampler.zipf(1.0);
+            IndexSampler latest = IndexSampler.latest(1.0);
+            IndexSampler hotspot = IndexSampler.hotspot(0.2, 0.8);
+
+            int[] zipfCounts = new int[50];
+            int[] latestCounts = new int[50];
+            int hot = 0;
+            for (int i = 0; i < 50_000; i++) {
+                zipfCounts[zipf.nextIndex(50)]++;
+                latestCounts[latest.nextIndex(50)]++;
+                if (hotspot.nextIndex(50) < 10) {
+                    hot++;
+                }
+            }
+
+            Assertions.assertTrue(zipfCounts[0] > zipfCounts[1] && zipfCounts[1] > zipfCounts[10]);
+            Assertions.assertTrue(latestCounts[49] > latestCounts[48] && latestCounts[48] > latestCounts[39]);
+            Assertions.assertEquals(0.8, hot / 50_000.0, 0.02);
+            Assertions.assertEquals(0, zipf.nextIndex(1));
+            Assertions.assertEquals(0, latest.nextIndex(1));
+        } finally {
+            RandomSource.uninstall();
+        }
+    }
+
+    @Test
+    public void whenUsingDistributionFunctions_thenReturnValuesInRange() {
+        var registry = ExpressionRegistryBuilder.buildImmutable(null);
+        var zipf = Expression.compile("zipf(1000, 1.1)", registry);
+        var latest = Expression.compile("latest(1000)", registry);
+        var hotspot = Expression.compile("hotspot(1000, 0.1, 0.9)", registry);
+        var exponential = Expression.compile("exponential(2)", registry);
+
+        double sum = 0;
+        for (int i = 0; i < 10_000; i++) {
+            long z = zipf.evaluate(Number.class).longValue();
+            Assertions.assertTrue(z >= 1 && z <= 1000, "" + z);
+            long l = latest.evaluate(Number.class).longValue();
+            Assertions.assertTrue(l >= 1 && l <= 1000, "" + l);
+            long h = hotspot.evaluate(Number.class).longValue();
+            Assertions.assertTrue(h >= 1 && h <= 1000, "" + h);
+            sum += exponential.evaluate(Number.class).doubleValue();
+        }
+        Assertions.assertEquals(0.5, sum / 10_000, 0.05);
+
+        double g = Expression.evaluate("gaussian(100, 0.000001)", Number.class, registry).doubleValue();
+        Assertions.assertEquals(100, g, 0.01);
+    }
+}
@@ -0,0 +1,62 @@
+package io.cockroachdb.dl.util;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit-test")
+public class RandomSamplerTest {
+    @Test
+    public void whenWeighted_thenAliasTableMatchesWeights() {
+        List<Double> weights = List.of(0.1, 5.0, 0.0, 2.5, 1.0, 7.75, 0.33, 3.0);
+        List<String> items = List.of("a", "b", "c", "d", "e", "f", "g", "h");
+
+        RandomSampler<String> sampler = RandomSampler.weighted(items, weights);
+
+        double total = weights.stream().mapToDouble(Double::doubleValue).sum();
+        for (int i = 0; i < items.size(); i++) {
+            Assertions.assertEquals(weights.get(i) / total, sampler.probabilityOf(i), 1e-12, items.get(i));
+        }
+    }
+
+    @Test
+    public void whenSampling_thenFollowWeights() {
+        List<Integer> items = List.of(0, 1, 2, 3);
+        RandomSampler<Integer> sampler = RandomSampler.weighted(items, List.of(1.0, 0.0, 3.0, 6.0));
+
+        SplittableRandom random = new SplittableRandom(42);
+        int[] counts = new int[items.size()];
+        int samples = 100_000;
+        for (int i = 0; i < samples; i++) {
+            counts[sampler.next(random)]++;
+        }
+
+        Assertions.assertEquals(0, counts[1]);
+        Assertions.assertEquals(0.1, counts[0] / (double) samples, 0.01);
+        Assertions.assertEquals(0.3, counts[2] / (double) samples, 0.01);
+        Assertions.assertEquals(0.6, counts[3] / (double) samples, 0.01);
+    }
+
+    @Test
+    public void whenNoWeights_thenSampleUniformly() {
+        RandomSampler<String> sampler = RandomSampler.weighted(List.of("x", "y"), List.of());
+
+        Assertions.assertEquals(0.5, sampler.probabilityOf(0));
+        Assertions.assertTrue(List.of("x", "y").contains(sampler.next()));
+    }
+
+    @Test
+    public void whenInvalidWeights_thenFail() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> RandomSampler.weighted(List.of("x", "y"), List.of(1.0)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> RandomSampler.weighted(List.of("x", "y"), List.of(1.0, -1.0)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> RandomSampler.weighted(List.of("x", "y"), List.of(0.0, 0.0)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> RandomSampler.uniform(List.of()));
+    }
+}
@@ -0,0 +1,35 @@
+package io.cockroachdb.dl.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit-test")
+public class RandomStringTest {
+    @Test
+    public void whenRandomStrings_thenMatchFormat() {
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertTrue(RandomData.randomString(20).matches("[0-9A-Za-z]{20}"));
+            Assertions.assertTrue(RandomData.randomString(2000).matches("[0-9A-Za-z]{2000}"));
+            Assertions.assertTrue(RandomData.randomString(5, 10).matches("[0-9A-Za-z]{5,9}"));
+            Assertions.assertTrue(RandomData.randomWord(7).matches("([aeiou][^aeiou]){3}[aeiou]"));
+            Assertions.assertTrue(RandomData.randomPhoneNumber().matches("\\([1-9]\\d\\d\\) [1-9]\\d\\d-\\d{4}"));
+            Assertions.assertTrue(RandomData.randomZipCode().matches("\\d{5}"));
+            Assertions.assertTrue(RandomData.randomEmail().matches("[^A-Z ]+\\.[^A-Z ]+@example\\.com"));
+        }
+        Assertions.assertEquals("", RandomData.randomString(0));
+    }
+
+    @Test
+    public void whenRandomStrings_thenUseAllCharacters() {
+        String chars = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+        int[] counts = new int[chars.length()];
+        String s = RandomData.randomString(100_000);
+        for (int i = 0; i < s.length(); i++) {
+            counts[chars.indexOf(s.charAt(i))]++;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            Assertions.assertEquals(100_000 / 62.0, counts[i], 300, "Char " + chars.charAt(i));
+        }
+    }
+}
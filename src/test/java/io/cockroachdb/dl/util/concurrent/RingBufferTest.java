@@ -0,0 +1,99 @@
+package io.cockroachdb.dl.util.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.cockroachdb.dl.util.IndexSampler;
+
+@Tag("unit-test")
+public class RingBufferTest {
+    @Test
+    public void whenFull_thenOverwriteOldest() {
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>(4);
+        Assertions.assertNull(ringBuffer.getRandom());
+        Assertions.assertEquals(0, ringBuffer.size());
+
+        for (int i = 0; i < 10; i++) {
+            ringBuffer.add(i);
+        }
+
+        Assertions.assertEquals(4, ringBuffer.size());
+        Assertions.assertEquals(8, ringBuffer.get(0));
+        Assertions.assertEquals(9, ringBuffer.get(1));
+        Assertions.assertEquals(6, ringBuffer.get(2));
+        Assertions.assertEquals(7, ringBuffer.get(3));
+
+        for (int i = 0; i < 100; i++) {
+            int v = ringBuffer.getRandom();
+            Assertions.assertTrue(v >= 6 && v <= 9, "" + v);
+        }
+    }
+
+    @Test
+    public void whenSampling_thenPositionFromOldest() throws Exception {
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>(4);
+        Assertions.assertNull(ringBuffer.get(bound -> 0));
+
+        ringBuffer.add(0);
+        ringBuffer.add(1);
+        Assertions.assertEquals(0, ringBuffer.get(bound -> 0));
+        Assertions.assertEquals(1, ringBuffer.get(bound -> bound - 1));
+
+        for (int i = 2; i < 10; i++) {
+            ringBuffer.add(i);
+        }
+
+        Assertions.assertEquals(6, ringBuffer.get(bound -> 0));
+        Assertions.assertEquals(7, ringBuffer.get(bound -> 1));
+        Assertions.assertEquals(9, ringBuffer.take(bound -> bound - 1));
+        Assertions.assertEquals(9, ringBuffer.take(IndexSampler.latest(100)));
+    }
+
+    @Test
+    public void whenEmpty_thenTakeBlocksUntilAdded() throws Exception {
+        CircularFifoQueue<String> queue = new CircularFifoQueue<>(16);
+
+        CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> {
+            try {
+                return queue.take("a");
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        Assertions.assertThrows(TimeoutException.class, () -> future.get(100, TimeUnit.MILLISECONDS));
+
+        long start = System.nanoTime();
+        queue.put("a", "hello");
+
+        Assertions.assertEquals("hello", future.get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(400));
+    }
+
+    @Test
+    public void whenAddingConcurrently_thenSampleNeverNull() throws Exception {
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>(1024);
+
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 200_000; i++) {
+                ringBuffer.add(i);
+            }
+        });
+
+        int samples = 0;
+        while (!writer.isDone()) {
+            Integer v = ringBuffer.takeRandom();
+            Assertions.assertNotNull(v);
+            samples++;
+        }
+
+        writer.get();
+        Assertions.assertTrue(samples > 0);
+        Assertions.assertEquals(1024, ringBuffer.size());
+    }
+}
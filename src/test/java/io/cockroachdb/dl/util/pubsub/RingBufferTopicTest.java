@@ -0,0 +1,113 @@
+package io.cockroachdb.dl.util.pubsub;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.cockroachdb.dl.pubsub.Message;
+import io.cockroachdb.dl.pubsub.RingBufferTopic;
+
+@Tag("unit-test")
+public class RingBufferTopicTest {
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+
+    private final List<Future<RingBufferTopic.Stats>> futures = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    private <E> RingBufferTopic<E> newTopic(int capacity) {
+        return new RingBufferTopic<>("test", capacity, subscriber -> futures.add(executorService.submit(subscriber)));
+    }
+
+    @Test
+    public void whenPublishingBeyondCapacity_thenAllSubscribersReceiveAllInOrder() throws Exception {
+        RingBufferTopic<Integer> topic = newTopic(16);
+
+        List<Integer> a = new ArrayList<>();
+        List<Integer> b = new ArrayList<>();
+
+        topic.addMessageListener(message -> {
+            if (!message.isPoisonPill()) {
+                a.add(message.getPayload());
+            }
+        });
+        topic.addMessageListener(message -> {
+            if (!message.isPoisonPill()) {
+                b.add(message.getPayload());
+                if (message.getPayload() % 1000 == 0) {
+                    Thread.yield();
+                }
+            }
+        });
+
+        Assertions.assertTrue(topic.hasMessageListeners());
+
+        for (int i = 0; i < 100_000; i++) {
+            topic.publish(Message.of(i));
+        }
+        topic.publish(Message.poisonPill());
+
+        for (Future<RingBufferTopic.Stats> future : futures) {
+            RingBufferTopic.Stats stats = future.get(30, TimeUnit.SECONDS);
+            Assertions.assertEquals(100_001, stats.getEventsPublished());
+            Assertions.assertEquals(100_001, stats.getEventsConsumed());
+        }
+
+        Assertions.assertEquals(100_000, a.size());
+        Assertions.assertEquals(100_000, b.size());
+        for (int i = 0; i < 100_000; i++) {
+            Assertions.assertEquals(i, a.get(i));
+            Assertions.assertEquals(i, b.get(i));
+        }
+
+        Assertions.assertTrue(topic.isDrained());
+        Assertions.assertFalse(topic.hasMessageListeners());
+    }
+
+    @Test
+    public void whenNoListeners_thenPublishDoesNotBlock() {
+        RingBufferTopic<Integer> topic = newTopic(4);
+
+        Assertions.assertFalse(topic.hasMessageListeners());
+
+        for (int i = 0; i < 100; i++) {
+            topic.publish(Message.of(i));
+        }
+        topic.publish(Message.poisonPill());
+
+        Assertions.assertTrue(topic.isDrained());
+    }
+
+    @Test
+    public void whenCapacityNotPowerOfTwo_thenRoundUp() throws Exception {
+        RingBufferTopic<String> topic = newTopic(5);
+
+        List<String> received = new ArrayList<>();
+        topic.addMessageListener(message -> {
+            if (!message.isPoisonPill()) {
+                received.add(message.getPayload());
+            }
+        });
+
+        for (int i = 0; i < 50; i++) {
+            topic.publish(Message.of("m" + i));
+        }
+        topic.publish(Message.poisonPill());
+
+        futures.get(0).get(30, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(50, received.size());
+        Assertions.assertEquals("m49", received.get(49));
+    }
+}